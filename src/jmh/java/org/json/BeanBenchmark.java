@@ -0,0 +1,81 @@
+package org.json;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Wrapping beans in JSONObjects.
+ *
+ * @author kuporific
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BeanBenchmark {
+
+    private final Customer customer = new Customer();
+
+    @Benchmark
+    public JSONObject jsonObject() {
+        return new JSONObject(this.customer);
+    }
+
+    public static class Customer {
+
+        public boolean isActive() {
+            return true;
+        }
+
+        public Address getAddress() {
+            return new Address();
+        }
+
+        public String getEmail() {
+            return "alpha@example.com";
+        }
+
+        public long getId() {
+            return 1234567L;
+        }
+
+        public String getName() {
+            return "Alpha Bravo";
+        }
+
+        public double getScore() {
+            return 98.6;
+        }
+
+        public List<String> getTags() {
+            return Arrays.asList("charlie", "delta");
+        }
+    }
+
+    public static class Address {
+
+        public String getCity() {
+            return "Echo";
+        }
+
+        public String getStreet() {
+            return "1 Foxtrot Way";
+        }
+
+        public int getZip() {
+            return 12345;
+        }
+    }
+}
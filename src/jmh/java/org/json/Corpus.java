@@ -0,0 +1,129 @@
+package org.json;
+
+import java.util.Random;
+
+/**
+ * The documents that the benchmarks work on. They are made from a fixed seed,
+ * so that every run measures the same text.
+ *
+ * @author kuporific
+ */
+final class Corpus {
+
+    private static final String[] WORDS = { "alpha", "bravo", "charlie",
+            "delta", "echo", "foxtrot", "golf", "hotel", "india", "juliet" };
+
+    private static final String[] UNICODE = { "caf\u00e9", "na\u00efve",
+            "\u00fcber", "\u0436\u0443\u0440\u043d\u0430\u043b",
+            "\u65e5\u672c\u8a9e", "\ud55c\uad6d\uc5b4",
+            "\u0627\u0644\u0639\u0631\u0628\u064a\u0629",
+            "\ud83d\ude00\ud83c\udf89", "\u03b1\u03b2\u03b3", "\"quoted\"\ttab" };
+
+    private Corpus() {
+    }
+
+    /**
+     * Get a document by name.
+     *
+     * @param name "small" for an API response of about a kilobyte, "array"
+     *             for an object holding a large array of records, "deep" for
+     *             deeply nested objects and arrays, or "unicode" for records
+     *             whose strings are mostly not ASCII.
+     * @return The JSON text.
+     */
+    static String document(String name) {
+        Random random = new Random(42);
+        switch (name) {
+        case "small":
+            return small(random).toString();
+        case "array":
+            return new JSONObject().put("items", records(random, 10000, WORDS))
+                    .toString();
+        case "deep":
+            return deep(random, 64).toString();
+        case "unicode":
+            return new JSONObject().put("items", records(random, 1000, UNICODE))
+                    .toString();
+        default:
+            throw new IllegalArgumentException(name);
+        }
+    }
+
+    /**
+     * Get a large array of records.
+     *
+     * @param length The number of records.
+     * @return The JSON text.
+     */
+    static String array(int length) {
+        return records(new Random(42), length, WORDS).toString();
+    }
+
+    /**
+     * Get a table of comma delimited text with a row of names.
+     *
+     * @param rows The number of rows, not counting the names.
+     * @return The text.
+     */
+    static String table(int rows) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder("id,name,city,score,active\n");
+        for (int i = 0; i < rows; i += 1) {
+            sb.append(i).append(',').append(WORDS[random.nextInt(WORDS.length)])
+                    .append(',').append("\"").append(word(random, WORDS))
+                    .append(", ").append(word(random, WORDS)).append("\"")
+                    .append(',').append(random.nextInt(1000) / 10.0).append(',')
+                    .append(random.nextBoolean()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static JSONArray records(Random random, int length,
+            String[] words) {
+        JSONArray records = new JSONArray();
+        for (int i = 0; i < length; i += 1) {
+            records.put(new JSONObject()
+                    .put("id", i)
+                    .put("name", word(random, words) + " " + word(random, words))
+                    .put("email", word(random, WORDS) + i + "@example.com")
+                    .put("score", random.nextInt(100000) / 100.0)
+                    .put("active", random.nextBoolean())
+                    .put("tags", new JSONArray().put(word(random, words))
+                            .put(word(random, words)))
+                    .put("created", 1400000000000L + random.nextInt()));
+        }
+        return records;
+    }
+
+    private static JSONObject deep(Random random, int depth) {
+        JSONObject jo = new JSONObject().put("level", depth)
+                .put("name", word(random, WORDS));
+        if (depth > 0) {
+            jo.put("children", new JSONArray().put(deep(random, depth - 1))
+                    .put(random.nextInt(1000)));
+        }
+        return jo;
+    }
+
+    private static JSONObject small(Random random) {
+        return new JSONObject()
+                .put("status", "ok")
+                .put("requestId", Long.toHexString(random.nextLong()))
+                .put("user", new JSONObject()
+                        .put("id", random.nextInt(1000000))
+                        .put("login", word(random, WORDS))
+                        .put("displayName", word(random, WORDS) + " "
+                                + word(random, WORDS))
+                        .put("verified", true)
+                        .put("roles", new JSONArray().put("reader")
+                                .put("writer")))
+                .put("items", records(random, 5, WORDS))
+                .put("paging", new JSONObject().put("offset", 0)
+                        .put("limit", 5).put("total", 1234)
+                        .put("next", "/api/v1/items?offset=5&limit=5"));
+    }
+
+    private static String word(Random random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,76 @@
+package org.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing an object holding an array of records, eagerly and lazily, and then
+ * either reading a few fields of every hundredth record or writing the whole
+ * text out again.
+ *
+ * @author kuporific
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LazyBenchmark {
+
+    @Param({ "array", "unicode" })
+    public String document;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        this.bytes = Corpus.document(this.document)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long eagerRead() {
+        return read(new JSONObject(new UTF8Tokener(this.bytes)));
+    }
+
+    @Benchmark
+    public long lazyRead() {
+        return read(new JSONObject(UTF8Tokener.lazy(this.bytes)));
+    }
+
+    @Benchmark
+    public String eagerWrite() {
+        return new JSONObject(new UTF8Tokener(this.bytes)).toString();
+    }
+
+    @Benchmark
+    public String lazyWrite() {
+        return new JSONObject(UTF8Tokener.lazy(this.bytes)).toString();
+    }
+
+    /**
+     * Read the id, name, and first tag of every hundredth record.
+     */
+    private static long read(JSONObject document) {
+        JSONArray items = document.getJSONArray("items");
+        long sum = 0;
+        for (int i = 0; i < items.length(); i += 100) {
+            JSONObject item = items.getJSONObject(i);
+            sum += item.getLong("id") + item.getString("name").length()
+                    + item.getJSONArray("tags").getString(0).length();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,57 @@
+package org.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing text into JSONObjects and JSONArrays.
+ *
+ * @author kuporific
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ParseBenchmark {
+
+    @Param({ "small", "array", "deep", "unicode" })
+    public String document;
+
+    private byte[] bytes;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        this.text = Corpus.document(this.document);
+        this.bytes = this.text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public JSONObject jsonObject() {
+        return new JSONObject(this.text);
+    }
+
+    @Benchmark
+    public JSONObject utf8() {
+        return new JSONObject(new UTF8Tokener(this.bytes));
+    }
+
+    @Benchmark
+    public JSONObject indexed() {
+        return new JSONObject(UTF8Tokener.indexed(this.bytes));
+    }
+}
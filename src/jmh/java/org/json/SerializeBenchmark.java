@@ -0,0 +1,51 @@
+package org.json;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing JSONObjects as text.
+ *
+ * @author kuporific
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializeBenchmark {
+
+    @Param({ "small", "array", "deep", "unicode" })
+    public String document;
+
+    private JSONObject jsonObject;
+
+    @Setup
+    public void setUp() {
+        this.jsonObject = new JSONObject(Corpus.document(this.document));
+    }
+
+    @Benchmark
+    public String toJSONString() {
+        return this.jsonObject.toString();
+    }
+
+    @Benchmark
+    public StringWriter writeIndented() {
+        StringWriter writer = new StringWriter();
+        this.jsonObject.write(writer, 2, 0);
+        return writer;
+    }
+}
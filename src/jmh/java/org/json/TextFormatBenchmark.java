@@ -0,0 +1,48 @@
+package org.json;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Converting XML and comma delimited text to JSON.
+ *
+ * @author kuporific
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TextFormatBenchmark {
+
+    private String table;
+
+    private String xml;
+
+    @Setup
+    public void setUp() {
+        this.table = Corpus.table(1000);
+        this.xml = XML.toString(new JSONObject(Corpus.document("small")),
+                "response");
+    }
+
+    @Benchmark
+    public JSONArray cdl() {
+        return CDL.toJSONArray(this.table);
+    }
+
+    @Benchmark
+    public JSONObject xml() {
+        return XML.toJSONObject(this.xml);
+    }
+}
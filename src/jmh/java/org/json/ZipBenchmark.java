@@ -0,0 +1,62 @@
+package org.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.json.zip.BitInputStream;
+import org.json.zip.BitOutputStream;
+import org.json.zip.Compressor;
+import org.json.zip.Decompressor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compressing and decompressing JSON with JSONzip.
+ *
+ * @author kuporific
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ZipBenchmark {
+
+    @Param({ "small", "unicode" })
+    public String document;
+
+    private JSONObject jsonObject;
+
+    private byte[] zipped;
+
+    @Setup
+    public void setUp() {
+        this.jsonObject = new JSONObject(Corpus.document(this.document));
+        this.zipped = this.zip();
+    }
+
+    @Benchmark
+    public byte[] zip() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Compressor compressor = new Compressor(new BitOutputStream(out));
+        compressor.zip(this.jsonObject);
+        compressor.flush();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object unzip() {
+        return new Decompressor(new BitInputStream(new ByteArrayInputStream(
+                this.zipped))).unzip();
+    }
+}
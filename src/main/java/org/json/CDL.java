@@ -131,7 +131,11 @@ public class CDL {
     public static JSONObject rowToJSONObject(JSONArray names, JSONTokener x)
             throws JSONException {
         JSONArray ja = rowToJSONArray(x);
-        return ja != null ? ja.toJSONObject(names) :  null;
+        if (ja == null || names == null || names.length() == 0
+                || ja.length() == 0) {
+            return null;
+        }
+        return new JSONObject(names, ja, x);
     }
 
     /**
@@ -171,6 +175,38 @@ public class CDL {
         return sb.toString();
     }
 
+    /**
+     * Report the rows of a comma delimited text to a JSONHandler as an array
+     * of objects, using the first row as a source of names. Only one row is
+     * held in memory at a time.
+     * @param x The JSONTokener containing the comma delimited text.
+     * @param handler The JSONHandler that receives the rows.
+     * @throws JSONException
+     */
+    public static void parse(JSONTokener x, JSONHandler handler)
+            throws JSONException {
+        JSONArray names = rowToJSONArray(x);
+        handler.startArray();
+        if (names != null && names.length() > 0) {
+            for (;;) {
+                JSONArray ja = rowToJSONArray(x);
+                if (ja == null) {
+                    break;
+                }
+                handler.startObject();
+                for (int i = 0; i < names.length(); i++) {
+                    Object value = ja.opt(i);
+                    if (value != null) {
+                        handler.key(names.getString(i));
+                        handler.value(value);
+                    }
+                }
+                handler.endObject();
+            }
+        }
+        handler.endArray();
+    }
+
     /**
      * Produce a JSONArray of JSONObjects from a comma delimited text string,
      * using the first row as a source of names.
@@ -0,0 +1,405 @@
+package org.json;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * DoubleFormatter writes a double as the shortest decimal that reads back as
+ * the same double, straight into a byte array, without making any Strings.
+ * It is the counterpart of {@link NumberParser}. The digits are found with the
+ * Schubfach algorithm, which needs a single 128-bit multiplication for each
+ * of the value and the two ends of its rounding interval.
+ * <p>
+ * The layout is the one that {@link JSONObject#numberToString(Number)} has
+ * always produced from Double.toString: numbers from 0.001 up to, but not
+ * including, 10000000 are written in plain notation, without trailing zeros
+ * and without a trailing decimal point, and all others in computerized
+ * scientific notation, such as 1.0E10 or 1.25E-5. Where Double.toString gives
+ * more digits than needed, as it does for some values on older runtimes, the
+ * shorter form is written.
+ *
+ * @author kuporific
+ */
+final class DoubleFormatter {
+
+    /**
+     * The longest text that can be produced, such as -2.2250738585072014E-308.
+     */
+    static final int MAX_LENGTH = 24;
+
+    /**
+     * The smallest power of ten in the table.
+     */
+    private static final int K_MIN = -324;
+
+    /**
+     * The largest power of ten in the table.
+     */
+    private static final int K_MAX = 292;
+
+    /**
+     * The binary exponent of the smallest subnormal double.
+     */
+    private static final int Q_MIN = -1074;
+
+    /**
+     * The precision of a double, in bits.
+     */
+    private static final int P = 53;
+
+    /**
+     * The implicit bit of a normal double.
+     */
+    private static final long C_MIN = 1L << (P - 1);
+
+    /**
+     * Subnormal significands below this are scaled up by ten, so that their
+     * rounding interval still holds a decimal of the right length.
+     */
+    private static final long C_TINY = 3;
+
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    /**
+     * The 126-bit approximations of the powers of ten from 1e-292 to 1e324,
+     * normalized and rounded up, as pairs of high and low 63-bit halves.
+     */
+    private static final long[] G = table();
+
+    private DoubleFormatter() {
+    }
+
+    /**
+     * Write a finite double.
+     *
+     * @param v      A finite double.
+     * @param bytes  The array to write the ASCII characters into, which must
+     *               have room for MAX_LENGTH bytes from the offset.
+     * @param offset The offset to write the first character at.
+     * @return The offset just past the last character written.
+     */
+    static int format(double v, byte[] bytes, int offset) {
+        long bits = Double.doubleToRawLongBits(v);
+        int i = offset;
+        if (bits < 0) {
+            bytes[i++] = '-';
+        }
+        long f = significand(bits);
+        if (f == 0) {
+            bytes[i++] = '0';
+            return i;
+        }
+        return layout(f, exponent(bits), bytes, i);
+    }
+
+    /**
+     * Write a finite double into an array of characters, for a Writer.
+     *
+     * @param v      A finite double.
+     * @param chars  The array to write the characters into, which must have
+     *               room for MAX_LENGTH characters from the offset.
+     * @param offset The offset to write the first character at.
+     * @return The offset just past the last character written.
+     */
+    static int format(double v, char[] chars, int offset) {
+        long bits = Double.doubleToRawLongBits(v);
+        int i = offset;
+        if (bits < 0) {
+            chars[i++] = '-';
+        }
+        long f = significand(bits);
+        if (f == 0) {
+            chars[i++] = '0';
+            return i;
+        }
+        return layout(f, exponent(bits), chars, i);
+    }
+
+    /**
+     * Make a String of a finite double.
+     *
+     * @param v A finite double.
+     * @return The text that format writes.
+     */
+    static String toString(double v) {
+        byte[] bytes = new byte[MAX_LENGTH];
+        return new String(bytes, 0, format(v, bytes, 0),
+                StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Find the digits of the shortest decimal of the magnitude of a finite
+     * double, or 0 if it is zero. The exponent that goes with them is found
+     * by exponent.
+     */
+    private static long significand(long bits) {
+        long t = bits & (C_MIN - 1);
+        int bq = (int) (bits >>> (P - 1)) & 0x7FF;
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+
+// A double that is an integer below 2^53 is its own shortest decimal.
+
+            if (0 < mq && mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    return f;
+                }
+            }
+            return decimal(-mq, c);
+        }
+        if (t != 0) {
+            return decimal(Q_MIN, t < C_TINY ? 10 * t : t);
+        }
+        return 0;
+    }
+
+    /**
+     * Find the decimal exponent of the digits that significand finds for a
+     * finite, nonzero double.
+     */
+    private static int exponent(long bits) {
+        long t = bits & (C_MIN - 1);
+        int bq = (int) (bits >>> (P - 1)) & 0x7FF;
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P && (c >> mq) << mq == c) {
+                return 0;
+            }
+            return power(-mq, c);
+        }
+        return t < C_TINY ? power(Q_MIN, 10 * t) - 1 : power(Q_MIN, t);
+    }
+
+    /**
+     * Find the decimal exponent of the digits that decimal finds for
+     * c * 2^q.
+     */
+    private static int power(int q, long c) {
+
+// The interval is narrower below a power of two, where the spacing of
+// doubles halves.
+
+        return c != C_MIN || q == Q_MIN ? flog10pow2(q)
+                : flog10threeQuartersPow2(q);
+    }
+
+    /**
+     * Find the digits of the shortest decimal in the rounding interval of
+     * c * 2^q. A subnormal significand that has been scaled up by ten is
+     * small enough that the decimal with one digit fewer is never tried, so
+     * the exponent is always the one that power finds.
+     */
+    private static long decimal(int q, long c) {
+        int out = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl = c != C_MIN || q == Q_MIN ? cb - 2 : cb - 1;
+        int k = power(q, c);
+        int h = q + flog2pow10(-k) + 2;
+        int index = (k - K_MIN) * 2;
+        long g1 = G[index];
+        long g0 = G[index + 1];
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+// Try a decimal with one digit fewer first.
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            long sp10 = 10 * NumberParser.multiplyHigh(s,
+                    115292150460684698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return upin ? sp10 : tp10;
+            }
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return uin ? s : t;
+        }
+        long cmp = vb - (s + t << 1);
+        return cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t;
+    }
+
+    /**
+     * Write f * 10^e in the layout of numberToString.
+     */
+    private static int layout(long f, int e, byte[] bytes, int i) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e += 1;
+        }
+        int length = 1;
+        for (long rest = f; rest >= 10; rest /= 10) {
+            length += 1;
+        }
+        int exponent = length + e - 1;
+        if (exponent >= -3 && exponent < 7) {
+            if (exponent < 0) {
+                bytes[i++] = '0';
+                bytes[i++] = '.';
+                for (int z = -1; z > exponent; z -= 1) {
+                    bytes[i++] = '0';
+                }
+                return digits(f, length, bytes, i);
+            }
+            int integer = exponent + 1;
+            if (length <= integer) {
+                i = digits(f, length, bytes, i);
+                for (int z = length; z < integer; z += 1) {
+                    bytes[i++] = '0';
+                }
+                return i;
+            }
+            int end = digits(f, length, bytes, i + 1);
+            System.arraycopy(bytes, i + 1, bytes, i, integer);
+            bytes[i + integer] = '.';
+            return end;
+        }
+        i = digits(f, length, bytes, i + 1);
+        bytes[i - length - 1] = bytes[i - length];
+        bytes[i - length] = '.';
+        if (length == 1) {
+            bytes[i++] = '0';
+        }
+        bytes[i++] = 'E';
+        if (exponent < 0) {
+            bytes[i++] = '-';
+            exponent = -exponent;
+        }
+        return digits(exponent, exponent >= 100 ? 3 : exponent >= 10 ? 2 : 1,
+                bytes, i);
+    }
+
+    private static int digits(long f, int length, byte[] bytes, int i) {
+        int end = i + length;
+        for (int at = end - 1; at >= i; at -= 1) {
+            bytes[at] = (byte) ('0' + f % 10);
+            f /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Write f * 10^e in the layout of numberToString, as characters.
+     */
+    private static int layout(long f, int e, char[] chars, int i) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e += 1;
+        }
+        int length = 1;
+        for (long rest = f; rest >= 10; rest /= 10) {
+            length += 1;
+        }
+        int exponent = length + e - 1;
+        if (exponent >= -3 && exponent < 7) {
+            if (exponent < 0) {
+                chars[i++] = '0';
+                chars[i++] = '.';
+                for (int z = -1; z > exponent; z -= 1) {
+                    chars[i++] = '0';
+                }
+                return digits(f, length, chars, i);
+            }
+            int integer = exponent + 1;
+            if (length <= integer) {
+                i = digits(f, length, chars, i);
+                for (int z = length; z < integer; z += 1) {
+                    chars[i++] = '0';
+                }
+                return i;
+            }
+            int end = digits(f, length, chars, i + 1);
+            System.arraycopy(chars, i + 1, chars, i, integer);
+            chars[i + integer] = '.';
+            return end;
+        }
+        i = digits(f, length, chars, i + 1);
+        chars[i - length - 1] = chars[i - length];
+        chars[i - length] = '.';
+        if (length == 1) {
+            chars[i++] = '0';
+        }
+        chars[i++] = 'E';
+        if (exponent < 0) {
+            chars[i++] = '-';
+            exponent = -exponent;
+        }
+        return digits(exponent, exponent >= 100 ? 3 : exponent >= 10 ? 2 : 1,
+                chars, i);
+    }
+
+    private static int digits(long f, int length, char[] chars, int i) {
+        int end = i + length;
+        for (int at = end - 1; at >= i; at -= 1) {
+            chars[at] = (char) ('0' + f % 10);
+            f /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Compute floor(q * log10(2)).
+     */
+    private static int flog10pow2(int q) {
+        return (int) (q * 661971961083L >> 41);
+    }
+
+    /**
+     * Compute floor(q * log10(2) + log10(3/4)).
+     */
+    private static int flog10threeQuartersPow2(int q) {
+        return (int) (q * 661971961083L + -274743187321L >> 41);
+    }
+
+    /**
+     * Compute floor(e * log2(10)).
+     */
+    private static int flog2pow10(int e) {
+        return (int) (e * 913124641741L >> 38);
+    }
+
+    /**
+     * Multiply by the power of ten, rounding to odd.
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = NumberParser.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = NumberParser.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    private static long[] table() {
+        long[] g = new long[(K_MAX - K_MIN + 1) * 2];
+        BigInteger mask = BigInteger.ONE.shiftLeft(63)
+                .subtract(BigInteger.ONE);
+        for (int k = K_MIN; k <= K_MAX; k += 1) {
+            BigInteger beta;
+            if (k <= 0) {
+                BigInteger power = BigInteger.TEN.pow(-k);
+                int shift = 126 - power.bitLength();
+                beta = shift >= 0 ? power.shiftLeft(shift)
+                        : power.shiftRight(-shift);
+            } else {
+                BigInteger power = BigInteger.TEN.pow(k);
+                beta = BigInteger.ONE.shiftLeft(125 + power.bitLength())
+                        .divide(power);
+            }
+            BigInteger rounded = beta.add(BigInteger.ONE);
+            g[(k - K_MIN) * 2] = rounded.shiftRight(63).longValue();
+            g[(k - K_MIN) * 2 + 1] = rounded.and(mask).longValue();
+        }
+        return g;
+    }
+}
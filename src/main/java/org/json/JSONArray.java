@@ -27,7 +27,6 @@ package org.json;
 import java.io.IOException;
 import java.io.Writer;
 import java.lang.reflect.Array;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
 import java.util.StringJoiner;
@@ -81,9 +80,10 @@ import java.util.stream.Collectors;
 public class JSONArray extends JSONBase<Integer> {
 
     /**
-     * The arrayList where the JSONArray's properties are kept.
+     * The list where the JSONArray's properties are kept. An array of only
+     * Integers, only Longs, or only Doubles is kept unboxed.
      */
-    private final ArrayList<Object> myArrayList = new ArrayList<>();
+    private final JSONList myArrayList = new JSONList();
 
     /**
      * Construct an empty JSONArray.
@@ -111,7 +111,7 @@ public class JSONArray extends JSONBase<Integer> {
                     this.myArrayList.add(JSONObject.NULL);
                 } else {
                     x.back();
-                    this.myArrayList.add(x.nextValue());
+                    this.myArrayList.add(x.nextMemberValue());
                 }
                 switch (x.nextClean()) {
                 case ',':
@@ -194,6 +194,67 @@ public class JSONArray extends JSONBase<Integer> {
         return stringJoiner.toString();
     }
 
+    /**
+     * Get the double value associated with an index.
+     *
+     * @param index
+     *            The index must be between 0 and length() - 1.
+     * @return The value.
+     * @throws JSONException
+     *             If the key is not found or if the value cannot be converted
+     *             to a number.
+     */
+    @Override
+    public double getDouble(Integer index) throws JSONException {
+        if (this.isPrimitive(index)) {
+            return this.myArrayList.doubleAt(index);
+        }
+        return super.getDouble(index);
+    }
+
+    /**
+     * Get the int value associated with an index.
+     *
+     * @param index
+     *            The index must be between 0 and length() - 1.
+     * @return The value.
+     * @throws JSONException
+     *             If the key is not found or if the value is not a number.
+     */
+    @Override
+    public int getInt(Integer index) throws JSONException {
+        if (this.isPrimitive(index)) {
+            return this.myArrayList.intAt(index);
+        }
+        return super.getInt(index);
+    }
+
+    /**
+     * Get the long value associated with an index.
+     *
+     * @param index
+     *            The index must be between 0 and length() - 1.
+     * @return The value.
+     * @throws JSONException
+     *             If the key is not found or if the value cannot be converted
+     *             to a number.
+     */
+    @Override
+    public long getLong(Integer index) throws JSONException {
+        if (this.isPrimitive(index)) {
+            return this.myArrayList.longAt(index);
+        }
+        return super.getLong(index);
+    }
+
+    /**
+     * Determine if an index is in range and its element is kept unboxed.
+     */
+    private boolean isPrimitive(Integer index) {
+        return index != null && index >= 0 && index < this.length()
+                && this.myArrayList.isPrimitive();
+    }
+
     /**
      * Get the number of elements in the JSONArray, included nulls.
      *
@@ -215,6 +276,18 @@ public class JSONArray extends JSONBase<Integer> {
         return withinBounds(index, this.myArrayList::get);
     }
 
+    /**
+     * Get the element at an index as it is kept, which for a lazy JSONArray
+     * may be a value that has not been parsed yet. Writers use it to copy
+     * such values as they are.
+     *
+     * @param index The index, which must be within the array.
+     * @return The element.
+     */
+    Object peek(int index) {
+        return this.myArrayList.peek(index);
+    }
+
     /**
      * Append a boolean value. This increases the array's length by one.
      *
@@ -459,6 +532,63 @@ public class JSONArray extends JSONBase<Integer> {
         return withinBounds(index, this.myArrayList::remove);
     }
 
+    /**
+     * Produce an array of doubles from the values of this JSONArray. An array
+     * of numbers that is kept unboxed is copied in bulk.
+     *
+     * @return An array of doubles.
+     * @throws JSONException
+     *             If any of the values cannot be converted to a number.
+     */
+    public double[] toDoubleArray() throws JSONException {
+        double[] doubles = this.myArrayList.toDoubleArray();
+        if (doubles == null) {
+            doubles = new double[this.length()];
+            for (int i = 0; i < doubles.length; i += 1) {
+                doubles[i] = this.getDouble(i);
+            }
+        }
+        return doubles;
+    }
+
+    /**
+     * Produce an array of ints from the values of this JSONArray. An array of
+     * numbers that is kept unboxed is copied in bulk.
+     *
+     * @return An array of ints.
+     * @throws JSONException
+     *             If any of the values is not a number.
+     */
+    public int[] toIntArray() throws JSONException {
+        int[] ints = this.myArrayList.toIntArray();
+        if (ints == null) {
+            ints = new int[this.length()];
+            for (int i = 0; i < ints.length; i += 1) {
+                ints[i] = this.getInt(i);
+            }
+        }
+        return ints;
+    }
+
+    /**
+     * Produce an array of longs from the values of this JSONArray. An array of
+     * numbers that is kept unboxed is copied in bulk.
+     *
+     * @return An array of longs.
+     * @throws JSONException
+     *             If any of the values cannot be converted to a number.
+     */
+    public long[] toLongArray() throws JSONException {
+        long[] longs = this.myArrayList.toLongArray();
+        if (longs == null) {
+            longs = new long[this.length()];
+            for (int i = 0; i < longs.length; i += 1) {
+                longs[i] = this.getLong(i);
+            }
+        }
+        return longs;
+    }
+
     /**
      * Produce a JSONObject by combining a JSONArray of names with the values of
      * this JSONArray.
@@ -523,7 +653,7 @@ public class JSONArray extends JSONBase<Integer> {
             writer.write('[');
 
             if (length == 1) {
-                JSONObject.writeValue(writer, this.myArrayList.get(0),
+                JSONObject.writeValue(writer, this.myArrayList.peek(0),
                         indentFactor, indent);
             } else if (length != 0) {
                 final int newindent = indent + indentFactor;
@@ -536,7 +666,7 @@ public class JSONArray extends JSONBase<Integer> {
                         writer.write('\n');
                     }
                     JSONObject.indent(writer, newindent);
-                    JSONObject.writeValue(writer, this.myArrayList.get(i),
+                    JSONObject.writeValue(writer, this.myArrayList.peek(i),
                             indentFactor, newindent);
                     commanate = true;
                 }
@@ -0,0 +1,144 @@
+package org.json;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JSONBean holds the getters of a class, found once and kept for as long as
+ * the class is loaded, so that {@link JSONObject#JSONObject(Object)} does not
+ * search the methods of a bean and work out its keys each time a bean of the
+ * same class is converted. Each getter is kept as a MethodHandle with its key.
+ *
+ * @author kuporific
+ */
+final class JSONBean {
+
+    private static final ClassValue<JSONBean> BEANS = new ClassValue<JSONBean>() {
+        @Override
+        protected JSONBean computeValue(Class<?> klass) {
+            return new JSONBean(klass);
+        }
+    };
+
+    private static final MethodType GETTER = MethodType.methodType(
+            Object.class, Object.class);
+
+    private final MethodHandle[] getters;
+
+    private final String[] keys;
+
+    private JSONBean(Class<?> klass) {
+
+// If klass is a System class then set includeSuperClass to false.
+
+        boolean includeSuperClass = klass.getClassLoader() != null;
+
+        Method[] methods = includeSuperClass ? klass.getMethods() : klass
+                .getDeclaredMethods();
+        List<String> keys = new ArrayList<>();
+        List<MethodHandle> getters = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (Method method : methods) {
+            String key = key(method);
+            if (key != null) {
+                try {
+                    MethodHandle getter = lookup.unreflect(method);
+                    if (Modifier.isStatic(method.getModifiers())) {
+                        getter = MethodHandles.dropArguments(getter, 0,
+                                Object.class);
+                    }
+                    getters.add(getter.asType(GETTER));
+                    keys.add(key);
+                } catch (Exception ignore) {
+                }
+            }
+        }
+        this.keys = keys.toArray(new String[keys.size()]);
+        this.getters = getters.toArray(new MethodHandle[getters.size()]);
+    }
+
+    /**
+     * Get the JSONBean of a class.
+     *
+     * @param klass A class.
+     * @return The JSONBean, which is only made the first time it is asked for.
+     */
+    static JSONBean of(Class<?> klass) {
+        return BEANS.get(klass);
+    }
+
+    /**
+     * Put the results of the getters of a bean that are not null into a map,
+     * wrapped. A getter that throws is left out, even if it throws an Error,
+     * as it was when getters were called with Method.invoke.
+     *
+     * @param bean A bean of the class of this JSONBean.
+     * @param map  The map to put the values in.
+     */
+    void populate(Object bean, JSONMap map) {
+        for (int i = 0; i < this.getters.length; i += 1) {
+            Object result;
+            try {
+                result = (Object) this.getters[i].invokeExact(bean);
+            } catch (Throwable ignore) {
+                continue;
+            }
+            if (result != null) {
+                map.put(this.keys[i], JSONObject.wrap(result));
+            }
+        }
+    }
+
+    /**
+     * Get the key of a public getter: the name without its "get" or "is"
+     * prefix.
+     *
+     * @param method A method.
+     * @return The key, or null if the method is not a getter.
+     */
+    private static String key(Method method) {
+        if (!Modifier.isPublic(method.getModifiers())
+                || method.getParameterTypes().length != 0) {
+            return null;
+        }
+        String name = method.getName();
+        String key = "";
+        if (name.startsWith("get")) {
+            if ("getClass".equals(name) || "getDeclaringClass".equals(name)) {
+                key = "";
+            } else {
+                key = name.substring(3);
+            }
+        } else if (name.startsWith("is")) {
+            key = name.substring(2);
+        }
+        return key(key);
+    }
+
+    /**
+     * Make a key from the part of the name of a getter or setter after its
+     * prefix, converting the first character to lower case unless the second
+     * is upper case.
+     *
+     * @param name The name without its prefix.
+     * @return The key, or null if the name does not start with an upper case
+     *         character.
+     */
+    static String key(String name) {
+        if (name.length() == 0 || !Character.isUpperCase(name.charAt(0))) {
+            return null;
+        }
+        if (name.length() == 1) {
+            return name.toLowerCase();
+        }
+        if (!Character.isUpperCase(name.charAt(1))) {
+            return name.substring(0, 1).toLowerCase() + name.substring(1);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,767 @@
+package org.json;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A JSONBinder makes instances of a class from JSON: from a JSONObject that
+ * has already been built, or straight from a JSONTokener, without building
+ * the JSONObject at all. The constructor and the setters of a class are found
+ * once, and kept as MethodHandles for as long as the class is loaded.
+ * <p>
+ * A class is bound through its public no-argument constructor, its public
+ * setters, named as the getters that {@link JSONObject#JSONObject(Object)}
+ * reads, and its public non-final fields. A record is bound through its
+ * canonical constructor, with the components that are missing from the JSON
+ * left null, zero, or false. Keys that have no setter are ignored.
+ * <p>
+ * Values are converted to the declared types of the setters: the primitives
+ * and their wrappers, String, BigDecimal, BigInteger, enums, arrays, Lists,
+ * Sets and other Collections, Maps with String keys, JSONObject, JSONArray,
+ * Object, and, for JSON objects, other bound classes.
+ *
+ * @author kuporific
+ */
+final class JSONBinder {
+
+    private static final ClassValue<JSONBinder> BINDERS = new ClassValue<JSONBinder>() {
+        @Override
+        protected JSONBinder computeValue(Class<?> klass) {
+            return new JSONBinder(klass);
+        }
+    };
+
+    private static final MethodType SETTER = MethodType.methodType(
+            void.class, Object.class, Object.class);
+
+    /**
+     * The canonical constructor of a record, spread over an Object[]; or the
+     * no-argument constructor of any other class; or null if there is none.
+     */
+    private final MethodHandle constructor;
+
+    /**
+     * The values of the record components that are not in the JSON, or null
+     * if the class is not a record.
+     */
+    private final Object[] defaults;
+
+    private final Class<?> klass;
+
+    private final Map<String, Property> properties = new HashMap<>();
+
+    private JSONBinder(Class<?> klass) {
+        this.klass = klass;
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Object[] components = Records.components(klass);
+        MethodHandle constructor = null;
+        if (components != null) {
+            Class<?>[] types = new Class<?>[components.length];
+            this.defaults = new Object[components.length];
+            for (int i = 0; i < components.length; i += 1) {
+                types[i] = Records.type(components[i]);
+                this.properties.put(Records.name(components[i]), new Property(
+                        Records.genericType(components[i]), i, null));
+                if (types[i].isPrimitive()) {
+                    this.defaults[i] = Array.get(Array.newInstance(types[i], 1), 0);
+                }
+            }
+            try {
+                constructor = lookup.unreflectConstructor(
+                        klass.getDeclaredConstructor(types))
+                        .asSpreader(Object[].class, types.length)
+                        .asType(MethodType.methodType(Object.class,
+                                Object[].class));
+            } catch (Exception ignore) {
+            }
+        } else {
+            this.defaults = null;
+            try {
+                constructor = lookup.findConstructor(klass,
+                        MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+            } catch (Exception ignore) {
+            }
+            for (Method method : klass.getMethods()) {
+                String name = method.getName();
+                if (name.startsWith("set")
+                        && !Modifier.isStatic(method.getModifiers())
+                        && method.getParameterTypes().length == 1) {
+                    String key = JSONBean.key(name.substring(3));
+                    if (key != null && !this.properties.containsKey(key)) {
+                        try {
+                            this.properties.put(key, new Property(
+                                    method.getGenericParameterTypes()[0], -1,
+                                    lookup.unreflect(method).asType(SETTER)));
+                        } catch (Exception ignore) {
+                        }
+                    }
+                }
+            }
+            for (Field field : klass.getFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)
+                        && !this.properties.containsKey(field.getName())) {
+                    try {
+                        this.properties.put(field.getName(), new Property(
+                                field.getGenericType(), -1,
+                                lookup.unreflectSetter(field).asType(SETTER)));
+                    } catch (Exception ignore) {
+                    }
+                }
+            }
+        }
+        this.constructor = constructor;
+    }
+
+    /**
+     * Get the JSONBinder of a class.
+     *
+     * @param klass A class.
+     * @return The JSONBinder, which is only made the first time it is asked
+     *         for.
+     */
+    static JSONBinder of(Class<?> klass) {
+        return BINDERS.get(klass);
+    }
+
+    /**
+     * Make an instance of the class from a JSONObject.
+     *
+     * @param jo A JSONObject.
+     * @return A new instance.
+     * @throws JSONException If the class cannot be instantiated, or a value
+     *         cannot be converted to the type of its setter.
+     */
+    Object bind(JSONObject jo) throws JSONException {
+        Object[] arguments = this.arguments();
+        Object bean = arguments == null ? this.instantiate(null) : null;
+        for (String key : jo.keySet()) {
+            Property property = this.properties.get(key);
+            if (property != null) {
+                try {
+                    property.set(bean, arguments,
+                            convert(jo.opt(key), property.type));
+                } catch (BindException e) {
+                    throw e.at("[" + JSONObject.quote(key) + "]");
+                }
+            }
+        }
+        return arguments == null ? bean : this.instantiate(arguments);
+    }
+
+    /**
+     * Make an instance of the class from the next JSON object in a tokener.
+     * The values that have no setter are skipped without being built.
+     *
+     * @param x A JSONTokener.
+     * @return A new instance.
+     * @throws JSONException If there is a syntax error, if the class cannot
+     *         be instantiated, or if a value cannot be converted to the type
+     *         of its setter.
+     */
+    Object bind(JSONTokener x) throws JSONException {
+        if (x.nextClean() != '{') {
+            throw x.syntaxError("A JSONObject text must begin with '{'");
+        }
+        Object[] arguments = this.arguments();
+        Object bean = arguments == null ? this.instantiate(null) : null;
+        for (String key = nextKey(x); key != null;
+                key = nextMember(x) ? nextKey(x) : null) {
+            Property property = this.properties.get(key);
+            if (property == null) {
+                x.skipValue();
+            } else {
+                property.set(bean, arguments, read(x, property.type, key));
+            }
+        }
+        return arguments == null ? bean : this.instantiate(arguments);
+    }
+
+    private Object[] arguments() {
+        return this.defaults == null ? null : this.defaults.clone();
+    }
+
+    /**
+     * Call the constructor.
+     *
+     * @param arguments The record components, or null for the no-argument
+     *                  constructor.
+     */
+    private Object instantiate(Object[] arguments) throws JSONException {
+        if (this.constructor == null) {
+            throw new JSONException(this.klass.getName()
+                    + " has no public constructor to bind with.");
+        }
+        try {
+            return arguments == null ? (Object) this.constructor.invokeExact()
+                    : (Object) this.constructor.invokeExact(arguments);
+        } catch (JSONException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /**
+     * Convert a value that has been read into JSONObjects and JSONArrays to a
+     * type.
+     *
+     * @param value A value, which may be JSONObject.NULL.
+     * @param type  The type to convert to.
+     * @return The converted value, or null for JSONObject.NULL.
+     * @throws JSONException If the value cannot be converted.
+     */
+    static Object convert(Object value, Type type) throws JSONException {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            return null;
+        }
+        Class<?> raw = raw(type);
+        if (raw.isInstance(value) && !(value instanceof Collection)
+                && !(value instanceof Map)) {
+            return value;
+        }
+        JSONCodec<Object> codec = JSONCodec.of(raw);
+        if (codec != null) {
+            return codec.read(new JSONTokener(JSONObject.valueToString(value)));
+        }
+        if (isScalar(raw)) {
+            return scalar(value, raw);
+        }
+        if (value instanceof JSONArray) {
+            JSONArray ja = (JSONArray) value;
+            if (raw.isArray() || Collection.class.isAssignableFrom(raw)) {
+                Type element = element(type);
+                List<Object> list = new ArrayList<>(ja.length());
+                for (int i = 0; i < ja.length(); i += 1) {
+                    try {
+                        list.add(convert(ja.opt(i), element));
+                    } catch (BindException e) {
+                        throw e.at("[" + i + "]");
+                    }
+                }
+                return collection(list, type, raw);
+            }
+        } else if (value instanceof JSONObject) {
+            JSONObject jo = (JSONObject) value;
+            if (Map.class.isAssignableFrom(raw)) {
+                Type mapped = mapped(type);
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (String key : jo.keySet()) {
+                    try {
+                        map.put(key, convert(jo.opt(key), mapped));
+                    } catch (BindException e) {
+                        throw e.at("[" + JSONObject.quote(key) + "]");
+                    }
+                }
+                return map(map, raw);
+            }
+            if (!raw.isArray() && !Collection.class.isAssignableFrom(raw)
+                    && !raw.isInterface()) {
+                return of(raw).bind(jo);
+            }
+        }
+        throw new BindException(type, value);
+    }
+
+    /**
+     * Read the next value from a tokener and convert it to a type. JSON
+     * objects and arrays are only built where the type asks for a JSONObject,
+     * a JSONArray, or Object.
+     *
+     * @param x    A JSONTokener.
+     * @param type The type to convert to.
+     * @return The converted value, or null for null.
+     * @throws JSONException If there is a syntax error or the value cannot be
+     *         converted.
+     */
+    static Object read(JSONTokener x, Type type) throws JSONException {
+        Class<?> raw = raw(type);
+        JSONCodec<Object> codec = JSONCodec.of(raw);
+        if (codec != null) {
+            return codec.read(x);
+        }
+        char c = x.nextClean();
+        x.back();
+        if (c == '[' && (raw.isArray()
+                || Collection.class.isAssignableFrom(raw))) {
+            Type element = element(type);
+            List<Object> list = new ArrayList<>();
+            if (x.nextClean() != '[') {
+                throw x.syntaxError("A JSONArray text must start with '['");
+            }
+            if (x.nextClean() != ']') {
+                x.back();
+                for (;;) {
+                    if (x.nextClean() == ',') {
+                        x.back();
+                        list.add(null);
+                    } else {
+                        x.back();
+                        try {
+                            list.add(read(x, element));
+                        } catch (BindException e) {
+                            throw e.at("[" + list.size() + "]");
+                        }
+                    }
+                    switch (x.nextClean()) {
+                    case ',':
+                        if (x.nextClean() == ']') {
+                            return collection(list, type, raw);
+                        }
+                        x.back();
+                        break;
+                    case ']':
+                        return collection(list, type, raw);
+                    default:
+                        throw x.syntaxError("Expected a ',' or ']'");
+                    }
+                }
+            }
+            return collection(list, type, raw);
+        }
+        if (c == '{' && Map.class.isAssignableFrom(raw)) {
+            Type mapped = mapped(type);
+            Map<String, Object> map = new LinkedHashMap<>();
+            x.next();
+            for (String key = nextKey(x); key != null;
+                    key = nextMember(x) ? nextKey(x) : null) {
+                map.put(key, read(x, mapped, key));
+            }
+            return map(map, raw);
+        }
+        if (c == '{' && !raw.isAssignableFrom(JSONObject.class)
+                && !raw.isArray() && !Collection.class.isAssignableFrom(raw)
+                && !raw.isInterface() && !isScalar(raw)) {
+            return of(raw).bind(x);
+        }
+        return convert(x.nextValue(), type);
+    }
+
+    /**
+     * Read the value of a member from a tokener and convert it to a type, as
+     * {@link #read(JSONTokener, Type)} does.
+     *
+     * @param x    A JSONTokener.
+     * @param type The type to convert to.
+     * @param key  The key of the member, which is put in front of the path in
+     *             the message of a conversion error.
+     * @return The converted value, or null for null.
+     * @throws JSONException If there is a syntax error or the value cannot be
+     *         converted.
+     */
+    static Object read(JSONTokener x, Type type, String key)
+            throws JSONException {
+        try {
+            return read(x, type);
+        } catch (BindException e) {
+            throw e.at("[" + JSONObject.quote(key) + "]");
+        }
+    }
+
+    /**
+     * Make an array or Collection of the type from a list of converted
+     * elements.
+     */
+    private static Object collection(List<Object> list, Type type,
+            Class<?> raw) throws JSONException {
+        if (raw.isArray()) {
+            Class<?> component = raw.getComponentType();
+            Object array = Array.newInstance(component, list.size());
+            for (int i = 0; i < list.size(); i += 1) {
+                Object element = list.get(i);
+                if (element == null && component.isPrimitive()) {
+                    throw new BindException(component, JSONObject.NULL)
+                            .at("[" + i + "]");
+                }
+                Array.set(array, i, element);
+            }
+            return array;
+        }
+        if (raw.isAssignableFrom(ArrayList.class)) {
+            return list;
+        }
+        if (raw.isAssignableFrom(LinkedHashSet.class)) {
+            return new LinkedHashSet<>(list);
+        }
+        Collection<Object> collection = instance(raw, type);
+        collection.addAll(list);
+        return collection;
+    }
+
+    /**
+     * Get the element type of an array or Collection type.
+     */
+    private static Type element(Type type) {
+        if (type instanceof GenericArrayType) {
+            return ((GenericArrayType) type).getGenericComponentType();
+        }
+        if (type instanceof Class && ((Class<?>) type).isArray()) {
+            return ((Class<?>) type).getComponentType();
+        }
+        return argument(type, 0);
+    }
+
+    /**
+     * Get a type argument of a parameterized type, or Object.
+     */
+    private static Type argument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (arguments.length > index) {
+                return arguments[index];
+            }
+        }
+        return Object.class;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T instance(Class<?> raw, Type type) throws JSONException {
+        try {
+            return (T) raw.getConstructor().newInstance();
+        } catch (Exception e) {
+            throw new JSONException("Cannot make a " + type.getTypeName()
+                    + " to bind with.", e);
+        }
+    }
+
+    private static Object map(Map<String, Object> map, Class<?> raw)
+            throws JSONException {
+        if (raw.isAssignableFrom(LinkedHashMap.class)) {
+            return map;
+        }
+        Map<String, Object> instance = instance(raw, raw);
+        instance.putAll(map);
+        return instance;
+    }
+
+    /**
+     * Get the value type of a Map type. The keys must be Strings.
+     */
+    private static Type mapped(Type type) throws JSONException {
+        Type key = argument(type, 0);
+        if (key != Object.class && key != String.class) {
+            throw new JSONException("Cannot bind a " + type.getTypeName()
+                    + ": the keys must be Strings.");
+        }
+        return argument(type, 1);
+    }
+
+    /**
+     * Read the key of the next member of an object, and the colon after it.
+     *
+     * @return The key, or null at the end of the object.
+     */
+    static String nextKey(JSONTokener x) throws JSONException {
+        char c = x.nextClean();
+        switch (c) {
+        case 0:
+            throw x.syntaxError("A JSONObject text must end with '}'");
+        case '}':
+            return null;
+        }
+        String key = x.nextKey(c);
+        if (x.nextClean() != ':') {
+            throw x.syntaxError("Expected a ':' after a key");
+        }
+        return key;
+    }
+
+    /**
+     * Read the separator after a member of an object.
+     *
+     * @return true if another member follows, false at the end of the object.
+     */
+    static boolean nextMember(JSONTokener x) throws JSONException {
+        switch (x.nextClean()) {
+        case ';':
+        case ',':
+            if (x.nextClean() == '}') {
+                return false;
+            }
+            x.back();
+            return true;
+        case '}':
+            return false;
+        default:
+            throw x.syntaxError("Expected a ',' or '}'");
+        }
+    }
+
+    /**
+     * Get the class of a type, using the bound of a type variable or
+     * wildcard.
+     */
+    private static Class<?> raw(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return raw(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(raw(((GenericArrayType) type)
+                    .getGenericComponentType()), 0).getClass();
+        }
+        if (type instanceof TypeVariable) {
+            return raw(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        if (type instanceof WildcardType) {
+            return raw(((WildcardType) type).getUpperBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    /**
+     * Tell if a type is converted from a simple value by
+     * {@link #scalar(Object, Class)}.
+     */
+    private static boolean isScalar(Class<?> raw) {
+        return raw.isPrimitive() || Number.class.isAssignableFrom(raw)
+                || raw == Boolean.class || raw == Character.class
+                || raw == String.class || raw.isEnum();
+    }
+
+    /**
+     * Convert a simple value to a primitive, a wrapper, a String, or an enum.
+     */
+    private static Object scalar(Object value, Class<?> raw)
+            throws JSONException {
+        if (value instanceof JSONObject || value instanceof JSONArray) {
+            throw new BindException(raw, value);
+        }
+        if (raw == String.class) {
+            return value.toString();
+        }
+        try {
+            if (raw == boolean.class || raw == Boolean.class) {
+                if (value instanceof Boolean) {
+                    return value;
+                }
+                if ("true".equalsIgnoreCase(value.toString())) {
+                    return Boolean.TRUE;
+                }
+                if ("false".equalsIgnoreCase(value.toString())) {
+                    return Boolean.FALSE;
+                }
+                throw new BindException(raw, value);
+            }
+            if (raw == char.class || raw == Character.class) {
+                String string = value.toString();
+                if (string.length() != 1) {
+                    throw new BindException(raw, value);
+                }
+                return string.charAt(0);
+            }
+            if (raw.isEnum()) {
+                return enumValue(raw, value.toString());
+            }
+            Number number = value instanceof Number ? (Number) value
+                    : new BigDecimal(value.toString());
+            if (raw == int.class || raw == Integer.class) {
+                return number.intValue();
+            }
+            if (raw == long.class || raw == Long.class) {
+                return number.longValue();
+            }
+            if (raw == double.class || raw == Double.class) {
+                return number.doubleValue();
+            }
+            if (raw == float.class || raw == Float.class) {
+                return number.floatValue();
+            }
+            if (raw == short.class || raw == Short.class) {
+                return number.shortValue();
+            }
+            if (raw == byte.class || raw == Byte.class) {
+                return number.byteValue();
+            }
+            if (raw == BigDecimal.class) {
+                return number instanceof BigDecimal ? number
+                        : new BigDecimal(number.toString());
+            }
+            if (raw == BigInteger.class) {
+                return number instanceof BigInteger ? number
+                        : new BigDecimal(number.toString()).toBigInteger();
+            }
+            if (raw.isInstance(number)) {
+                return number;
+            }
+        } catch (IllegalArgumentException e) {
+            // not a number, or not a constant of the enum
+        }
+        throw new BindException(raw, value);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object enumValue(Class<?> raw, String name) {
+        return Enum.valueOf((Class) raw, name);
+    }
+
+    /**
+     * A property that a key is bound to: a setter, a public field, or a record
+     * component.
+     */
+    private static final class Property {
+
+        /**
+         * The index of the record component, or -1.
+         */
+        final int index;
+
+        /**
+         * The setter, as (Object, Object)void, or null for a record
+         * component.
+         */
+        final MethodHandle setter;
+
+        final Type type;
+
+        Property(Type type, int index, MethodHandle setter) {
+            this.index = index;
+            this.setter = setter;
+            this.type = type;
+        }
+
+        /**
+         * Set the property. A null is not set on a primitive.
+         */
+        void set(Object bean, Object[] arguments, Object value)
+                throws JSONException {
+            if (value == null && raw(this.type).isPrimitive()) {
+                return;
+            }
+            if (arguments != null) {
+                arguments[this.index] = value;
+                return;
+            }
+            try {
+                this.setter.invokeExact(bean, value);
+            } catch (JSONException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JSONException(e);
+            }
+        }
+    }
+
+    /**
+     * The exception thrown when a value cannot be converted. It collects the
+     * keys and indexes that lead to the value on its way out.
+     */
+    private static final class BindException extends JSONException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+
+        private final String problem;
+
+        BindException(Type type, Object value) {
+            this("", "is not a " + (type instanceof Class
+                    ? ((Class<?>) type).getSimpleName() : type.getTypeName())
+                    + ", it is a " + value.getClass().getSimpleName() + ".");
+        }
+
+        private BindException(String path, String problem) {
+            super("JSONObject" + path + " " + problem);
+            this.path = path;
+            this.problem = problem;
+        }
+
+        /**
+         * Put a key or index in front of the path.
+         */
+        BindException at(String step) {
+            return new BindException(step + this.path, this.problem);
+        }
+    }
+
+    /**
+     * Access to records through reflection, since they are newer than the
+     * Java version this library is compiled for.
+     */
+    private static final class Records {
+
+        private static final Method GET_RECORD_COMPONENTS;
+
+        private static final Method GET_GENERIC_TYPE;
+
+        private static final Method GET_NAME;
+
+        private static final Method GET_TYPE;
+
+        static {
+            Method getRecordComponents = null;
+            Method getGenericType = null;
+            Method getName = null;
+            Method getType = null;
+            try {
+                getRecordComponents = Class.class.getMethod("getRecordComponents");
+                Class<?> component = Class.forName(
+                        "java.lang.reflect.RecordComponent");
+                getGenericType = component.getMethod("getGenericType");
+                getName = component.getMethod("getName");
+                getType = component.getMethod("getType");
+            } catch (Exception ignore) {
+            }
+            GET_RECORD_COMPONENTS = getRecordComponents;
+            GET_GENERIC_TYPE = getGenericType;
+            GET_NAME = getName;
+            GET_TYPE = getType;
+        }
+
+        /**
+         * Get the components of a record class.
+         *
+         * @return The RecordComponents, or null if the class is not a record.
+         */
+        static Object[] components(Class<?> klass) {
+            if (GET_RECORD_COMPONENTS == null) {
+                return null;
+            }
+            return (Object[]) invoke(GET_RECORD_COMPONENTS, klass);
+        }
+
+        static Type genericType(Object component) {
+            return (Type) invoke(GET_GENERIC_TYPE, component);
+        }
+
+        static String name(Object component) {
+            return (String) invoke(GET_NAME, component);
+        }
+
+        static Class<?> type(Object component) {
+            return (Class<?>) invoke(GET_TYPE, component);
+        }
+
+        private static Object invoke(Method method, Object target) {
+            try {
+                return method.invoke(target);
+            } catch (Exception e) {
+                throw new JSONException(e);
+            }
+        }
+    }
+}
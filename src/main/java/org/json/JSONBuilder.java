@@ -0,0 +1,126 @@
+package org.json;
+
+import java.util.ArrayList;
+
+/**
+ * A JSONBuilder is a {@link JSONHandler} that builds the JSONObjects and
+ * JSONArrays that it is told about. A key that is reported more than once in
+ * the same object is a JSONException, as it is in the JSONObject
+ * constructor, unless the JSONBuilder was made to accumulate. Then every
+ * member is added with {@link JSONObject#accumulate(String, Object)}, which
+ * is how XML.toJSONObject deals with repeated elements. Like accumulate, it
+ * puts an array that is the first value of a key into another array.
+ *
+ * @author kuporific
+ */
+public class JSONBuilder implements JSONHandler {
+
+    /**
+     * Whether the values of a repeated key are accumulated.
+     */
+    private final boolean accumulate;
+
+    /**
+     * The open objects and arrays.
+     */
+    private final ArrayList<Object> containers = new ArrayList<>();
+
+    private String key;
+
+    /**
+     * The keys that the open objects and arrays will be stored under.
+     */
+    private final ArrayList<String> keys = new ArrayList<>();
+
+    private Object result;
+
+    /**
+     * Construct a JSONBuilder for JSON text, which rejects repeated keys.
+     */
+    public JSONBuilder() {
+        this(false);
+    }
+
+    /**
+     * Construct a JSONBuilder.
+     *
+     * @param accumulate true to accumulate the values of a repeated key into
+     *        a JSONArray, as XML.toJSONObject does, or false to throw a
+     *        JSONException, as the JSONObject constructor does.
+     */
+    public JSONBuilder(boolean accumulate) {
+        this.accumulate = accumulate;
+    }
+
+    /**
+     * Get the value that was built.
+     *
+     * @return The outermost JSONObject, JSONArray or value, or null if
+     *         nothing has been completed yet.
+     */
+    public Object getResult() {
+        return this.result;
+    }
+
+    @Override
+    public void startObject() {
+        this.start(new JSONObject());
+    }
+
+    @Override
+    public void endObject() {
+        this.end();
+    }
+
+    @Override
+    public void startArray() {
+        this.start(new JSONArray());
+    }
+
+    @Override
+    public void endArray() {
+        this.end();
+    }
+
+    @Override
+    public void key(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public void value(Object value) {
+        int top = this.containers.size() - 1;
+        if (top < 0) {
+            this.result = value;
+        } else if (this.containers.get(top) instanceof JSONObject) {
+            if (this.key == null) {
+                throw new JSONException("Missing key.");
+            }
+            JSONObject jo = (JSONObject) this.containers.get(top);
+            if (this.accumulate) {
+                jo.accumulate(this.key, value);
+            } else {
+                jo.putOnce(this.key, value);
+            }
+            this.key = null;
+        } else {
+            ((JSONArray) this.containers.get(top)).put(value);
+        }
+    }
+
+    private void end() {
+        int top = this.containers.size() - 1;
+        if (top < 0) {
+            throw new JSONException("Nesting error.");
+        }
+        Object container = this.containers.remove(top);
+        this.key = this.keys.remove(top);
+        this.value(container);
+    }
+
+    private void start(Object container) {
+        this.keys.add(this.key);
+        this.key = null;
+        this.containers.add(container);
+    }
+}
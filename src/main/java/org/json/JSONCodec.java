@@ -0,0 +1,511 @@
+package org.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+
+/**
+ * A JSONCodec converts the instances of one class to and from JSON. A codec
+ * can be registered for any class with {@link #register(Class, JSONCodec)},
+ * and {@link JSONCodecProcessor} generates one without reflection for each
+ * class marked {@link JSONSerializable}. The codec of a class is used by
+ * {@link JSONObject#wrap(Object)}, when its instances are written by
+ * JSONObject, JSONArray, and UTF8Writer, and when they are read by
+ * {@link JSONTokener#nextBean(Class)}.
+ * <p>
+ * The protected methods are the ones that generated codecs are made of.
+ *
+ * @param <T> The class that is converted.
+ * @author kuporific
+ */
+public abstract class JSONCodec<T> {
+
+    /**
+     * Get the JSONCodec of a class.
+     *
+     * @param klass A class.
+     * @return The JSONCodec, or null if the class has none.
+     * @throws JSONException If the class is marked JSONSerializable and has
+     *         a generated codec that cannot be made.
+     */
+    static JSONCodec<Object> of(Class<?> klass) throws JSONException {
+        return JSONType.of(klass).codec;
+    }
+
+    /**
+     * Register a codec for a class, so that its instances, and the instances
+     * of its subclasses, are wrapped, written, and read through the codec.
+     * A codec registered for a class takes the place of the way that the
+     * class is converted otherwise: a codec for BigDecimal could write its
+     * instances as strings instead of numbers. A codec registered for a
+     * class is preferred to one registered for its supertypes, and to a
+     * generated one.
+     *
+     * @param klass The class.
+     * @param codec The codec, or null to remove the codec registered for the
+     *              class.
+     */
+    public static <T> void register(Class<T> klass, JSONCodec<? super T> codec) {
+        JSONType.register(klass, codec);
+    }
+
+    /**
+     * Convert a value to the JSONObject, JSONArray, String, Number, Boolean,
+     * or JSONObject.NULL that {@link JSONObject#wrap(Object)} returns for it.
+     *
+     * @param value A value, not null.
+     * @return The JSON form of the value.
+     * @throws JSONException If the value cannot be converted.
+     */
+    public abstract Object toJSON(T value) throws JSONException;
+
+    /**
+     * Put the members of the JSON form of a value into a JSONObject, for
+     * {@link JSONObject#JSONObject(Object)}. This copies the members of the
+     * JSONObject that {@link #toJSON(Object)} makes, if it makes one;
+     * generated codecs put the members directly instead.
+     *
+     * @param value A value, not null.
+     * @param jo    The JSONObject to put the members in.
+     * @throws JSONException If the value cannot be converted.
+     */
+    protected void populate(T value, JSONObject jo) throws JSONException {
+        Object json = this.toJSON(value);
+        if (json instanceof JSONObject) {
+            JSONObject members = (JSONObject) json;
+            for (String key : members.keySet()) {
+                jo.put(key, members.opt(key));
+            }
+        }
+    }
+
+    /**
+     * Read a value from the next JSON value in a tokener.
+     *
+     * @param x A JSONTokener.
+     * @return The value, or null if the JSON value is null.
+     * @throws JSONException If there is a syntax error, or if the JSON value
+     *         cannot be converted.
+     */
+    public abstract T read(JSONTokener x) throws JSONException;
+
+    /**
+     * Write a value as JSON text, laid out as {@link JSONObject#toString(int)}
+     * would lay out its JSON form. This writes the JSON form that
+     * {@link #toJSON(Object)} makes; generated codecs write the text
+     * directly instead.
+     *
+     * @param value        A value, not null.
+     * @param writer       The writer to write to.
+     * @param indentFactor The number of spaces to add to each level of
+     *                     indentation.
+     * @param indent       The indentation of the top level.
+     * @throws IOException   If the writer fails.
+     * @throws JSONException If the value cannot be converted.
+     */
+    public void write(T value, Writer writer, int indentFactor, int indent)
+            throws IOException, JSONException {
+        JSONObject.writeValue(writer, this.toJSON(value), indentFactor, indent);
+    }
+
+    /**
+     * Write a value as UTF-8 JSON text, laid out as UTF8Writer lays out its
+     * JSON form. This writes the JSON form that {@link #toJSON(Object)}
+     * makes; generated codecs write the members directly instead.
+     *
+     * @param value        A value, not null.
+     * @param writer       The UTF8Writer to write to.
+     * @param indentFactor The number of spaces to add to each level of
+     *                     indentation.
+     * @param indent       The indentation of the top level.
+     * @throws IOException   If the bytes cannot be written.
+     * @throws JSONException If the value cannot be converted.
+     */
+    public void write(T value, UTF8Writer writer, int indentFactor, int indent)
+            throws IOException, JSONException {
+        writer.value(this.toJSON(value), indentFactor, indent);
+    }
+
+    /**
+     * Read the start of the next JSON object.
+     *
+     * @param x A JSONTokener.
+     * @return true after the '{' that begins the object, or false after a
+     *         null.
+     * @throws JSONException If the next value is neither an object nor null.
+     */
+    protected static boolean begin(JSONTokener x) throws JSONException {
+        char c = x.nextClean();
+        if (c == '{') {
+            return true;
+        }
+        x.back();
+        if (JSONObject.NULL.equals(x.nextValue())) {
+            return false;
+        }
+        throw x.syntaxError("A JSONObject text must begin with '{'");
+    }
+
+    /**
+     * Read the first key of an object that has been begun with
+     * {@link #begin(JSONTokener)}, and the colon after it.
+     *
+     * @param x A JSONTokener.
+     * @return The key, or null if the object is empty.
+     * @throws JSONException If there is a syntax error.
+     */
+    protected static String firstKey(JSONTokener x) throws JSONException {
+        return JSONBinder.nextKey(x);
+    }
+
+    /**
+     * Read the separator after the value of a member, and the key of the next
+     * member and the colon after it.
+     *
+     * @param x A JSONTokener.
+     * @return The key, or null at the end of the object.
+     * @throws JSONException If there is a syntax error.
+     */
+    protected static String nextKey(JSONTokener x) throws JSONException {
+        return JSONBinder.nextMember(x) ? JSONBinder.nextKey(x) : null;
+    }
+
+    /**
+     * Put the wrapped value of a member into a JSONObject, unless it is null.
+     *
+     * @param jo    A JSONObject.
+     * @param key   The key.
+     * @param value The value, which may be null.
+     * @throws JSONException If the value is a non-finite number.
+     */
+    protected static void put(JSONObject jo, String key, Object value)
+            throws JSONException {
+        if (value != null) {
+            jo.put(key, JSONObject.wrap(value));
+        }
+    }
+
+    /**
+     * Read the value of a member and convert it, as
+     * {@link JSONTokener#nextBean(Class)} converts the values of a bean.
+     *
+     * @param x    A JSONTokener.
+     * @param type The type of the member.
+     * @param key  The key of the member, for error messages.
+     * @return The converted value, or null if the value is null.
+     * @throws JSONException If there is a syntax error, or if the value
+     *         cannot be converted.
+     */
+    protected static Object read(JSONTokener x, Type type, String key)
+            throws JSONException {
+        return JSONBinder.read(x, type, key);
+    }
+
+    /**
+     * Skip the value of a member that is not read.
+     *
+     * @param x A JSONTokener.
+     * @throws JSONException If the value is missing or not terminated.
+     */
+    protected static void skip(JSONTokener x) throws JSONException {
+        x.skipValue();
+    }
+
+    /**
+     * Make a parameterized type, such as <code>List&lt;String&gt;</code>,
+     * for {@link #read(JSONTokener, Type, String)}.
+     *
+     * @param raw       The class, such as List.
+     * @param arguments The type arguments, such as String.
+     * @return The type.
+     */
+    protected static Type type(final Class<?> raw, final Type... arguments) {
+        return new ParameterizedType() {
+            @Override
+            public Type[] getActualTypeArguments() {
+                return arguments.clone();
+            }
+
+            @Override
+            public Type getOwnerType() {
+                return null;
+            }
+
+            @Override
+            public Type getRawType() {
+                return raw;
+            }
+
+            @Override
+            public String toString() {
+                StringBuilder sb = new StringBuilder(raw.getName());
+                sb.append('<');
+                for (int i = 0; i < arguments.length; i += 1) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(arguments[i].getTypeName());
+                }
+                return sb.append('>').toString();
+            }
+
+            @Override
+            public boolean equals(Object object) {
+                if (!(object instanceof ParameterizedType)) {
+                    return false;
+                }
+                ParameterizedType that = (ParameterizedType) object;
+                return that.getOwnerType() == null
+                        && raw.equals(that.getRawType())
+                        && Arrays.equals(arguments,
+                                that.getActualTypeArguments());
+            }
+
+            @Override
+            public int hashCode() {
+                return Arrays.hashCode(arguments) ^ raw.hashCode();
+            }
+        };
+    }
+
+    /**
+     * Write a value, through its codec if it has one, and otherwise as
+     * JSONObject writes its wrapped value.
+     */
+    static void write(Writer writer, Object value, int indentFactor,
+            int indent) throws IOException, JSONException {
+        JSONCodec<Object> codec = of(value.getClass());
+        if (codec != null) {
+            codec.write(value, writer, indentFactor, indent);
+        } else {
+            JSONObject.writeValue(writer, JSONObject.wrap(value), indentFactor,
+                    indent);
+        }
+    }
+
+    /**
+     * Members writes the members of an object as JSON text, laid out as
+     * JSONObject lays out its members. Members whose values are null are
+     * left out.
+     */
+    protected static final class Members {
+
+        private boolean comma;
+
+        private final int indent;
+
+        private final int indentFactor;
+
+        /**
+         * The quoted key of the first member, held back until it is known
+         * whether it is the only one, which is laid out on the same line as
+         * the braces.
+         */
+        private String firstKey;
+
+        private Object firstValue;
+
+        private final Writer writer;
+
+        /**
+         * Begin an object.
+         *
+         * @param writer       The writer to write to.
+         * @param indentFactor The number of spaces to add to each level of
+         *                     indentation.
+         * @param indent       The indentation of the object.
+         * @throws IOException If the writer fails.
+         */
+        public Members(Writer writer, int indentFactor, int indent)
+                throws IOException {
+            this.indent = indent;
+            this.indentFactor = indentFactor;
+            this.writer = writer;
+            writer.write('{');
+        }
+
+        /**
+         * Write a member.
+         *
+         * @param quotedKey The key, already quoted.
+         * @param value     The value, which is left out if it is null.
+         * @throws IOException   If the writer fails.
+         * @throws JSONException If the value cannot be written.
+         */
+        public void member(String quotedKey, Object value)
+                throws IOException, JSONException {
+            if (value == null) {
+                return;
+            }
+            if (!this.comma && this.firstKey == null) {
+                this.firstKey = quotedKey;
+                this.firstValue = value;
+                return;
+            }
+            if (this.firstKey != null) {
+                this.write(this.firstKey, this.firstValue);
+                this.firstKey = null;
+                this.firstValue = null;
+            }
+            this.write(quotedKey, value);
+        }
+
+        /**
+         * End the object.
+         *
+         * @throws IOException   If the writer fails.
+         * @throws JSONException If the value of the only member cannot be
+         *         written.
+         */
+        public void end() throws IOException, JSONException {
+            if (this.firstKey != null) {
+                this.writer.write(this.firstKey);
+                this.writer.write(':');
+                if (this.indentFactor > 0) {
+                    this.writer.write(' ');
+                }
+                JSONCodec.write(this.writer, this.firstValue,
+                        this.indentFactor, this.indent);
+            } else if (this.comma) {
+                if (this.indentFactor > 0) {
+                    this.writer.write('\n');
+                }
+                JSONObject.indent(this.writer, this.indent);
+            }
+            this.writer.write('}');
+        }
+
+        private void write(String quotedKey, Object value) throws IOException,
+                JSONException {
+            int newindent = this.indent + this.indentFactor;
+            if (this.comma) {
+                this.writer.write(',');
+            }
+            if (this.indentFactor > 0) {
+                this.writer.write('\n');
+            }
+            JSONObject.indent(this.writer, newindent);
+            this.writer.write(quotedKey);
+            this.writer.write(':');
+            if (this.indentFactor > 0) {
+                this.writer.write(' ');
+            }
+            JSONCodec.write(this.writer, value, this.indentFactor, newindent);
+            this.comma = true;
+        }
+    }
+
+    /**
+     * UTF8Members writes the members of an object to a UTF8Writer, laid out
+     * as UTF8Writer lays out the members of a JSONObject. Members whose
+     * values are null are left out.
+     */
+    protected static final class UTF8Members {
+
+        private boolean comma;
+
+        private final int indent;
+
+        private final int indentFactor;
+
+        /**
+         * The key of the first member, held back until it is known whether it
+         * is the only one, which is laid out on the same line as the braces.
+         */
+        private String firstKey;
+
+        private Object firstValue;
+
+        private final UTF8Writer writer;
+
+        /**
+         * Begin an object.
+         *
+         * @param writer       The UTF8Writer to write to.
+         * @param indentFactor The number of spaces to add to each level of
+         *                     indentation.
+         * @param indent       The indentation of the object.
+         * @throws IOException If the bytes cannot be written.
+         */
+        public UTF8Members(UTF8Writer writer, int indentFactor, int indent)
+                throws IOException {
+            this.indent = indent;
+            this.indentFactor = indentFactor;
+            this.writer = writer;
+            writer.put('{');
+        }
+
+        /**
+         * Write a member. The key is quoted by the UTF8Writer, which keeps
+         * the quoted bytes of the keys it writes often.
+         *
+         * @param key   The key.
+         * @param value The value, which is left out if it is null.
+         * @throws IOException   If the bytes cannot be written.
+         * @throws JSONException If the value cannot be written.
+         */
+        public void member(String key, Object value)
+                throws IOException, JSONException {
+            if (value == null) {
+                return;
+            }
+            if (!this.comma && this.firstKey == null) {
+                this.firstKey = key;
+                this.firstValue = value;
+                return;
+            }
+            if (this.firstKey != null) {
+                this.write(this.firstKey, this.firstValue);
+                this.firstKey = null;
+                this.firstValue = null;
+            }
+            this.write(key, value);
+        }
+
+        /**
+         * End the object.
+         *
+         * @throws IOException   If the bytes cannot be written.
+         * @throws JSONException If the value of the only member cannot be
+         *         written.
+         */
+        public void end() throws IOException, JSONException {
+            if (this.firstKey != null) {
+                this.writer.key(this.firstKey);
+                this.writer.put(':');
+                if (this.indentFactor > 0) {
+                    this.writer.put(' ');
+                }
+                this.writer.value(this.firstValue, this.indentFactor,
+                        this.indent);
+            } else if (this.comma) {
+                if (this.indentFactor > 0) {
+                    this.writer.put('\n');
+                }
+                this.writer.indent(this.indent);
+            }
+            this.writer.put('}');
+        }
+
+        private void write(String key, Object value) throws IOException,
+                JSONException {
+            int newindent = this.indent + this.indentFactor;
+            if (this.comma) {
+                this.writer.put(',');
+            }
+            if (this.indentFactor > 0) {
+                this.writer.put('\n');
+            }
+            this.writer.indent(newindent);
+            this.writer.key(key);
+            this.writer.put(':');
+            if (this.indentFactor > 0) {
+                this.writer.put(' ');
+            }
+            this.writer.value(value, this.indentFactor, newindent);
+            this.comma = true;
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package org.json;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * JSONCodecProcessor is the annotation processor that generates a
+ * {@link JSONCodec} for each class marked {@link JSONSerializable}, so that
+ * the class is written and read without reflection. It is registered in
+ * <code>META-INF/services</code>, so javac finds it on the class path, or it
+ * can be named with <code>javac -processor org.json.JSONCodecProcessor</code>.
+ * <p>
+ * A class is written through the same public getters that
+ * {@link JSONObject#JSONObject(Object)} uses, and read through its public
+ * no-argument constructor, public setters, and public non-final fields, as
+ * {@link JSONTokener#nextBean(Class)} reads it. A record is written and read
+ * through its components. Unlike reflection, a getter that throws is not left
+ * out: the exception is thrown.
+ *
+ * @author kuporific
+ */
+@SupportedAnnotationTypes("org.json.JSONSerializable")
+public class JSONCodecProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+            RoundEnvironment round) {
+        for (Element element : round.getElementsAnnotatedWith(
+                JSONSerializable.class)) {
+            String problem = problem(element);
+            if (problem != null) {
+                this.processingEnv.getMessager().printMessage(
+                        Diagnostic.Kind.ERROR, "@JSONSerializable " + problem,
+                        element);
+                continue;
+            }
+            try {
+                this.generate((TypeElement) element);
+            } catch (IOException e) {
+                this.processingEnv.getMessager().printMessage(
+                        Diagnostic.Kind.ERROR, e.toString(), element);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write the source of the codec of a class.
+     */
+    private void generate(TypeElement type) throws IOException {
+        String packageName = ((PackageElement) this.packageOf(type))
+                .getQualifiedName().toString();
+        String binaryName = this.processingEnv.getElementUtils()
+                .getBinaryName(type).toString();
+        String codecName = binaryName.substring(packageName.length() == 0 ? 0
+                : packageName.length() + 1) + "JSONCodec";
+        String typeName = type.getQualifiedName().toString();
+        String wildcardName = wildcards(type);
+        boolean record = isRecord(type);
+        Map<String, ExecutableElement> getters = record ? this.components(type)
+                : this.getters(type);
+        Map<String, Element> setters = record ? null : this.setters(type);
+
+        try (PrintWriter w = new PrintWriter(this.processingEnv.getFiler()
+                .createSourceFile(packageName.length() == 0 ? codecName
+                        : packageName + "." + codecName, type)
+                .openWriter())) {
+            if (packageName.length() != 0) {
+                w.println("package " + packageName + ";");
+                w.println();
+            }
+            w.println("/**");
+            w.println(" * The JSONCodec of " + typeName
+                    + ", generated by JSONCodecProcessor.");
+            w.println(" */");
+            w.println("public final class " + codecName
+                    + " extends org.json.JSONCodec<" + wildcardName + "> {");
+
+// Put the getters into a JSONObject, for wrap and JSONObject(Object).
+
+            w.println();
+            w.println("    @Override");
+            w.println("    public java.lang.Object toJSON(" + wildcardName
+                    + " value) {");
+            w.println("        org.json.JSONObject jo = new org.json.JSONObject();");
+            w.println("        this.populate(value, jo);");
+            w.println("        return jo;");
+            w.println("    }");
+            w.println();
+            w.println("    @Override");
+            w.println("    protected void populate(" + wildcardName
+                    + " value, org.json.JSONObject jo) {");
+            for (Map.Entry<String, ExecutableElement> entry : getters.entrySet()) {
+                w.println("        put(jo, " + this.literal(entry.getKey()) + ", "
+                        + call(typeName, entry.getValue()) + ");");
+            }
+            w.println("    }");
+
+// Write the getters as text, and as UTF-8 text.
+
+            w.println();
+            w.println("    @Override");
+            w.println("    public void write(" + wildcardName + " value,"
+                    + " java.io.Writer writer, int indentFactor, int indent)"
+                    + " throws java.io.IOException {");
+            w.println("        org.json.JSONCodec.Members members ="
+                    + " new org.json.JSONCodec.Members(writer, indentFactor,"
+                    + " indent);");
+            for (Map.Entry<String, ExecutableElement> entry : getters.entrySet()) {
+                w.println("        members.member("
+                        + this.literal(JSONObject.quote(entry.getKey())) + ", "
+                        + call(typeName, entry.getValue()) + ");");
+            }
+            w.println("        members.end();");
+            w.println("    }");
+            w.println();
+            w.println("    @Override");
+            w.println("    public void write(" + wildcardName + " value,"
+                    + " org.json.UTF8Writer writer, int indentFactor,"
+                    + " int indent) throws java.io.IOException {");
+            w.println("        org.json.JSONCodec.UTF8Members members ="
+                    + " new org.json.JSONCodec.UTF8Members(writer,"
+                    + " indentFactor, indent);");
+            for (Map.Entry<String, ExecutableElement> entry : getters.entrySet()) {
+                w.println("        members.member("
+                        + this.literal(entry.getKey()) + ", "
+                        + call(typeName, entry.getValue()) + ");");
+            }
+            w.println("        members.end();");
+            w.println("    }");
+
+// Read the members into the setters, or into the arguments of the
+// canonical constructor of a record.
+
+            w.println();
+            w.println("    @Override");
+            w.println("    @java.lang.SuppressWarnings({\"rawtypes\", \"unchecked\"})");
+            w.println("    public " + wildcardName
+                    + " read(org.json.JSONTokener x) {");
+            if (record) {
+                this.readRecord(w, type, getters);
+            } else {
+                this.readBean(w, type, setters);
+            }
+            w.println("    }");
+            w.println("}");
+        }
+    }
+
+    private void readBean(PrintWriter w, TypeElement type,
+            Map<String, Element> setters) {
+        String typeName = type.getQualifiedName().toString();
+        boolean constructor = false;
+        for (ExecutableElement c : ElementFilter.constructorsIn(
+                type.getEnclosedElements())) {
+            constructor |= c.getModifiers().contains(Modifier.PUBLIC)
+                    && c.getParameters().isEmpty();
+        }
+        if (!constructor || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            w.println("        throw new org.json.JSONException("
+                    + this.literal(this.processingEnv.getElementUtils()
+                            .getBinaryName(type)
+                            + " has no public constructor to bind with.")
+                    + ");");
+            return;
+        }
+        w.println("        if (!begin(x)) {");
+        w.println("            return null;");
+        w.println("        }");
+        w.println("        " + typeName + " bean = new " + typeName + "();");
+        w.println("        for (java.lang.String key = firstKey(x); key != null;"
+                + " key = nextKey(x)) {");
+        w.println("            switch (key) {");
+        for (Map.Entry<String, Element> entry : setters.entrySet()) {
+            Element setter = entry.getValue();
+            TypeMirror t = setter.getKind() == ElementKind.FIELD
+                    ? setter.asType()
+                    : ((ExecutableElement) setter).getParameters().get(0)
+                            .asType();
+            String assign = setter.getKind() == ElementKind.FIELD
+                    ? "bean." + setter.getSimpleName() + " = %s;"
+                    : "bean." + setter.getSimpleName() + "(%s);";
+            this.readMember(w, entry.getKey(), t, assign);
+        }
+        w.println("            default:");
+        w.println("                skip(x);");
+        w.println("            }");
+        w.println("        }");
+        w.println("        return bean;");
+    }
+
+    private void readRecord(PrintWriter w, TypeElement type,
+            Map<String, ExecutableElement> components) {
+        List<String> arguments = new ArrayList<>();
+        for (ExecutableElement accessor : components.values()) {
+            TypeMirror t = accessor.getReturnType();
+            String local = "p" + arguments.size();
+            String initial = "null";
+            if (t.getKind().isPrimitive()) {
+                initial = zero(t.getKind());
+            }
+            w.println("        " + this.name(t) + " " + local + " = " + initial
+                    + ";");
+            arguments.add(local);
+        }
+        w.println("        if (!begin(x)) {");
+        w.println("            return null;");
+        w.println("        }");
+        w.println("        for (java.lang.String key = firstKey(x); key != null;"
+                + " key = nextKey(x)) {");
+        w.println("            switch (key) {");
+        int i = 0;
+        for (Map.Entry<String, ExecutableElement> entry : components.entrySet()) {
+            this.readMember(w, entry.getKey(),
+                    entry.getValue().getReturnType(),
+                    arguments.get(i) + " = %s;");
+            i += 1;
+        }
+        w.println("            default:");
+        w.println("                skip(x);");
+        w.println("            }");
+        w.println("        }");
+        w.println("        return new " + type.getQualifiedName() + "("
+                + String.join(", ", arguments) + ");");
+    }
+
+    /**
+     * Write the case that reads the value of a member.
+     *
+     * @param key    The key of the member.
+     * @param t      The type of the member.
+     * @param assign A statement that stores the value, with a %s for it.
+     */
+    private void readMember(PrintWriter w, String key, TypeMirror t,
+            String assign) {
+        String read = "read(x, " + this.typeExpression(t) + ", key)";
+        if (t.getKind().isPrimitive()) {
+            String boxed = this.processingEnv.getTypeUtils()
+                    .boxedClass((PrimitiveType) t).getQualifiedName().toString();
+            w.println("            case " + this.literal(key) + ": {");
+            w.println("                java.lang.Object v = " + read + ";");
+            w.println("                if (v != null) {");
+            w.println("                    " + String.format(assign,
+                    "(" + boxed + ") v"));
+            w.println("                }");
+            w.println("                break;");
+            w.println("            }");
+        } else {
+            String name = this.name(t);
+            w.println("            case " + this.literal(key) + ":");
+            w.println("                " + String.format(assign,
+                    "java.lang.Object".equals(name) ? read
+                            : "(" + name + ") " + read));
+            w.println("                break;");
+        }
+    }
+
+    /**
+     * Get the public getters of a class by key, as JSONBean finds them.
+     */
+    private Map<String, ExecutableElement> getters(TypeElement type) {
+        Map<String, ExecutableElement> getters = new LinkedHashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(
+                this.processingEnv.getElementUtils().getAllMembers(type))) {
+            String name = method.getSimpleName().toString();
+            if (!method.getModifiers().contains(Modifier.PUBLIC)
+                    || !method.getParameters().isEmpty()
+                    || method.getReturnType().getKind() == TypeKind.VOID
+                    || "getClass".equals(name)
+                    || "getDeclaringClass".equals(name)) {
+                continue;
+            }
+            String key = null;
+            if (name.startsWith("get")) {
+                key = JSONBean.key(name.substring(3));
+            } else if (name.startsWith("is")) {
+                key = JSONBean.key(name.substring(2));
+            }
+            if (key != null && !getters.containsKey(key)) {
+                getters.put(key, method);
+            }
+        }
+        return getters;
+    }
+
+    /**
+     * Get the accessors of the components of a record by name.
+     */
+    private Map<String, ExecutableElement> components(TypeElement type) {
+        Map<String, ExecutableElement> components = new LinkedHashMap<>();
+        for (Element element : type.getEnclosedElements()) {
+            if ("RECORD_COMPONENT".equals(element.getKind().name())) {
+                String name = element.getSimpleName().toString();
+                for (ExecutableElement method : ElementFilter.methodsIn(
+                        type.getEnclosedElements())) {
+                    if (method.getSimpleName().contentEquals(name)
+                            && method.getParameters().isEmpty()) {
+                        components.put(name, method);
+                    }
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Get the public setters and fields of a class by key, as JSONBinder
+     * finds them.
+     */
+    private Map<String, Element> setters(TypeElement type) {
+        Map<String, Element> setters = new LinkedHashMap<>();
+        List<? extends Element> members = this.processingEnv.getElementUtils()
+                .getAllMembers(type);
+        for (ExecutableElement method : ElementFilter.methodsIn(members)) {
+            String name = method.getSimpleName().toString();
+            if (name.startsWith("set")
+                    && method.getModifiers().contains(Modifier.PUBLIC)
+                    && !method.getModifiers().contains(Modifier.STATIC)
+                    && method.getParameters().size() == 1) {
+                String key = JSONBean.key(name.substring(3));
+                if (key != null && !setters.containsKey(key)) {
+                    setters.put(key, method);
+                }
+            }
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(members)) {
+            Set<Modifier> modifiers = field.getModifiers();
+            String key = field.getSimpleName().toString();
+            if (modifiers.contains(Modifier.PUBLIC)
+                    && !modifiers.contains(Modifier.STATIC)
+                    && !modifiers.contains(Modifier.FINAL)
+                    && !setters.containsKey(key)) {
+                setters.put(key, field);
+            }
+        }
+        return setters;
+    }
+
+    /**
+     * Get a Java expression for the Type of a member, using
+     * {@link JSONCodec#type(Class, java.lang.reflect.Type...)} for
+     * parameterized types.
+     */
+    private String typeExpression(TypeMirror t) {
+        if (t.getKind() == TypeKind.WILDCARD) {
+            TypeMirror bound = ((WildcardType) t).getExtendsBound();
+            return bound == null ? "java.lang.Object.class"
+                    : this.typeExpression(bound);
+        }
+        if (t.getKind() == TypeKind.DECLARED
+                && !((DeclaredType) t).getTypeArguments().isEmpty()) {
+            StringBuilder sb = new StringBuilder("type(");
+            sb.append(this.name(t)).append(".class");
+            for (TypeMirror argument : ((DeclaredType) t).getTypeArguments()) {
+                sb.append(", ").append(this.typeExpression(argument));
+            }
+            return sb.append(')').toString();
+        }
+        return this.name(t) + ".class";
+    }
+
+    /**
+     * Get the source name of the erasure of a type.
+     */
+    private String name(TypeMirror t) {
+        TypeMirror erasure = this.processingEnv.getTypeUtils().erasure(t);
+        switch (erasure.getKind()) {
+        case ARRAY:
+            return this.name(((ArrayType) erasure).getComponentType()) + "[]";
+        case DECLARED:
+            return ((TypeElement) ((DeclaredType) erasure).asElement())
+                    .getQualifiedName().toString();
+        default:
+            return erasure.getKind().name().toLowerCase();
+        }
+    }
+
+    private String literal(String string) {
+        return this.processingEnv.getElementUtils().getConstantExpression(
+                string);
+    }
+
+    private Element packageOf(Element element) {
+        while (element.getKind() != ElementKind.PACKAGE) {
+            element = element.getEnclosingElement();
+        }
+        return element;
+    }
+
+    /**
+     * Get a call of a getter on a value named value.
+     */
+    private static String call(String typeName, ExecutableElement getter) {
+        return (getter.getModifiers().contains(Modifier.STATIC) ? typeName
+                : "value") + "." + getter.getSimpleName() + "()";
+    }
+
+    /**
+     * Get the source name of a class, with a wildcard for each of its type
+     * parameters, so that a generic class is not named as a raw type.
+     */
+    private static String wildcards(TypeElement type) {
+        String name = type.getQualifiedName().toString();
+        int parameters = type.getTypeParameters().size();
+        if (parameters == 0) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder(name).append("<?");
+        for (int i = 1; i < parameters; i += 1) {
+            sb.append(", ?");
+        }
+        return sb.append('>').toString();
+    }
+
+    /**
+     * Get the literal that a local of a primitive type starts from, written
+     * so that it needs no cast.
+     */
+    private static String zero(TypeKind kind) {
+        switch (kind) {
+        case BOOLEAN:
+            return "false";
+        case CHAR:
+            return "'\\0'";
+        case LONG:
+            return "0L";
+        case FLOAT:
+            return "0.0f";
+        case DOUBLE:
+            return "0.0d";
+        default:
+            return "0";
+        }
+    }
+
+    private static boolean isRecord(Element element) {
+        return "RECORD".equals(element.getKind().name());
+    }
+
+    /**
+     * Find the reason that a codec cannot be generated for an element.
+     *
+     * @return The reason, or null if there is none.
+     */
+    private static String problem(Element element) {
+        if (element.getKind() != ElementKind.CLASS && !isRecord(element)) {
+            return "is only for classes and records.";
+        }
+        TypeElement type = (TypeElement) element;
+        for (Element e = type; e.getKind() != ElementKind.PACKAGE;
+                e = e.getEnclosingElement()) {
+            if (!(e instanceof TypeElement)) {
+                return "is not for local classes.";
+            }
+            TypeElement t = (TypeElement) e;
+            if (t.getNestingKind() == NestingKind.LOCAL
+                    || t.getNestingKind() == NestingKind.ANONYMOUS) {
+                return "is not for local classes.";
+            }
+            if (t.getModifiers().contains(Modifier.PRIVATE)) {
+                return "is not for private classes.";
+            }
+            if (t.getNestingKind() == NestingKind.MEMBER
+                    && !t.getModifiers().contains(Modifier.STATIC)
+                    && t.getKind() == ElementKind.CLASS && t == type) {
+                return "is not for inner classes; make the class static.";
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,303 @@
+package org.json;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A JSONExtractor picks a few values out of a JSON text, named by JSON
+ * Pointers (RFC 6901), without building the rest of the text. The pointers
+ * are compiled once into a tree of their tokens. While a text is read, the
+ * members and elements that no pointer leads into are skipped with
+ * {@link JSONTokener#skipValue()}, which matches up brackets instead of
+ * building values, and reading stops as soon as every pointer has been
+ * found. The text after that point is not read, so it is not checked for
+ * syntax errors.
+ *
+ * <pre>
+ * JSONExtractor route = new JSONExtractor("/user/id", "/items/0/price");
+ * Object[] values = route.extract(bytes);
+ * </pre>
+ *
+ * A JSONExtractor can be shared by several threads. A plain
+ * {@link UTF8Tokener} skips faster than one made by
+ * {@link UTF8Tokener#indexed(byte[])}, whose index costs more to build than
+ * jumping over objects and arrays with it saves.
+ *
+ * @author kuporific
+ */
+public class JSONExtractor {
+
+    /**
+     * The tree of the tokens of the pointers.
+     */
+    private final Node root = new Node();
+
+    /**
+     * The number of pointers.
+     */
+    private final int size;
+
+    /**
+     * Construct a JSONExtractor.
+     *
+     * @param pointers JSON Pointers, such as <code>"/user/id"</code>. The
+     *        empty pointer names the whole text.
+     * @throws JSONException If a pointer is not valid.
+     */
+    public JSONExtractor(String... pointers) throws JSONException {
+        this.size = pointers.length;
+        for (int i = 0; i < pointers.length; i++) {
+            Node node = this.root;
+            for (String token : tokens(pointers[i])) {
+                node = node.child(token);
+            }
+            node.results = Arrays.copyOf(node.results, node.results.length + 1);
+            node.results[node.results.length - 1] = i;
+        }
+    }
+
+    /**
+     * Extract the values from UTF-8 bytes.
+     *
+     * @param bytes UTF-8 encoded JSON text.
+     * @return The values, in the order of the pointers. A value that is not
+     *         found is null.
+     * @throws JSONException If there is a syntax error before the last value
+     *         is found.
+     */
+    public Object[] extract(byte[] bytes) throws JSONException {
+        return this.extract(new UTF8Tokener(bytes));
+    }
+
+    /**
+     * Extract the values from the next value of a tokener. The tokener is
+     * left after the last value found, or after the whole value if some are
+     * missing.
+     *
+     * @param x The tokener to read.
+     * @return The values, in the order of the pointers: JSONObjects,
+     *         JSONArrays, Strings, Numbers, Booleans, or JSONObject.NULL. A
+     *         value that is not found is null.
+     * @throws JSONException If there is a syntax error before the last value
+     *         is found.
+     */
+    public Object[] extract(JSONTokener x) throws JSONException {
+        Object[] values = new Object[this.size];
+        read(x, this.root, values, new int[] { this.size });
+        return values;
+    }
+
+    /**
+     * Read a value, keeping the parts of it that the pointers lead to.
+     *
+     * @param x The tokener.
+     * @param node The node of the value, or null to skip it.
+     * @param values The values found so far.
+     * @param left The number of pointers not found yet, in an array of one.
+     * @return true if every pointer has been found.
+     */
+    private static boolean read(JSONTokener x, Node node, Object[] values,
+            int[] left) throws JSONException {
+        if (node == null) {
+            x.skipValue();
+            return false;
+        }
+        if (node.results.length > 0) {
+            Object value = x.nextValue();
+            return found(value, node, values, left);
+        }
+        char c = x.nextClean();
+        if (c == '{') {
+            if (x.nextClean() == '}') {
+                return false;
+            }
+            x.back();
+            for (;;) {
+                c = x.nextClean();
+                if (c == 0) {
+                    throw x.syntaxError("A JSONObject text must end with '}'");
+                }
+                String key = x.nextKey(c);
+                if (x.nextClean() != ':') {
+                    throw x.syntaxError("Expected a ':' after a key");
+                }
+                if (read(x, node.children.get(key), values, left)) {
+                    return true;
+                }
+                switch (x.nextClean()) {
+                case ';':
+                case ',':
+                    if (x.nextClean() == '}') {
+                        return false;
+                    }
+                    x.back();
+                    break;
+                case '}':
+                    return false;
+                default:
+                    throw x.syntaxError("Expected a ',' or '}'");
+                }
+            }
+        }
+        if (c == '[') {
+            if (x.nextClean() == ']') {
+                return false;
+            }
+            x.back();
+            for (int i = 0;; i++) {
+                if (x.nextClean() == ',') {
+                    x.back();
+                    Node element = node.element(i);
+                    if (element != null
+                            && found(JSONObject.NULL, element, values, left)) {
+                        return true;
+                    }
+                } else {
+                    x.back();
+                    if (read(x, node.element(i), values, left)) {
+                        return true;
+                    }
+                }
+                switch (x.nextClean()) {
+                case ',':
+                    if (x.nextClean() == ']') {
+                        return false;
+                    }
+                    x.back();
+                    break;
+                case ']':
+                    return false;
+                default:
+                    throw x.syntaxError("Expected a ',' or ']'");
+                }
+            }
+        }
+
+// A value that is neither an object nor an array has nothing in it to find.
+
+        x.back();
+        x.skipValue();
+        return false;
+    }
+
+    /**
+     * Record a value that a pointer leads to, and the values in it that
+     * longer pointers lead to. If a key is repeated, the first value found
+     * is kept.
+     *
+     * @return true if every pointer has been found.
+     */
+    private static boolean found(Object value, Node node, Object[] values,
+            int[] left) {
+        for (int result : node.results) {
+            if (values[result] == null) {
+                values[result] = value;
+                left[0] -= 1;
+            }
+        }
+        for (Map.Entry<String, Node> child : node.children.entrySet()) {
+            Object member = null;
+            if (value instanceof JSONObject) {
+                member = ((JSONObject) value).opt(child.getKey());
+            } else if (value instanceof JSONArray) {
+                int index = index(child.getKey());
+                if (index >= 0) {
+                    member = ((JSONArray) value).opt(index);
+                }
+            }
+            if (member != null) {
+                found(member, child.getValue(), values, left);
+            }
+        }
+        return left[0] == 0;
+    }
+
+    /**
+     * Get the array index that a token stands for.
+     *
+     * @return The index, or -1 if the token is not an array index.
+     */
+    private static int index(String token) {
+        if (token.isEmpty() || token.length() > 9
+                || (token.charAt(0) == '0' && token.length() > 1)) {
+            return -1;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return Integer.parseInt(token);
+    }
+
+    /**
+     * Split a JSON Pointer into its unescaped tokens.
+     */
+    private static String[] tokens(String pointer) throws JSONException {
+        if (pointer.isEmpty()) {
+            return new String[0];
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new JSONException("A JSON Pointer must start with '/': "
+                    + JSONObject.quote(pointer));
+        }
+        String[] tokens = pointer.substring(1).split("/", -1);
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.indexOf('~') < 0) {
+                continue;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < token.length(); j++) {
+                char c = token.charAt(j);
+                if (c == '~') {
+                    c = j + 1 < token.length() ? token.charAt(++j) : 0;
+                    if (c != '0' && c != '1') {
+                        throw new JSONException("Bad escape in JSON Pointer "
+                                + JSONObject.quote(pointer));
+                    }
+                    c = c == '0' ? '~' : '/';
+                }
+                sb.append(c);
+            }
+            tokens[i] = sb.toString();
+        }
+        return tokens;
+    }
+
+    /**
+     * A node in the tree of tokens: the place in a text that a pointer, or
+     * the start of a pointer, leads to.
+     */
+    private static final class Node {
+
+        private static final int[] NO_RESULTS = {};
+
+        /**
+         * The nodes of the next tokens, by token.
+         */
+        final Map<String, Node> children = new HashMap<>();
+
+        /**
+         * The numbers of the pointers that end here.
+         */
+        int[] results = NO_RESULTS;
+
+        Node child(String token) {
+            Node child = this.children.get(token);
+            if (child == null) {
+                child = new Node();
+                this.children.put(token, child);
+            }
+            return child;
+        }
+
+        Node element(int index) {
+            return this.children.isEmpty()
+                    ? null
+                    : this.children.get(Integer.toString(index));
+        }
+    }
+}
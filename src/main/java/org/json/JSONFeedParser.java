@@ -0,0 +1,630 @@
+package org.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A JSONFeedParser reads a UTF-8 JSON text that arrives in pieces, without
+ * blocking. Each piece is given to {@link #feed(ByteBuffer)} as it is
+ * received. A piece may end anywhere, even in the middle of a string, a
+ * number or a multi-byte character; the partial token is kept until the
+ * next piece arrives. Parsing therefore overlaps with the arrival of the
+ * text, and the text is never copied as a whole.
+ * <p>
+ * It accepts the same forgiving syntax as the JSONObject and JSONArray
+ * constructors. Each piece is reported to a {@link JSONHandler} as soon as
+ * it is understood. A JSONFeedParser that is constructed without a handler
+ * builds the value with a {@link JSONBuilder}, so that it can be had from
+ * {@link #getValue()} when the parse is complete:
+ *
+ * <pre>
+ * JSONFeedParser parser = new JSONFeedParser();
+ * // for each buffer that is received
+ * if (parser.feed(buffer) == JSONFeedParser.Status.COMPLETE) {
+ *     JSONObject request = (JSONObject) parser.getValue();
+ *     ...
+ *     parser.reset();
+ * }
+ * </pre>
+ *
+ * A value that has no end of its own, such as a number at the top level, is
+ * only complete when {@link #finish()} says that there is no more input.
+ *
+ * @author kuporific
+ */
+public class JSONFeedParser {
+
+    /**
+     * The state of a parse after a call to feed.
+     */
+    public enum Status {
+        /**
+         * The value is not complete. All of the input has been consumed.
+         */
+        NEED_MORE_INPUT,
+
+        /**
+         * The value is complete. The input after the value is not consumed.
+         */
+        COMPLETE
+    }
+
+    /**
+     * Waiting for the top level value.
+     */
+    private static final int VALUE = 0;
+
+    /**
+     * In an object, waiting for a key or the end of the object.
+     */
+    private static final int KEY = 1;
+
+    /**
+     * In an object, waiting for the ':' after a key.
+     */
+    private static final int COLON = 2;
+
+    /**
+     * In an object, waiting for the value of the key just read.
+     */
+    private static final int MEMBER = 3;
+
+    /**
+     * In an array, waiting for an element or the end of the array.
+     */
+    private static final int ELEMENT = 4;
+
+    /**
+     * Waiting for a separator or the end of the enclosing object or array.
+     */
+    private static final int SEPARATOR = 5;
+
+    /**
+     * The top level value has been read.
+     */
+    private static final int DONE = 6;
+
+    /**
+     * Not in a token.
+     */
+    private static final int NONE = 0;
+
+    /**
+     * In a quoted string.
+     */
+    private static final int STRING = 1;
+
+    /**
+     * In a quoted string, after a backslash.
+     */
+    private static final int ESCAPE = 2;
+
+    /**
+     * In a quoted string, reading the hex digits of a \\u escape.
+     */
+    private static final int UNICODE = 3;
+
+    /**
+     * In an unquoted value.
+     */
+    private static final int UNQUOTED = 4;
+
+    /**
+     * The offset of the byte after the last carriage return, so that a line
+     * feed there ends the same line, as it does in JSONTokener.
+     */
+    private long afterReturn;
+
+    /**
+     * The JSONBuilder that the value is built with, or null if the parser was
+     * given its own handler.
+     */
+    private JSONBuilder builder;
+
+    /**
+     * The bytes of the current token that have not yet been decoded.
+     */
+    private byte[] bytes = new byte[64];
+
+    /**
+     * The bytes copied out of a buffer that has no accessible array.
+     */
+    private byte[] chunk;
+
+    /**
+     * The number of hex digits read of a \\u escape.
+     */
+    private int digits;
+
+    private JSONHandler handler;
+
+    /**
+     * true if the current token is a key.
+     */
+    private boolean key;
+
+    /**
+     * The number of bytes held in the bytes array.
+     */
+    private int length;
+
+    private long line;
+
+    /**
+     * The offset of the first byte of the current line, less one.
+     */
+    private long lineStart;
+
+    /**
+     * The number of bytes consumed before the current call to feed.
+     */
+    private long offset;
+
+    private char quote;
+
+    /**
+     * The open objects and arrays, 'o' for an object and 'a' for an array.
+     */
+    private final StringBuilder stack = new StringBuilder();
+
+    private int state;
+
+    /**
+     * The decoded characters of the current token, when it has escapes.
+     */
+    private final StringBuilder text = new StringBuilder();
+
+    private int token;
+
+    /**
+     * The value of a \\u escape so far.
+     */
+    private int unicode;
+
+    /**
+     * Construct a JSONFeedParser that builds the value it reads.
+     */
+    public JSONFeedParser() {
+        this.reset();
+    }
+
+    /**
+     * Construct a JSONFeedParser that reports what it reads to a handler.
+     *
+     * @param handler The JSONHandler that receives the structure.
+     */
+    public JSONFeedParser(JSONHandler handler) {
+        this.handler = handler;
+        this.reset();
+    }
+
+    /**
+     * Give the parser the remaining bytes of a buffer. The bytes are
+     * consumed up to the end of the value, and the buffer's position is
+     * advanced past them.
+     *
+     * @param buffer A ByteBuffer holding the next piece of the text.
+     * @return COMPLETE if the value has been read, otherwise NEED_MORE_INPUT.
+     * @throws JSONException If there is a syntax error.
+     */
+    public Status feed(ByteBuffer buffer) throws JSONException {
+        int position = buffer.position();
+        if (buffer.hasArray()) {
+            int start = buffer.arrayOffset() + position;
+            int end = this.scan(buffer.array(), start, start + buffer.remaining());
+            buffer.position(position + end - start);
+            return this.getStatus();
+        }
+        if (this.chunk == null) {
+            this.chunk = new byte[8192];
+        }
+        while (buffer.hasRemaining() && this.state != DONE) {
+            int count = Math.min(buffer.remaining(), this.chunk.length);
+            buffer.get(this.chunk, 0, count);
+            int end = this.scan(this.chunk, 0, count);
+            buffer.position(buffer.position() - count + end);
+        }
+        return this.getStatus();
+    }
+
+    /**
+     * Give the parser a range of bytes. The bytes are consumed up to the end
+     * of the value.
+     *
+     * @param bytes  An array holding the next piece of the text.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @return The number of bytes consumed.
+     * @throws JSONException If there is a syntax error.
+     */
+    public int feed(byte[] bytes, int offset, int length) throws JSONException {
+        return this.scan(bytes, offset, offset + length) - offset;
+    }
+
+    /**
+     * Tell the parser that there is no more input. A value at the top level
+     * that has no end of its own, such as a number, is completed.
+     *
+     * @throws JSONException If the value is not complete.
+     */
+    public void finish() throws JSONException {
+        if (this.token == UNQUOTED && this.stack.length() == 0) {
+            this.unquoted();
+        }
+        if (this.state != DONE) {
+            throw this.incomplete();
+        }
+    }
+
+    /**
+     * Get the status of the parse.
+     *
+     * @return COMPLETE if the value has been read, otherwise NEED_MORE_INPUT.
+     */
+    public Status getStatus() {
+        return this.state == DONE ? Status.COMPLETE : Status.NEED_MORE_INPUT;
+    }
+
+    /**
+     * Get the value that was read.
+     *
+     * @return The JSONObject, JSONArray, or other value, or null if the
+     *         parser was constructed with a handler.
+     * @throws JSONException If the value is not complete.
+     */
+    public Object getValue() throws JSONException {
+        if (this.state != DONE) {
+            throw new JSONException("The value is not complete.");
+        }
+        return this.builder == null ? null : this.builder.getResult();
+    }
+
+    /**
+     * Make the parser ready to read another value, keeping its buffers. A
+     * parser constructed without a handler starts a new value; one that was
+     * given a handler keeps reporting to it.
+     */
+    public void reset() {
+        if (this.handler == null || this.builder != null) {
+            this.builder = new JSONBuilder();
+            this.handler = this.builder;
+        }
+        this.length = 0;
+        this.line = 1;
+        this.lineStart = -1;
+        this.offset = 0;
+        this.afterReturn = -1;
+        this.stack.setLength(0);
+        this.state = VALUE;
+        this.text.setLength(0);
+        this.token = NONE;
+    }
+
+    /**
+     * Add a run of bytes to the current token.
+     */
+    private void append(byte[] source, int from, int to) {
+        int count = to - from;
+        if (this.length + count > this.bytes.length) {
+            byte[] larger = new byte[Math.max(this.bytes.length * 2,
+                    this.length + count)];
+            System.arraycopy(this.bytes, 0, larger, 0, this.length);
+            this.bytes = larger;
+        }
+        System.arraycopy(source, from, this.bytes, this.length, count);
+        this.length += count;
+    }
+
+    /**
+     * Decode the bytes of the current token and add them to the text.
+     */
+    private void decode() {
+        if (this.length > 0) {
+            this.text.append(new String(this.bytes, 0, this.length,
+                    StandardCharsets.UTF_8));
+            this.length = 0;
+        }
+    }
+
+    /**
+     * Close the innermost object or array.
+     */
+    private void end() {
+        int top = this.stack.length() - 1;
+        if (this.stack.charAt(top) == 'o') {
+            this.handler.endObject();
+        } else {
+            this.handler.endArray();
+        }
+        this.stack.setLength(top);
+        this.state = top == 0 ? DONE : SEPARATOR;
+    }
+
+    /**
+     * Make a JSONException for a text that ends too soon.
+     */
+    private JSONException incomplete() {
+        String message;
+        if (this.token == STRING || this.token == ESCAPE
+                || this.token == UNICODE) {
+            message = "Unterminated string";
+        } else {
+            switch (this.state) {
+            case KEY:
+                message = "A JSONObject text must end with '}'";
+                break;
+            case COLON:
+                message = "Expected a ':' after a key";
+                break;
+            case SEPARATOR:
+                message = this.stack.charAt(this.stack.length() - 1) == 'o'
+                        ? "Expected a ',' or '}'"
+                        : "Expected a ',' or ']'";
+                break;
+            default:
+                message = "Missing value";
+            }
+        }
+        return this.syntaxError(message, this.offset);
+    }
+
+    /**
+     * Begin reading a value or a key.
+     *
+     * @param c     The first byte of the token.
+     * @param isKey true if the token is a key.
+     * @return true if the byte was consumed.
+     */
+    private boolean begin(int c, boolean isKey) {
+        this.key = isKey;
+        if (c == '"' || c == '\'') {
+            this.quote = (char) c;
+            this.token = STRING;
+            return true;
+        }
+        this.token = UNQUOTED;
+        return false;
+    }
+
+    /**
+     * Consume bytes until the end of the range or the end of the value.
+     *
+     * @param source The bytes.
+     * @param start  The offset of the first byte.
+     * @param end    The offset after the last byte.
+     * @return The offset after the last byte consumed.
+     * @throws JSONException If there is a syntax error.
+     */
+    private int scan(byte[] source, int start, int end) throws JSONException {
+        long base = this.offset - start;
+        int c;
+        int i = start;
+        try {
+            while (i < end && this.state != DONE) {
+                switch (this.token) {
+                case STRING:
+                    int run = i;
+                    c = 0;
+                    while (i < end) {
+                        c = source[i];
+                        if (c == this.quote || c == '\\' || c == '\n'
+                                || c == '\r' || c == 0) {
+                            break;
+                        }
+                        i += 1;
+                    }
+                    this.append(source, run, i);
+                    if (i == end) {
+                        break;
+                    }
+                    i += 1;
+                    if (c == this.quote) {
+                        this.token = NONE;
+                        this.string();
+                    } else if (c == '\\') {
+                        this.decode();
+                        this.token = ESCAPE;
+                    } else {
+                        throw this.syntaxError("Unterminated string", base + i);
+                    }
+                    break;
+                case ESCAPE:
+                    c = source[i++];
+                    this.token = STRING;
+                    switch (c) {
+                    case 'b':
+                        this.text.append('\b');
+                        break;
+                    case 't':
+                        this.text.append('\t');
+                        break;
+                    case 'n':
+                        this.text.append('\n');
+                        break;
+                    case 'f':
+                        this.text.append('\f');
+                        break;
+                    case 'r':
+                        this.text.append('\r');
+                        break;
+                    case 'u':
+                        this.digits = 0;
+                        this.unicode = 0;
+                        this.token = UNICODE;
+                        break;
+                    case '"':
+                    case '\'':
+                    case '\\':
+                    case '/':
+                        this.text.append((char) c);
+                        break;
+                    default:
+                        throw this.syntaxError("Illegal escape.", base + i);
+                    }
+                    break;
+                case UNICODE:
+                    int digit = Character.digit(source[i++], 16);
+                    if (digit < 0) {
+                        throw this.syntaxError("Illegal escape.", base + i);
+                    }
+                    this.unicode = (this.unicode << 4) | digit;
+                    this.digits += 1;
+                    if (this.digits == 4) {
+                        this.text.append((char) this.unicode);
+                        this.token = STRING;
+                    }
+                    break;
+                case UNQUOTED:
+                    run = i;
+                    while (i < end
+                            && !JSONTokener.endsUnquoted((char) (source[i] & 0xFF))) {
+                        i += 1;
+                    }
+                    this.append(source, run, i);
+                    if (i < end) {
+                        this.offset = base + i;
+                        this.unquoted();
+                    }
+                    break;
+                default:
+                    c = source[i] & 0xFF;
+                    if (c <= ' ' && c != 0) {
+                        i += 1;
+                        if (c == '\r') {
+                            this.line += 1;
+                            this.lineStart = base + i;
+                            this.afterReturn = base + i;
+                        } else if (c == '\n') {
+                            if (this.afterReturn != base + i - 1) {
+                                this.line += 1;
+                            }
+                            this.lineStart = base + i;
+                        }
+                        break;
+                    }
+                    if (c == 0) {
+                        this.offset = base + i;
+                        throw this.incomplete();
+                    }
+                    i += 1;
+                    switch (this.state) {
+                    case KEY:
+                        if (c == '}') {
+                            this.end();
+                        } else if (!this.begin(c, true)) {
+                            i -= 1;
+                        }
+                        break;
+                    case COLON:
+                        if (c != ':') {
+                            throw this.syntaxError("Expected a ':' after a key",
+                                    base + i);
+                        }
+                        this.state = MEMBER;
+                        break;
+                    case SEPARATOR:
+                        if (this.stack.charAt(this.stack.length() - 1) == 'o') {
+                            if (c == ',' || c == ';') {
+                                this.state = KEY;
+                            } else if (c == '}') {
+                                this.end();
+                            } else {
+                                throw this.syntaxError("Expected a ',' or '}'",
+                                        base + i);
+                            }
+                        } else {
+                            if (c == ',') {
+                                this.state = ELEMENT;
+                            } else if (c == ']') {
+                                this.end();
+                            } else {
+                                throw this.syntaxError("Expected a ',' or ']'",
+                                        base + i);
+                            }
+                        }
+                        break;
+                    default:
+                        if (this.state == ELEMENT && c == ']') {
+                            this.end();
+                        } else if (this.state == ELEMENT && c == ',') {
+                            this.handler.value(JSONObject.NULL);
+                        } else if (c == '{') {
+                            this.handler.startObject();
+                            this.stack.append('o');
+                            this.state = KEY;
+                        } else if (c == '[') {
+                            this.handler.startArray();
+                            this.stack.append('a');
+                            this.state = ELEMENT;
+                        } else if (!this.begin(c, false)) {
+                            i -= 1;
+                        }
+                    }
+                }
+            }
+        } finally {
+            this.offset = base + i;
+        }
+        return i;
+    }
+
+    /**
+     * Report a key or a value that has been read.
+     *
+     * @param value The key or value.
+     */
+    private void report(Object value) {
+        if (this.key) {
+            this.handler.key(value.toString());
+            this.state = COLON;
+        } else {
+            this.handler.value(value);
+            this.state = this.stack.length() == 0 ? DONE : SEPARATOR;
+        }
+    }
+
+    /**
+     * Finish a quoted string.
+     */
+    private void string() {
+        String string;
+        if (this.text.length() == 0) {
+            string = new String(this.bytes, 0, this.length,
+                    StandardCharsets.UTF_8);
+            this.length = 0;
+        } else {
+            this.decode();
+            string = this.text.toString();
+            this.text.setLength(0);
+        }
+        this.report(string);
+    }
+
+    /**
+     * Make a JSONException to signal a syntax error.
+     *
+     * @param message The error message.
+     * @param at      The offset of the byte after the error.
+     * @return A JSONException object, suitable for throwing
+     */
+    private JSONException syntaxError(String message, long at) {
+        return new JSONException(message + " at " + at + " [character "
+                + (at - this.lineStart) + " line " + this.line + "]");
+    }
+
+    /**
+     * Finish an unquoted value.
+     *
+     * @throws JSONException If the value is empty.
+     */
+    private void unquoted() throws JSONException {
+        String string = new String(this.bytes, 0, this.length,
+                StandardCharsets.UTF_8).trim();
+        this.length = 0;
+        this.token = NONE;
+        if (string.isEmpty()) {
+            throw this.syntaxError("Missing value", this.offset);
+        }
+        this.report(JSONObject.stringToValue(string));
+    }
+}
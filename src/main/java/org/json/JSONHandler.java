@@ -0,0 +1,53 @@
+package org.json;
+
+/**
+ * The <code>JSONHandler</code> interface receives the structure of a JSON
+ * value as a sequence of calls, in document order, instead of as a tree of
+ * JSONObjects and JSONArrays. {@link JSONPullParser#parse(JSONHandler)},
+ * {@link XML#parse(String, JSONHandler)} and
+ * {@link CDL#parse(JSONTokener, JSONHandler)} drive a handler from JSON,
+ * XML and comma delimited text. {@link JSONBuilder} builds the tree from the
+ * calls, and {@link JSONTextHandler} writes them out as JSON text.
+ * <p>
+ * Within an object, each member is reported as a call to <code>key</code>
+ * followed by the member's value: a call to <code>value</code>, or a nested
+ * object or array.
+ *
+ * @author kuporific
+ */
+public interface JSONHandler {
+
+    /**
+     * Begin an object.
+     */
+    public void startObject();
+
+    /**
+     * End the innermost object.
+     */
+    public void endObject();
+
+    /**
+     * Begin an array.
+     */
+    public void startArray();
+
+    /**
+     * End the innermost array.
+     */
+    public void endArray();
+
+    /**
+     * Name the next member of the innermost object.
+     *
+     * @param key A key string.
+     */
+    public void key(String key);
+
+    /**
+     * Report a value that is not an object or an array.
+     *
+     * @param value A Boolean, Number, String, or the JSONObject.NULL object.
+     */
+    public void value(Object value);
+}
@@ -0,0 +1,465 @@
+package org.json;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A JSONIndex is the first stage of a two-stage parse. One pass over UTF-8
+ * bytes finds the position of every token that can follow whitespace:
+ * brackets, braces, punctuation, the opening quote of each string, and the
+ * first byte of each unquoted value. The second stage, a
+ * {@link UTF8Tokener} made with {@link UTF8Tokener#indexed(byte[])}, jumps
+ * from one position to the next instead of scanning whitespace, and skips a
+ * whole object or array by jumping to its matching bracket.
+ * <p>
+ * The bodies of strings, which are usually most of a text, are scanned
+ * eight bytes at a time, looking for a quote or a backslash in a whole long
+ * at once. Texts that use single quotes are not indexed, because a single
+ * quote may open a string or be part of an unquoted value.
+ * <p>
+ * The index can also tell whether a value is strict JSON, by following the
+ * grammar over the positions of its tokens. This is done only for the values
+ * that a lazy JSONObject or JSONArray is about to copy.
+ *
+ * @author kuporific
+ */
+final class JSONIndex {
+
+    private static final long BACKSLASHES = 0x5C5C5C5C5C5C5C5CL;
+    private static final long LOWS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long QUOTES = 0x2222222222222222L;
+
+    private static final byte SCALAR = 0;
+    private static final byte SPACE = 1;
+    private static final byte OPEN = 2;
+    private static final byte CLOSE = 3;
+    private static final byte PUNCTUATION = 4;
+    private static final byte QUOTE = 5;
+    private static final byte APOSTROPHE = 6;
+
+// What may come next in an object, an array, or a value by itself.
+
+    private static final byte KEY_OR_END = 0;
+    private static final byte KEY = 1;
+    private static final byte COLON = 2;
+    private static final byte VALUE_OR_END = 3;
+    private static final byte VALUE = 4;
+    private static final byte COMMA_OR_END = 5;
+
+    /**
+     * The class of each byte outside of strings. Bytes that end an unquoted
+     * value are punctuation, so that the tokener finds them where it stops.
+     */
+    private static final byte[] CLASSES = new byte[256];
+
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+
+    static {
+        for (int c = 0; c <= ' '; c++) {
+            CLASSES[c] = SPACE;
+        }
+        for (char c : ",:;/\\#=".toCharArray()) {
+            CLASSES[c] = PUNCTUATION;
+        }
+// A NUL byte ends the text as far as the tokener is concerned.
+        CLASSES[0] = PUNCTUATION;
+        CLASSES['['] = OPEN;
+        CLASSES['{'] = OPEN;
+        CLASSES[']'] = CLOSE;
+        CLASSES['}'] = CLOSE;
+        CLASSES['"'] = QUOTE;
+        CLASSES['\''] = APOSTROPHE;
+    }
+
+    /**
+     * The number of positions.
+     */
+    final int count;
+
+    /**
+     * The offset just past the end of the text.
+     */
+    private final int limit;
+
+    /**
+     * For the position of an opening bracket or brace, the number of the
+     * position of the one that closes it, or 0 if it is not closed.
+     */
+    private final int[] partners;
+
+    /**
+     * The positions of the tokens, in the order that they appear.
+     */
+    final int[] positions;
+
+    private JSONIndex(int[] positions, int[] partners, int count, int limit) {
+        this.count = count;
+        this.limit = limit;
+        this.partners = partners;
+        this.positions = positions;
+    }
+
+    /**
+     * Index part of a byte array.
+     *
+     * @param bytes UTF-8 encoded JSON text.
+     * @param from The offset of the first byte to index.
+     * @param to The offset just past the last byte to index.
+     * @return A JSONIndex, or null if the text cannot be indexed because it
+     *         has a single quote outside of a string or an unterminated
+     *         string.
+     */
+    static JSONIndex of(byte[] bytes, int from, int to) {
+        ByteBuffer words = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int[] positions = new int[Math.max(16, (to - from) >>> 3)];
+        int[] partners = new int[positions.length];
+        int[] open = new int[16];
+        int depth = 0;
+        int count = 0;
+        boolean boundary = true;
+        int i = from;
+        while (i < to) {
+            byte kind = CLASSES[bytes[i] & 0xFF];
+            if (kind == SPACE) {
+                boundary = true;
+                i += 1;
+                continue;
+            }
+            if (kind == SCALAR && !boundary) {
+                i += 1;
+                continue;
+            }
+            if (kind == APOSTROPHE) {
+                return null;
+            }
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+                partners = Arrays.copyOf(partners, count * 2);
+            }
+            positions[count] = i;
+            switch (kind) {
+            case OPEN:
+                if (depth == open.length) {
+                    open = Arrays.copyOf(open, depth * 2);
+                }
+                open[depth++] = count;
+                break;
+            case CLOSE:
+                if (depth > 0) {
+                    partners[open[--depth]] = count;
+                }
+                break;
+            case QUOTE:
+                i = endOfString(bytes, words, i + 1, to);
+                if (i < 0) {
+                    return null;
+                }
+                break;
+            default:
+            }
+            count += 1;
+            boundary = kind != SCALAR;
+            i += 1;
+        }
+        return new JSONIndex(positions, partners, count, to);
+    }
+
+    /**
+     * Get the number of the position that closes an object or array.
+     *
+     * @param k The number of the position of the opening bracket or brace.
+     * @return The number of the position of its partner, or 0 if it has none.
+     */
+    int partner(int k) {
+        return this.partners[k];
+    }
+
+    /**
+     * Tell whether a value is strict JSON that the parser would read as the
+     * same types, so that its text can be copied as it is. Unquoted strings,
+     * numbers that the parser keeps as strings, bad escapes, control
+     * characters in strings, missing or extra commas, semicolons, and keys
+     * that appear twice in an object all make a value not strict. A key with
+     * an escape is counted as not strict too, because keys are compared by
+     * their bytes.
+     *
+     * @param bytes The text.
+     * @param k The number of the position of the value.
+     * @return true if the value is strict.
+     */
+    boolean isStrict(byte[] bytes, int k) {
+        int last = k;
+        byte b = bytes[this.positions[k]];
+        if (b == '{' || b == '[') {
+            last = this.partners[k];
+            if (last == 0) {
+                return false;
+            }
+        }
+
+// Each open object has a set of its keys, and each open array a null.
+
+        List<Set<String>> keys = new ArrayList<Set<String>>();
+        byte[] states = new byte[16];
+        int depth = 0;
+        states[0] = VALUE;
+        for (int j = k; j <= last; j++) {
+            int at = this.positions[j];
+            int c = bytes[at] & 0xFF;
+            byte state = states[depth];
+            boolean value = state == VALUE || state == VALUE_OR_END;
+            switch (CLASSES[c]) {
+            case OPEN:
+                if (!value) {
+                    return false;
+                }
+                states[depth] = COMMA_OR_END;
+                depth += 1;
+                if (depth == states.length) {
+                    states = Arrays.copyOf(states, depth * 2);
+                }
+                states[depth] = c == '{' ? KEY_OR_END : VALUE_OR_END;
+                keys.add(c == '{' ? new HashSet<String>() : null);
+                break;
+            case CLOSE:
+                boolean object = keys.remove(keys.size() - 1) != null;
+                if ((c == '}') != object || (state != COMMA_OR_END
+                        && state != (object ? KEY_OR_END : VALUE_OR_END))) {
+                    return false;
+                }
+                depth -= 1;
+                break;
+            case QUOTE:
+                int end = this.endOfStrictString(bytes, at + 1);
+                if (end < 0) {
+                    return false;
+                }
+                if (state == KEY_OR_END || state == KEY) {
+                    String key = new String(bytes, at + 1, end - at - 1,
+                            StandardCharsets.ISO_8859_1);
+                    if (key.indexOf('\\') >= 0
+                            || !keys.get(keys.size() - 1).add(key)) {
+                        return false;
+                    }
+                    states[depth] = COLON;
+                } else if (value) {
+                    states[depth] = COMMA_OR_END;
+                } else {
+                    return false;
+                }
+                break;
+            case SCALAR:
+
+// The parser reads scalars separated only by spaces as one string.
+
+                if (!value || !this.isStrictScalar(bytes, at)
+                        || (j + 1 < this.count && CLASSES[bytes[
+                            this.positions[j + 1]] & 0xFF] == SCALAR)) {
+                    return false;
+                }
+                states[depth] = COMMA_OR_END;
+                break;
+            default:
+                if (c == ',' && state == COMMA_OR_END && depth > 0) {
+                    states[depth] = keys.get(keys.size() - 1) != null
+                            ? KEY : VALUE;
+                } else if (c == ':' && state == COLON) {
+                    states[depth] = VALUE;
+                } else {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the quote that ends a string, if the string is strict JSON.
+     *
+     * @param bytes The text.
+     * @param i The offset just after the opening quote.
+     * @return The offset of the closing quote, or -1 if the string has a
+     *         control character or an escape that is not strict JSON.
+     */
+    private int endOfStrictString(byte[] bytes, int i) {
+        while (i < this.limit) {
+            byte b = bytes[i];
+            if (b == '"') {
+                return i;
+            }
+            if (b >= 0 && b < ' ') {
+                return -1;
+            }
+            if (b != '\\') {
+                i += 1;
+                continue;
+            }
+            if (i + 1 >= this.limit) {
+                return -1;
+            }
+            switch (bytes[i + 1]) {
+            case '"':
+            case '\\':
+            case '/':
+            case 'b':
+            case 'f':
+            case 'n':
+            case 'r':
+            case 't':
+                i += 2;
+                break;
+            case 'u':
+                if (i + 5 >= this.limit) {
+                    return -1;
+                }
+                for (int j = i + 2; j < i + 6; j++) {
+                    if (Character.digit(bytes[j], 16) < 0) {
+                        return -1;
+                    }
+                }
+                i += 6;
+                break;
+            default:
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tell whether an unquoted value is strict JSON that the parser reads as
+     * the same type: true, false, null, or a number that becomes a Number.
+     * Integers of more than 18 digits, -0, and numbers with large exponents
+     * are left to the parser, which may keep them as strings.
+     *
+     * @param bytes The text.
+     * @param from The offset of the first byte of the value.
+     * @return true if the value is strict.
+     */
+    private boolean isStrictScalar(byte[] bytes, int from) {
+        int to = from;
+        while (to < this.limit && CLASSES[bytes[to] & 0xFF] == SCALAR) {
+            to += 1;
+        }
+        switch (bytes[from]) {
+        case 't':
+            return isWord(bytes, from, to, TRUE);
+        case 'f':
+            return isWord(bytes, from, to, FALSE);
+        case 'n':
+            return isWord(bytes, from, to, NULL);
+        default:
+        }
+        boolean minus = bytes[from] == '-';
+        int first = minus ? from + 1 : from;
+        int i = first;
+        while (i < to && bytes[i] >= '0' && bytes[i] <= '9') {
+            i += 1;
+        }
+        int digits = i - first;
+        if (digits == 0 || (digits > 1 && bytes[first] == '0')) {
+            return false;
+        }
+        if (i == to) {
+            return digits <= 18 && !(minus && digits == 1 && bytes[first] == '0');
+        }
+        if (bytes[i] == '.') {
+            i += 1;
+            int fraction = i;
+            while (i < to && bytes[i] >= '0' && bytes[i] <= '9') {
+                i += 1;
+            }
+            if (i == fraction) {
+                return false;
+            }
+        }
+        int exponent = 0;
+        if (i < to && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i += 1;
+            boolean negative = i < to && bytes[i] == '-';
+            if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+                i += 1;
+            }
+            int start = i;
+            while (i < to && bytes[i] >= '0' && bytes[i] <= '9') {
+                exponent = Math.min(exponent * 10 + bytes[i] - '0', 1000);
+                i += 1;
+            }
+            if (i == start) {
+                return false;
+            }
+            if (negative) {
+                exponent = -exponent;
+            }
+        }
+
+// A number of more than 300 digits before the point may overflow to
+// infinity, which the parser keeps as a string.
+
+        return i == to && digits + exponent <= 300;
+    }
+
+    private static boolean isWord(byte[] bytes, int from, int to,
+            byte[] word) {
+        if (to - from != word.length) {
+            return false;
+        }
+        for (int i = 0; i < word.length; i++) {
+            if (bytes[from + i] != word[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the quote that ends a string. The bytes are read a long at a time
+     * until one of them is a quote or a backslash.
+     *
+     * @param bytes The text.
+     * @param words The text, for reading longs.
+     * @param i The offset just after the opening quote.
+     * @param to The end of the text.
+     * @return The offset of the closing quote, or -1 if there is none.
+     */
+    private static int endOfString(byte[] bytes, ByteBuffer words, int i,
+            int to) {
+        for (;;) {
+            while (i + 8 <= to) {
+                long word = words.getLong(i);
+                long found = zeros(word ^ QUOTES) | zeros(word ^ BACKSLASHES);
+                if (found != 0) {
+                    i += Long.numberOfTrailingZeros(found) >>> 3;
+                    break;
+                }
+                i += 8;
+            }
+            if (i >= to) {
+                return -1;
+            }
+            byte b = bytes[i];
+            if (b == '"') {
+                return i;
+            }
+            i += b == '\\' ? 2 : 1;
+        }
+    }
+
+    /**
+     * Mark the zero bytes of a long.
+     *
+     * @return A long with the high bit set in each byte that was zero, and
+     *         no other bits.
+     */
+    private static long zeros(long word) {
+        return ~(((word & LOWS) + LOWS) | word | LOWS);
+    }
+}
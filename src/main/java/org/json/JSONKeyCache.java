@@ -0,0 +1,189 @@
+package org.json;
+
+/**
+ * A JSONKeyCache keeps one canonical String for each key that a JSONTokener
+ * reads, so that an array of many objects with the same keys shares a single
+ * String per key instead of holding a copy in every object. The tokener looks
+ * keys up by their characters, straight out of its buffer, so a key that is
+ * already cached is not allocated at all. Because the Strings are shared,
+ * their hash codes are only computed once.
+ * <p>
+ * The cache has a fixed number of slots. When two keys compete for a slot,
+ * the newer one replaces the older, so the memory used stays bounded no matter
+ * how many different keys are read. Keys longer than 64 characters are not
+ * cached. A JSONKeyCache may be shared by several tokeners, even on different
+ * threads: a lost update only means that a key is allocated again.
+ *
+ * <pre>
+ * JSONTokener x = new JSONTokener(source);
+ * x.setKeyCache(new JSONKeyCache());
+ * JSONArray records = new JSONArray(x);
+ * </pre>
+ *
+ * @author kuporific
+ */
+public class JSONKeyCache {
+
+    /**
+     * The length of the longest key that is cached.
+     */
+    private static final int MAX_LENGTH = 64;
+
+    private final String[] keys;
+
+    private final int mask;
+
+    /**
+     * Construct a JSONKeyCache with 1024 slots.
+     */
+    public JSONKeyCache() {
+        this(1024);
+    }
+
+    /**
+     * Construct a JSONKeyCache.
+     *
+     * @param capacity The number of slots, which is rounded up to a power of
+     *                 two.
+     */
+    public JSONKeyCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.keys = new String[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Get the canonical String for a String.
+     *
+     * @param key A key string.
+     * @return An equal String, which is the same object for every equal key
+     *         that is still cached.
+     */
+    public String intern(String key) {
+        int length = key.length();
+        if (length > MAX_LENGTH) {
+            return key;
+        }
+        int hash = key.hashCode();
+        int index = this.index(hash);
+        for (int probe = 0; probe < 2; probe += 1) {
+            String cached = this.keys[(index + probe) & this.mask];
+            if (cached == null) {
+                break;
+            }
+            if (cached.hashCode() == hash && cached.equals(key)) {
+                return cached;
+            }
+        }
+        this.store(index, key);
+        return key;
+    }
+
+    /**
+     * Get the canonical String for a run of characters.
+     *
+     * @param chars  The characters.
+     * @param offset The offset of the first character of the key.
+     * @param length The number of characters in the key.
+     * @return A String.
+     */
+    public String intern(char[] chars, int offset, int length) {
+        if (length > MAX_LENGTH) {
+            return new String(chars, offset, length);
+        }
+        int hash = 0;
+        for (int i = offset; i < offset + length; i += 1) {
+            hash = 31 * hash + chars[i];
+        }
+        int index = this.index(hash);
+        for (int probe = 0; probe < 2; probe += 1) {
+            String cached = this.keys[(index + probe) & this.mask];
+            if (cached == null) {
+                break;
+            }
+            if (cached.hashCode() == hash && cached.length() == length
+                    && matches(cached, chars, offset)) {
+                return cached;
+            }
+        }
+        String key = new String(chars, offset, length);
+        this.store(index, key);
+        return key;
+    }
+
+    /**
+     * Get the canonical String for a run of ASCII bytes.
+     *
+     * @param bytes  The bytes, which must all be less than 0x80.
+     * @param offset The offset of the first byte of the key.
+     * @param length The number of bytes in the key.
+     * @return A String.
+     */
+    String intern(byte[] bytes, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i += 1) {
+            hash = 31 * hash + bytes[i];
+        }
+        int index = this.index(hash);
+        if (length <= MAX_LENGTH) {
+            for (int probe = 0; probe < 2; probe += 1) {
+                String cached = this.keys[(index + probe) & this.mask];
+                if (cached == null) {
+                    break;
+                }
+                if (cached.hashCode() == hash && cached.length() == length
+                        && matches(cached, bytes, offset)) {
+                    return cached;
+                }
+            }
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i += 1) {
+            chars[i] = (char) bytes[offset + i];
+        }
+        String key = new String(chars);
+        if (length <= MAX_LENGTH) {
+            this.store(index, key);
+        }
+        return key;
+    }
+
+    /**
+     * Spread the bits of a hash code, so that keys that differ only in their
+     * last characters use different slots.
+     */
+    private int index(int hash) {
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    private static boolean matches(String key, char[] chars, int offset) {
+        for (int i = 0; i < key.length(); i += 1) {
+            if (key.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String key, byte[] bytes, int offset) {
+        for (int i = 0; i < key.length(); i += 1) {
+            if (key.charAt(i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Put a key in the first free slot of its pair, or replace the first slot
+     * if both are taken.
+     */
+    private void store(int index, String key) {
+        int next = (index + 1) & this.mask;
+        if (this.keys[index] != null && this.keys[next] == null) {
+            this.keys[next] = key;
+        } else {
+            this.keys[index] = key;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.json;
+
+/**
+ * A JSONLazyTokener is the UTF8Tokener made by
+ * {@link UTF8Tokener#lazy(byte[])}. It indexes its text, and then reads the
+ * members of objects and the elements of arrays as {@link JSONRaw}s, which
+ * are positions in the index, skipping over the text of each value. A JSONRaw
+ * comes back to the tokener to be parsed when its value is asked for.
+ *
+ * @author kuporific
+ */
+final class JSONLazyTokener extends UTF8Tokener {
+
+    private final byte[] bytes;
+
+    /**
+     * The index of the text, or null if it could not be indexed.
+     */
+    private final JSONIndex index;
+
+    /**
+     * The offset just past the end of the text.
+     */
+    private final int limit;
+
+    JSONLazyTokener(byte[] bytes, int offset, int length) {
+        super(bytes, offset, length);
+        this.bytes = bytes;
+        this.index = this.buildIndex();
+        this.limit = offset + length;
+    }
+
+    @Override
+    Object nextMemberValue() throws JSONException {
+        if (this.index == null) {
+            return this.nextValue();
+        }
+        char c = this.nextClean();
+        int k = this.entry();
+        int next = 0;
+        if (c == '{' || c == '[') {
+            int partner = this.index.partner(k);
+            next = partner == 0 ? 0 : partner + 1;
+        } else if (c == '"') {
+            next = k + 1;
+        } else if (!endsUnquoted(c)) {
+
+// An unquoted value may hold spaces, so it is scanned to find where the
+// tokener would stop.
+
+            this.back();
+            this.skipValue();
+            return new JSONRaw(this, k);
+        }
+
+// A missing value or an unclosed object or array is parsed now, to report
+// the error.
+
+        if (next == 0) {
+            this.back();
+            return this.nextValue();
+        }
+        this.seek(next);
+        return new JSONRaw(this, k);
+    }
+
+    /**
+     * Parse a value that was left for later. Its objects and arrays are read
+     * lazily too.
+     *
+     * @param k The number of the position of the value in the index.
+     * @return The value.
+     * @throws JSONException If there is a syntax error.
+     */
+    Object parse(int k) throws JSONException {
+        this.seek(k);
+        return this.nextValue();
+    }
+
+    /**
+     * Get the offset of the first byte of a value that was left for later.
+     *
+     * @param k The number of the position of the value in the index.
+     * @return The offset in the bytes.
+     */
+    int start(int k) {
+        return this.index.positions[k];
+    }
+
+    /**
+     * Get the offset just past the last byte of a value that was left for
+     * later, not counting the whitespace after it.
+     *
+     * @param k The number of the position of the value in the index.
+     * @return The offset in the bytes.
+     */
+    int end(int k) {
+        int start = this.index.positions[k];
+        byte b = this.bytes[start];
+        if (b == '{' || b == '[') {
+            return this.index.positions[this.index.partner(k)] + 1;
+        }
+        int end;
+        if (b == '"') {
+            end = k + 1 < this.index.count ? this.index.positions[k + 1]
+                    : this.limit;
+        } else {
+            end = start;
+            while (end < this.limit
+                    && !endsUnquoted((char) (this.bytes[end] & 0xFF))) {
+                end += 1;
+            }
+        }
+        while (end > start && this.bytes[end - 1] >= 0
+                && this.bytes[end - 1] <= ' ') {
+            end -= 1;
+        }
+        return end;
+    }
+
+    /**
+     * Tell whether the text of a value that was left for later can be copied
+     * as it is, because it is strict JSON.
+     *
+     * @param k The number of the position of the value in the index.
+     * @return true if the text can be copied.
+     */
+    boolean isVerbatim(int k) {
+        return this.index.isStrict(this.bytes, k);
+    }
+
+    byte[] bytes() {
+        return this.bytes;
+    }
+}
@@ -0,0 +1,202 @@
+package org.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A JSONLineReader reads newline-delimited JSON, also known as JSON Lines or
+ * NDJSON: a text that holds one JSON value per line. Every record is read
+ * with the same tokener, and so with the same buffer, and the JSONObjects
+ * that it reads share the layout of their keys. The layouts are bounded in
+ * number, and are started over once the limit is reached, so a long stream
+ * of records with varying keys does not hold more and more of them. Blank
+ * lines are skipped.
+ *
+ * <pre>
+ * try (JSONLineReader reader = new JSONLineReader(inputStream)) {
+ *     while (reader.hasNext()) {
+ *         JSONObject event = reader.next();
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @author kuporific
+ */
+public class JSONLineReader implements Iterator<JSONObject>, Closeable {
+
+    private final Closeable source;
+
+    private final JSONTokener x;
+
+    /**
+     * Construct a JSONLineReader on UTF-8 bytes. The bytes are read with a
+     * {@link UTF8Tokener}.
+     *
+     * @param inputStream The stream to read.
+     */
+    public JSONLineReader(InputStream inputStream) {
+        this.source = inputStream;
+        this.x = new UTF8Tokener(inputStream);
+    }
+
+    /**
+     * Construct a JSONLineReader on characters.
+     *
+     * @param reader The reader to read.
+     */
+    public JSONLineReader(Reader reader) {
+        this.source = reader;
+        this.x = new JSONTokener(reader);
+    }
+
+    /**
+     * Construct a JSONLineReader on a tokener. Closing the JSONLineReader
+     * does nothing.
+     *
+     * @param x The tokener to read.
+     */
+    public JSONLineReader(JSONTokener x) {
+        this.source = null;
+        this.x = x;
+    }
+
+    /**
+     * Close the stream or reader that the records are read from.
+     *
+     * @throws IOException If it cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.source != null) {
+            this.source.close();
+        }
+    }
+
+    /**
+     * Determine if there is another record.
+     *
+     * @return true if there is anything but whitespace left.
+     * @throws JSONException If the text cannot be read.
+     */
+    @Override
+    public boolean hasNext() throws JSONException {
+        if (this.x.nextClean() == 0) {
+            return false;
+        }
+        this.x.back();
+        return true;
+    }
+
+    /**
+     * Read the next record, which must be an object.
+     *
+     * @return The next record.
+     * @throws JSONException If there is a syntax error, or if the record is
+     *         not an object.
+     * @throws NoSuchElementException If there are no more records.
+     */
+    @Override
+    public JSONObject next() throws JSONException {
+        JSONObject record = nextRecord(this.x);
+        if (record == null) {
+            throw new NoSuchElementException();
+        }
+        return record;
+    }
+
+    /**
+     * Read the next record as an instance of a class, as
+     * {@link JSONTokener#nextBean(Class)} does, without building a
+     * JSONObject.
+     *
+     * @param klass The class to make.
+     * @return A new instance of the class, or null if the record is null.
+     * @throws JSONException If there is a syntax error, or if the record
+     *         cannot be converted.
+     * @throws NoSuchElementException If there are no more records.
+     */
+    public <T> T nextBean(Class<T> klass) throws JSONException {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T bean = this.x.nextBean(klass);
+        endOfLine(this.x);
+        return bean;
+    }
+
+    /**
+     * Read the next record, whatever kind of value it is.
+     *
+     * @return The next record: a JSONObject, JSONArray, String, Number,
+     *         Boolean, or JSONObject.NULL.
+     * @throws JSONException If there is a syntax error.
+     * @throws NoSuchElementException If there are no more records.
+     */
+    public Object nextValue() throws JSONException {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object value = this.x.nextValue();
+        endOfLine(this.x);
+        this.x.renewShapes();
+        return value;
+    }
+
+    /**
+     * Get a sequential Stream of the remaining records, which must be
+     * objects. It reads from this JSONLineReader as it is consumed.
+     *
+     * @return A Stream of JSONObjects.
+     */
+    public Stream<JSONObject> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Read a record, which must be an object, and the rest of its line.
+     *
+     * @param x The tokener to read.
+     * @return The record, or null if there is nothing but whitespace left.
+     * @throws JSONException If there is a syntax error, or if the record is
+     *         not an object.
+     */
+    static JSONObject nextRecord(JSONTokener x) throws JSONException {
+        if (x.nextClean() == 0) {
+            return null;
+        }
+        x.back();
+        Object value = x.nextValue();
+        if (!(value instanceof JSONObject)) {
+            throw x.syntaxError("A record must be a JSONObject");
+        }
+        endOfLine(x);
+        x.renewShapes();
+        return (JSONObject) value;
+    }
+
+    /**
+     * Skip the rest of the line after a record, which may only hold
+     * whitespace.
+     */
+    private static void endOfLine(JSONTokener x) throws JSONException {
+        for (;;) {
+            char c = x.next();
+            if (c == '\n' || c == 0) {
+                return;
+            }
+            if (c != ' ' && c != '\t' && c != '\r') {
+                throw x.syntaxError("Expected a newline after a record");
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A JSONLineWriter writes newline-delimited JSON, also known as JSON Lines or
+ * NDJSON: one compact JSON text per record, each followed by a newline, as
+ * UTF-8 bytes. Line breaks inside strings are escaped, so that each record
+ * stays on one line. All of the records pass through one {@link UTF8Writer}, and so
+ * through one buffer, which is only handed to the OutputStream when it fills
+ * or when the JSONLineWriter is flushed.
+ * <p>
+ * A record must not be a {@link JSONString} whose text holds a newline.
+ *
+ * @author kuporific
+ */
+public class JSONLineWriter implements Closeable, Flushable {
+
+    private final UTF8Writer writer;
+
+    /**
+     * Construct a JSONLineWriter on an OutputStream.
+     *
+     * @param outputStream The stream that receives the bytes.
+     */
+    public JSONLineWriter(OutputStream outputStream) {
+        this(outputStream, 8192);
+    }
+
+    /**
+     * Construct a JSONLineWriter on an OutputStream.
+     *
+     * @param outputStream The stream that receives the bytes.
+     * @param bufferSize   The size of the buffer.
+     */
+    public JSONLineWriter(OutputStream outputStream, int bufferSize) {
+        this.writer = new UTF8Writer(outputStream, bufferSize);
+        this.writer.escapeLineBreaks();
+    }
+
+    /**
+     * Write any buffered bytes, and close the OutputStream.
+     *
+     * @throws IOException If the OutputStream cannot be written or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    /**
+     * Write any buffered bytes, and flush the OutputStream.
+     *
+     * @throws IOException If the OutputStream cannot be written or flushed.
+     */
+    @Override
+    public void flush() throws IOException {
+        this.writer.flush();
+    }
+
+    /**
+     * Write a record and the newline after it.
+     *
+     * @param record
+     *            A JSONObject, JSONArray, or any other value that
+     *            JSONObject.valueToString accepts.
+     * @return this.
+     * @throws JSONException
+     *             If the record is or contains an invalid number, or if the
+     *             bytes cannot be written.
+     */
+    public JSONLineWriter write(Object record) throws JSONException {
+        this.writer.write(record);
+        try {
+            this.writer.newline();
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,537 @@
+package org.json;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A JSONList is the List that a JSONArray keeps its elements in. As long as
+ * every element is an Integer, every element is a Long, or every element is a
+ * Double, the elements are stored unboxed in an int[], long[], or double[],
+ * and boxed again only when they are asked for as Objects. Integers may also
+ * be mixed with Longs or with Doubles, as in <code>[0, 1.5, 2.25]</code>:
+ * the ints are widened, and a bit for each element remembers which ones were
+ * Integers. The first element of any other kind moves the whole list to an
+ * Object[], where it stays. Elements always come back out as the same kind
+ * of Number that was put in.
+ *
+ * @author kuporific
+ */
+final class JSONList extends AbstractList<Object> implements RandomAccess {
+
+    /**
+     * The list has no storage yet.
+     */
+    private static final int NONE = 0;
+
+    /**
+     * The elements are Integers, kept in ints.
+     */
+    private static final int INT = 1;
+
+    /**
+     * The elements are Longs, kept in longs.
+     */
+    private static final int LONG = 2;
+
+    /**
+     * The elements are Doubles, kept in doubles.
+     */
+    private static final int DOUBLE = 3;
+
+    /**
+     * The elements are kept in objects.
+     */
+    private static final int OBJECT = 4;
+
+    private static final int INITIAL_CAPACITY = 10;
+
+    private double[] doubles;
+
+    /**
+     * A bit for every element of a list of longs or doubles that was put in
+     * as an Integer, or null if none were.
+     */
+    private long[] integers;
+
+    private int[] ints;
+
+    private int kind = NONE;
+
+    private long[] longs;
+
+    private Object[] objects;
+
+    private int size;
+
+    @Override
+    public boolean add(Object value) {
+        this.add(this.size, value);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Object value) {
+        if (index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        int kind = kindOf(value);
+        if (this.kind == NONE) {
+            this.kind = kind;
+            this.allocate(INITIAL_CAPACITY);
+        } else if (this.kind != OBJECT && this.kind != kind
+                && !this.widen(kind)) {
+            this.box();
+        }
+        if (this.size == this.capacity()) {
+            this.allocate(this.size + (this.size >> 1) + 1);
+        }
+        int moved = this.size - index;
+        switch (this.kind) {
+        case INT:
+            System.arraycopy(this.ints, index, this.ints, index + 1, moved);
+            this.ints[index] = (Integer) value;
+            break;
+        case LONG:
+            System.arraycopy(this.longs, index, this.longs, index + 1, moved);
+            this.longs[index] = ((Number) value).longValue();
+            this.shiftIntegers(index, 1);
+            this.markInteger(index, kind == INT);
+            break;
+        case DOUBLE:
+            System.arraycopy(this.doubles, index, this.doubles, index + 1,
+                    moved);
+            this.doubles[index] = ((Number) value).doubleValue();
+            this.shiftIntegers(index, 1);
+            this.markInteger(index, kind == INT);
+            break;
+        default:
+            System.arraycopy(this.objects, index, this.objects, index + 1,
+                    moved);
+            this.objects[index] = value;
+        }
+        this.size += 1;
+        this.modCount += 1;
+    }
+
+    @Override
+    public void clear() {
+        this.doubles = null;
+        this.integers = null;
+        this.ints = null;
+        this.kind = NONE;
+        this.longs = null;
+        this.objects = null;
+        this.size = 0;
+        this.modCount += 1;
+    }
+
+    /**
+     * Get an element as a double. The list must hold primitives.
+     *
+     * @param index An index within the list.
+     * @return The element, converted as Number.doubleValue would.
+     */
+    double doubleAt(int index) {
+        switch (this.kind) {
+        case INT:
+            return this.ints[index];
+        case LONG:
+            return this.longs[index];
+        default:
+            return this.doubles[index];
+        }
+    }
+
+    @Override
+    public Object get(int index) {
+        this.check(index);
+        switch (this.kind) {
+        case INT:
+            return this.ints[index];
+        case LONG:
+            if (this.isInteger(index)) {
+                return (int) this.longs[index];
+            }
+            return this.longs[index];
+        case DOUBLE:
+            if (this.isInteger(index)) {
+                return (int) this.doubles[index];
+            }
+            return this.doubles[index];
+        default:
+            Object value = this.objects[index];
+            if (value instanceof JSONRaw) {
+                value = ((JSONRaw) value).parse();
+                this.objects[index] = value;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Get an element as an int. The list must hold primitives.
+     *
+     * @param index An index within the list.
+     * @return The element, converted as Number.intValue would.
+     */
+    int intAt(int index) {
+        switch (this.kind) {
+        case INT:
+            return this.ints[index];
+        case LONG:
+            return (int) this.longs[index];
+        default:
+            return (int) this.doubles[index];
+        }
+    }
+
+    /**
+     * Determine if the elements are kept unboxed.
+     *
+     * @return true if the list holds ints, longs, or doubles.
+     */
+    boolean isPrimitive() {
+        return this.kind != NONE && this.kind != OBJECT;
+    }
+
+    /**
+     * Get an element as a long. The list must hold primitives.
+     *
+     * @param index An index within the list.
+     * @return The element, converted as Number.longValue would.
+     */
+    long longAt(int index) {
+        switch (this.kind) {
+        case INT:
+            return this.ints[index];
+        case LONG:
+            return this.longs[index];
+        default:
+            return (long) this.doubles[index];
+        }
+    }
+
+    /**
+     * Get an element as it is kept, without parsing it if it is a
+     * {@link JSONRaw}.
+     *
+     * @param index An index within the list.
+     * @return The element.
+     */
+    Object peek(int index) {
+        this.check(index);
+        return this.kind == OBJECT ? this.objects[index] : this.get(index);
+    }
+
+    @Override
+    public Object remove(int index) {
+        Object old = this.get(index);
+        int moved = this.size - index - 1;
+        switch (this.kind) {
+        case INT:
+            System.arraycopy(this.ints, index + 1, this.ints, index, moved);
+            break;
+        case LONG:
+            System.arraycopy(this.longs, index + 1, this.longs, index, moved);
+            this.shiftIntegers(index, -1);
+            break;
+        case DOUBLE:
+            System.arraycopy(this.doubles, index + 1, this.doubles, index,
+                    moved);
+            this.shiftIntegers(index, -1);
+            break;
+        default:
+            System.arraycopy(this.objects, index + 1, this.objects, index,
+                    moved);
+            this.objects[this.size - 1] = null;
+        }
+        this.size -= 1;
+        this.modCount += 1;
+        return old;
+    }
+
+    @Override
+    public Object set(int index, Object value) {
+        Object old = this.get(index);
+        int kind = kindOf(value);
+        if (this.kind != OBJECT && this.kind != kind && !this.widen(kind)) {
+            this.box();
+        }
+        switch (this.kind) {
+        case INT:
+            this.ints[index] = (Integer) value;
+            break;
+        case LONG:
+            this.longs[index] = ((Number) value).longValue();
+            this.markInteger(index, kind == INT);
+            break;
+        case DOUBLE:
+            this.doubles[index] = ((Number) value).doubleValue();
+            this.markInteger(index, kind == INT);
+            break;
+        default:
+            this.objects[index] = value;
+        }
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Copy the elements into a double array, if they are primitives.
+     *
+     * @return An array of doubles, or null if the elements are Objects.
+     */
+    double[] toDoubleArray() {
+        double[] result = new double[this.size];
+        switch (this.kind) {
+        case INT:
+            for (int i = 0; i < this.size; i += 1) {
+                result[i] = this.ints[i];
+            }
+            return result;
+        case LONG:
+            for (int i = 0; i < this.size; i += 1) {
+                result[i] = this.longs[i];
+            }
+            return result;
+        case DOUBLE:
+            System.arraycopy(this.doubles, 0, result, 0, this.size);
+            return result;
+        case NONE:
+            return result;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Copy the elements into an int array, if they are primitives.
+     *
+     * @return An array of ints, or null if the elements are Objects.
+     */
+    int[] toIntArray() {
+        int[] result = new int[this.size];
+        switch (this.kind) {
+        case INT:
+            System.arraycopy(this.ints, 0, result, 0, this.size);
+            return result;
+        case LONG:
+            for (int i = 0; i < this.size; i += 1) {
+                result[i] = (int) this.longs[i];
+            }
+            return result;
+        case DOUBLE:
+            for (int i = 0; i < this.size; i += 1) {
+                result[i] = (int) this.doubles[i];
+            }
+            return result;
+        case NONE:
+            return result;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Copy the elements into a long array, if they are primitives.
+     *
+     * @return An array of longs, or null if the elements are Objects.
+     */
+    long[] toLongArray() {
+        long[] result = new long[this.size];
+        switch (this.kind) {
+        case INT:
+            for (int i = 0; i < this.size; i += 1) {
+                result[i] = this.ints[i];
+            }
+            return result;
+        case LONG:
+            System.arraycopy(this.longs, 0, result, 0, this.size);
+            return result;
+        case DOUBLE:
+            for (int i = 0; i < this.size; i += 1) {
+                result[i] = (long) this.doubles[i];
+            }
+            return result;
+        case NONE:
+            return result;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Resize the storage for the current kind.
+     *
+     * @param capacity The new capacity, which must be at least the size.
+     */
+    private void allocate(int capacity) {
+        switch (this.kind) {
+        case INT:
+            this.ints = this.ints == null ? new int[capacity]
+                    : Arrays.copyOf(this.ints, capacity);
+            break;
+        case LONG:
+            this.longs = this.longs == null ? new long[capacity]
+                    : Arrays.copyOf(this.longs, capacity);
+            break;
+        case DOUBLE:
+            this.doubles = this.doubles == null ? new double[capacity]
+                    : Arrays.copyOf(this.doubles, capacity);
+            break;
+        default:
+            this.objects = this.objects == null ? new Object[capacity]
+                    : Arrays.copyOf(this.objects, capacity);
+        }
+        if (this.integers != null) {
+            this.integers = Arrays.copyOf(this.integers, words(capacity));
+        }
+    }
+
+    /**
+     * Move the elements from the primitive storage to objects.
+     */
+    private void box() {
+        Object[] boxed = new Object[Math.max(this.capacity(), INITIAL_CAPACITY)];
+        for (int i = 0; i < this.size; i += 1) {
+            boxed[i] = this.get(i);
+        }
+        this.doubles = null;
+        this.integers = null;
+        this.ints = null;
+        this.longs = null;
+        this.objects = boxed;
+        this.kind = OBJECT;
+    }
+
+    private int capacity() {
+        switch (this.kind) {
+        case INT:
+            return this.ints.length;
+        case LONG:
+            return this.longs.length;
+        case DOUBLE:
+            return this.doubles.length;
+        default:
+            return this.objects.length;
+        }
+    }
+
+    /**
+     * Determine if an element of a list of longs or doubles was put in as an
+     * Integer.
+     */
+    private boolean isInteger(int index) {
+        return this.integers != null
+                && (this.integers[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Remember whether an element of a list of longs or doubles was put in
+     * as an Integer.
+     */
+    private void markInteger(int index, boolean integer) {
+        if (integer) {
+            if (this.integers == null) {
+                this.integers = new long[words(this.capacity())];
+            }
+            this.integers[index >>> 6] |= 1L << index;
+        } else if (this.integers != null) {
+            this.integers[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Move the Integer bits after an index by one place, up after an element
+     * is inserted at the index, or down after it is removed. The size is the
+     * size before the change.
+     */
+    private void shiftIntegers(int index, int distance) {
+        if (this.integers == null) {
+            return;
+        }
+        if (distance > 0) {
+            for (int i = this.size; i > index; i -= 1) {
+                this.markInteger(i, this.isInteger(i - 1));
+            }
+        } else {
+            for (int i = index; i < this.size - 1; i += 1) {
+                this.markInteger(i, this.isInteger(i + 1));
+            }
+            this.markInteger(this.size - 1, false);
+        }
+    }
+
+    /**
+     * Widen a list of ints to hold a Long or a Double, or let a list of longs
+     * or doubles hold an Integer.
+     *
+     * @param kind The kind of the value to be put.
+     * @return true if the list can now hold the value.
+     */
+    private boolean widen(int kind) {
+        if (kind == INT) {
+            return this.kind == LONG || this.kind == DOUBLE;
+        }
+        if (this.kind != INT || (kind != LONG && kind != DOUBLE)) {
+            return false;
+        }
+        int capacity = this.ints.length;
+        if (kind == LONG) {
+            this.longs = new long[capacity];
+            for (int i = 0; i < this.size; i += 1) {
+                this.longs[i] = this.ints[i];
+            }
+        } else {
+            this.doubles = new double[capacity];
+            for (int i = 0; i < this.size; i += 1) {
+                this.doubles[i] = this.ints[i];
+            }
+        }
+        this.ints = null;
+        this.kind = kind;
+        if (this.size > 0) {
+            this.integers = new long[words(capacity)];
+            for (int i = 0; i < this.size; i += 1) {
+                this.integers[i >>> 6] |= 1L << i;
+            }
+        }
+        return true;
+    }
+
+    private void check(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                    + this.size);
+        }
+    }
+
+    /**
+     * Get the number of longs that hold a bit for each of a number of
+     * elements.
+     */
+    private static int words(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+
+    /**
+     * Get the kind of storage that can hold a value.
+     */
+    private static int kindOf(Object value) {
+        if (value instanceof Integer) {
+            return INT;
+        }
+        if (value instanceof Long) {
+            return LONG;
+        }
+        if (value instanceof Double) {
+            return DOUBLE;
+        }
+        return OBJECT;
+    }
+}
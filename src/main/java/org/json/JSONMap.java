@@ -0,0 +1,572 @@
+package org.json;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A JSONMap is the compact Map that a JSONObject keeps its properties in. The
+ * keys and values are held in two parallel arrays, in the order in which they
+ * were put, so a small object costs two short arrays instead of a HashMap
+ * table and a node for every entry. Up to eight keys are found by scanning
+ * the keys array. Beyond that, an open-addressed table of positions, probed
+ * linearly, is built on top of the arrays.
+ * <p>
+ * The objects that a JSONTokener reads often have the same keys in the same
+ * order, as in an array of records. While such an object is being read, its
+ * keys array and table of positions are taken from a {@link Shape} that is
+ * shared with every other object that has the same keys so far, so each
+ * object only keeps its own values. When the object is sealed it lets go of
+ * the shape, and keeps only the keys array and table, so the shapes can be
+ * collected along with the tokener. The first put or remove of a new key
+ * after that gives the object a private copy of the keys.
+ *
+ * @author kuporific
+ */
+final class JSONMap extends AbstractMap<String, Object> {
+
+    /**
+     * The largest number of keys that are found by scanning.
+     */
+    private static final int SCAN = 8;
+
+    /**
+     * The largest number of keys in a shape.
+     */
+    private static final int MAX_KEYS = 64;
+
+    /**
+     * The largest number of shapes that can grow from a root.
+     */
+    private static final int MAX_SHAPES = 512;
+
+    /**
+     * The largest number of shapes that can follow a shape.
+     */
+    private static final int MAX_TRANSITIONS = 8;
+
+    private static final String[] NO_KEYS = {};
+
+    private static final Object[] NO_VALUES = {};
+
+    /**
+     * The table of positions, or null while there are few enough keys to
+     * scan. Each slot holds a position in the arrays plus one, or 0 if the
+     * slot is empty. Its length is a power of two, at least twice the length
+     * of the keys array.
+     */
+    private int[] index;
+
+    /**
+     * The first shape that this map took while it is being read, which is
+     * told the size of the map when it is sealed.
+     */
+    private Shape first;
+
+    private String[] keys = NO_KEYS;
+
+    /**
+     * The number of times the map has been structurally modified, to make
+     * iterators fail fast.
+     */
+    private int modifications;
+
+    /**
+     * The shape whose keys and table this map is using while it is being
+     * read, and that it may move on from when a key is added, or null once
+     * it is sealed.
+     */
+    private Shape shape;
+
+    /**
+     * true while the keys and table belong to a shape, and must be copied
+     * before they are changed.
+     */
+    private boolean shared;
+
+    private int size;
+
+    private Object[] values = NO_VALUES;
+
+    @Override
+    public void clear() {
+        if (this.shared) {
+            this.first = null;
+            this.shape = null;
+            this.shared = false;
+            this.keys = NO_KEYS;
+            this.values = NO_VALUES;
+        } else {
+            for (int i = 0; i < this.size; i += 1) {
+                this.keys[i] = null;
+                this.values[i] = null;
+            }
+        }
+        this.size = 0;
+        this.index = null;
+        this.modifications += 1;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.find(key) >= 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new EntrySet();
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = this.find(key);
+        return i < 0 ? null : this.value(i);
+    }
+
+    /**
+     * Get the value of a key as it is kept, without parsing it if it is a
+     * {@link JSONRaw}.
+     *
+     * @param key A key.
+     * @return The value, or null if there is none.
+     */
+    Object peek(Object key) {
+        int i = this.find(key);
+        return i < 0 ? null : this.values[i];
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int i = this.find(key);
+        if (i >= 0) {
+            Object old = this.values[i];
+            this.values[i] = value;
+            return old;
+        }
+        if (this.shape != null) {
+            Shape next = this.shape.next(key);
+            if (next != null) {
+                if (this.size == this.values.length) {
+                    this.values = Arrays.copyOf(this.values, Math.max(
+                            next.width, this.size == 0 ? 4 : this.size * 2));
+                }
+                if (this.first == null) {
+                    this.first = next;
+                }
+                this.shape = next;
+                this.keys = next.keys;
+                this.index = next.index;
+                this.values[this.size] = value;
+                this.size += 1;
+                this.modifications += 1;
+                return null;
+            }
+        }
+        if (this.shared) {
+            this.unshare();
+        }
+        if (this.size == this.keys.length) {
+            this.grow();
+        }
+        this.keys[this.size] = key;
+        this.values[this.size] = value;
+        this.size += 1;
+        this.modifications += 1;
+        if (this.index != null) {
+            this.insert(this.size - 1);
+        } else if (this.size > SCAN) {
+            this.reindex();
+        }
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int i = this.find(key);
+        if (i < 0) {
+            return null;
+        }
+        Object old = this.value(i);
+        this.removeAt(i);
+        return old;
+    }
+
+    /**
+     * Stop taking new shapes. The values array is trimmed to fit, and the
+     * first shape that was taken remembers the size, so that the next object
+     * that takes it can make its values array the right size at once. The
+     * map then drops its shapes, so that it does not keep them alive, but
+     * goes on sharing the keys and table until it is changed.
+     */
+    void seal() {
+        if (this.shape != null) {
+            if (this.values.length > this.size) {
+                this.values = Arrays.copyOf(this.values, this.size);
+            }
+            if (this.first != null && this.first.width < this.size) {
+                this.first.width = this.size;
+            }
+            this.first = null;
+            this.shape = null;
+        }
+    }
+
+    /**
+     * Start sharing shapes with other maps. The map must be empty, and will
+     * take new shapes as keys are added, until it is sealed.
+     *
+     * @param root The shape with no keys that the shared shapes grow from.
+     */
+    void share(Shape root) {
+        if (this.size == 0) {
+            this.shape = root;
+            this.keys = root.keys;
+            this.index = null;
+            this.shared = true;
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Find the position of a key.
+     *
+     * @param key A key.
+     * @return The position, or -1 if the key is not in the map.
+     */
+    private int find(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        String[] keys = this.keys;
+        if (this.index == null) {
+            for (int i = 0; i < this.size; i += 1) {
+                if (keys[i] == key || keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int[] index = this.index;
+        int mask = index.length - 1;
+        for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+            int p = index[slot] - 1;
+            if (p < 0) {
+                return -1;
+            }
+            if (keys[p] == key || keys[p].equals(key)) {
+                return p;
+            }
+        }
+    }
+
+    /**
+     * Get the value at a position, parsing it first if it is a JSONRaw.
+     */
+    private Object value(int position) {
+        Object value = this.values[position];
+        if (value instanceof JSONRaw) {
+            value = ((JSONRaw) value).parse();
+            this.values[position] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Give the map its own copy of the keys of its shape.
+     */
+    private void unshare() {
+        int capacity = Math.max(this.values.length, 4);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        if (this.values.length < capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+        this.first = null;
+        this.shape = null;
+        this.shared = false;
+        this.reindex();
+    }
+
+    private void grow() {
+        int capacity = this.keys.length == 0 ? 4 : this.keys.length * 2;
+        String[] keys = new String[capacity];
+        Object[] values = new Object[capacity];
+        System.arraycopy(this.keys, 0, keys, 0, this.size);
+        System.arraycopy(this.values, 0, values, 0, this.size);
+        this.keys = keys;
+        this.values = values;
+        if (this.index != null) {
+            this.reindex();
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Build a table of positions for the keys in an array.
+     *
+     * @param keys The keys.
+     * @param size The number of keys in the array.
+     * @return The table, whose length is a power of two at least twice the
+     *         length of the array.
+     */
+    private static int[] index(String[] keys, int size) {
+        int[] index = new int[Integer.highestOneBit(keys.length * 2 - 1) << 1];
+        for (int i = 0; i < size; i += 1) {
+            insert(index, keys, i);
+        }
+        return index;
+    }
+
+    /**
+     * Put the key at a position into a table of positions.
+     */
+    private static void insert(int[] index, String[] keys, int position) {
+        int mask = index.length - 1;
+        int slot = hash(keys[position]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+    private void insert(int position) {
+        insert(this.index, this.keys, position);
+    }
+
+    /**
+     * Build the table of positions from the arrays, or drop it if there are
+     * few enough keys to scan.
+     */
+    private void reindex() {
+        if (this.size <= SCAN) {
+            this.index = null;
+            return;
+        }
+        this.index = index(this.keys, this.size);
+    }
+
+    private void removeAt(int position) {
+        if (this.shared) {
+            this.unshare();
+        }
+        int moved = this.size - position - 1;
+        System.arraycopy(this.keys, position + 1, this.keys, position, moved);
+        System.arraycopy(this.values, position + 1, this.values, position,
+                moved);
+        this.size -= 1;
+        this.keys[this.size] = null;
+        this.values[this.size] = null;
+        this.modifications += 1;
+        if (this.index != null) {
+            this.reindex();
+        }
+    }
+
+    /**
+     * The entries of the map, in the order in which they were put. Removing
+     * an entry through the iterator removes it from the map.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new Iterator<Map.Entry<String, Object>>() {
+                private int expected = JSONMap.this.modifications;
+                private int last = -1;
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < JSONMap.this.size;
+                }
+
+                @Override
+                public Map.Entry<String, Object> next() {
+                    if (this.expected != JSONMap.this.modifications) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (this.next >= JSONMap.this.size) {
+                        throw new NoSuchElementException();
+                    }
+                    this.last = this.next;
+                    this.next += 1;
+                    return new Entry(this.last);
+                }
+
+                @Override
+                public void remove() {
+                    if (this.last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    if (this.expected != JSONMap.this.modifications) {
+                        throw new ConcurrentModificationException();
+                    }
+                    JSONMap.this.removeAt(this.last);
+                    this.expected = JSONMap.this.modifications;
+                    this.next = this.last;
+                    this.last = -1;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return JSONMap.this.size;
+        }
+    }
+
+    /**
+     * An entry that reads and writes through to a position in the arrays.
+     */
+    private final class Entry implements Map.Entry<String, Object> {
+        private final int position;
+
+        Entry(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public String getKey() {
+            return JSONMap.this.keys[this.position];
+        }
+
+        @Override
+        public Object getValue() {
+            return JSONMap.this.value(this.position);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object old = JSONMap.this.value(this.position);
+            JSONMap.this.values[this.position] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) other;
+            Object value = this.getValue();
+            return this.getKey().equals(entry.getKey())
+                    && (value == null ? entry.getValue() == null
+                            : value.equals(entry.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = this.getValue();
+            return this.getKey().hashCode()
+                    ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return this.getKey() + "=" + this.getValue();
+        }
+    }
+
+    /**
+     * A Shape is an immutable layout of keys: the keys in order, and their
+     * table of positions. The shapes grow from a root with no keys; each
+     * shape remembers the shapes that follow it by adding one more key, so
+     * that every object that puts the same keys in the same order ends up
+     * with the same shape. The number of keys in a shape, the number of
+     * shapes that follow each one, and the number of shapes that grow from a
+     * root are limited, so that objects with many different keys do not
+     * make many shapes. A shape does not link back to the shape it follows,
+     * so a map that holds one keeps only the shapes that can follow it.
+     * <p>
+     * Following a shape can add to it, so a family of shapes must only be
+     * grown by one thread at a time. JSONTokener keeps its own root.
+     */
+    static final class Shape {
+        private Shape[] children;
+
+        private final int[] index;
+
+        private final String[] keys;
+
+        /**
+         * The number of shapes that may still grow from the root, in an
+         * array of one that all of the shapes of the root share.
+         */
+        private final int[] remaining;
+
+        /**
+         * The largest size of a sealed map that has taken this shape first.
+         */
+        private int width;
+
+        /**
+         * Construct a root shape, with no keys.
+         */
+        Shape() {
+            this.index = null;
+            this.keys = NO_KEYS;
+            this.remaining = new int[] { MAX_SHAPES };
+        }
+
+        private Shape(Shape parent, String key) {
+            int n = parent.keys.length;
+            this.keys = Arrays.copyOf(parent.keys, n + 1);
+            this.keys[n] = key;
+            this.index = n + 1 > SCAN ? JSONMap.index(this.keys, n + 1) : null;
+            this.remaining = parent.remaining;
+        }
+
+        /**
+         * Determine if no more shapes may grow from the root of this shape.
+         *
+         * @return true if the root has made all the shapes it may.
+         */
+        boolean isSpent() {
+            return this.remaining[0] == 0;
+        }
+
+        /**
+         * Get the shape that adds a key to this one.
+         *
+         * @param key A key that is not in this shape.
+         * @return The shape, or null if there are too many shapes.
+         */
+        Shape next(String key) {
+            int n = this.keys.length;
+            if (this.children == null) {
+                if (n == MAX_KEYS || this.remaining[0] == 0) {
+                    return null;
+                }
+                this.children = new Shape[MAX_TRANSITIONS];
+            }
+            for (int i = 0; i < MAX_TRANSITIONS; i += 1) {
+                Shape child = this.children[i];
+                if (child == null) {
+                    if (this.remaining[0] == 0) {
+                        return null;
+                    }
+                    this.remaining[0] -= 1;
+                    child = new Shape(this, key);
+                    this.children[i] = child;
+                    return child;
+                }
+                if (child.keys[n] == key || child.keys[n].equals(key)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * A JSONNumber holds a number exactly as it was written in a JSON text. It is
+ * only converted to an Integer, Long, BigInteger, Double, or BigDecimal the
+ * first time its value is asked for, and it is written back out verbatim, so
+ * a number that is passed through untouched is never converted at all, and
+ * keeps all of its digits.
+ * <p>
+ * A JSONTokener produces JSONNumbers instead of Integers, Longs and Doubles
+ * once {@link JSONTokener#setLazyNumbers(boolean)} is turned on. Only text in
+ * the strict JSON number syntax is read as a JSONNumber; anything else is
+ * handled by {@link JSONObject#stringToValue(String)} as usual. A few numbers
+ * that stringToValue keeps as Strings, because it cannot convert them without
+ * loss, are JSONNumbers instead: see {@link #numberValue()}.
+ *
+ * @author kuporific
+ */
+public final class JSONNumber extends Number {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number as it was written.
+     */
+    private final String string;
+
+    /**
+     * The converted value, or null if it has not been needed yet.
+     */
+    private transient Number value;
+
+    /**
+     * Construct a JSONNumber from the text of a number.
+     *
+     * @param string A number in the JSON number syntax.
+     * @throws JSONException If the string is not a JSON number.
+     */
+    public JSONNumber(String string) throws JSONException {
+        if (!isNumber(string)) {
+            throw new JSONException("Not a JSON number: " + string);
+        }
+        this.string = string;
+    }
+
+    /**
+     * Determine if a string is written in the JSON number syntax: an optional
+     * minus sign, an integer without leading zeros, an optional fraction, and
+     * an optional exponent.
+     *
+     * @param string A string.
+     * @return true if the string is a JSON number.
+     */
+    static boolean isNumber(String string) {
+        int length = string.length();
+        int i = 0;
+        if (i < length && string.charAt(i) == '-') {
+            i += 1;
+        }
+        if (i < length && string.charAt(i) == '0') {
+            i += 1;
+        } else {
+            int start = i;
+            i = digits(string, i);
+            if (i == start) {
+                return false;
+            }
+        }
+        if (i < length && string.charAt(i) == '.') {
+            int start = i + 1;
+            i = digits(string, start);
+            if (i == start) {
+                return false;
+            }
+        }
+        if (i < length && (string.charAt(i) == 'e' || string.charAt(i) == 'E')) {
+            i += 1;
+            if (i < length && (string.charAt(i) == '+' || string.charAt(i) == '-')) {
+                i += 1;
+            }
+            int start = i;
+            i = digits(string, start);
+            if (i == start) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    private static int digits(String string, int i) {
+        while (i < string.length() && string.charAt(i) >= '0'
+                && string.charAt(i) <= '9') {
+            i += 1;
+        }
+        return i;
+    }
+
+    /**
+     * Get the value as a Number. An integer is an Integer if it fits, and
+     * otherwise a Long, and a number with a fraction or an exponent is a
+     * Double, as {@link JSONObject#stringToValue(String)} would produce. For
+     * the numbers that stringToValue keeps as Strings, the value is:
+     * <ul>
+     * <li>Integer 0 for <code>-0</code>.</li>
+     * <li>A BigInteger for an integer too large for a Long.</li>
+     * <li>A BigDecimal for a number too large for a Double, such as
+     * <code>1e999</code>.</li>
+     * </ul>
+     *
+     * @return The converted Number.
+     */
+    public Number numberValue() {
+        if (this.value == null) {
+            String s = this.string;
+            if (s.indexOf('.') > -1 || s.indexOf('e') > -1
+                    || s.indexOf('E') > -1) {
+                Double d = Double.valueOf(s);
+                this.value = d.isInfinite() ? (Number) new BigDecimal(s) : d;
+            } else {
+                try {
+                    long l = Long.parseLong(s);
+                    this.value = l == (int) l ? (Number) (int) l : (Number) l;
+                } catch (NumberFormatException e) {
+                    this.value = new BigInteger(s);
+                }
+            }
+        }
+        return this.value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return this.numberValue().doubleValue();
+    }
+
+    @Override
+    public float floatValue() {
+        return this.numberValue().floatValue();
+    }
+
+    @Override
+    public int intValue() {
+        return this.numberValue().intValue();
+    }
+
+    @Override
+    public long longValue() {
+        return this.numberValue().longValue();
+    }
+
+    /**
+     * Determine if another object is a JSONNumber with the same value.
+     *
+     * @param other The object to compare with.
+     * @return true if the converted values are equal.
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof JSONNumber
+                && this.numberValue().equals(((JSONNumber) other).numberValue());
+    }
+
+    @Override
+    public int hashCode() {
+        return this.numberValue().hashCode();
+    }
+
+    /**
+     * Get the number as it was written.
+     *
+     * @return The text of the number.
+     */
+    @Override
+    public String toString() {
+        return this.string;
+    }
+}
@@ -28,11 +28,8 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.Collection;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
@@ -135,7 +132,7 @@ public class JSONObject extends JSONBase<String> {
     /**
      * The map where the JSONObject's properties are kept.
      */
-    private final Map<String, Object> map = new HashMap<>();
+    private final JSONMap map = new JSONMap();
 
     /**
      * It is sometimes more convenient and less ambiguous to have a
@@ -190,16 +187,17 @@ public class JSONObject extends JSONBase<String> {
         if (x.nextClean() != '{') {
             throw x.syntaxError("A JSONObject text must begin with '{'");
         }
+        this.map.share(x.shape());
         for (;;) {
             c = x.nextClean();
             switch (c) {
             case 0:
                 throw x.syntaxError("A JSONObject text must end with '}'");
             case '}':
+                this.map.seal();
                 return;
             default:
-                x.back();
-                key = x.nextValue().toString();
+                key = x.nextKey(c);
             }
 
 // The key is followed by ':'.
@@ -208,7 +206,7 @@ public class JSONObject extends JSONBase<String> {
             if (c != ':') {
                 throw x.syntaxError("Expected a ':' after a key");
             }
-            this.putOnce(key, x.nextValue());
+            this.putOnce(key, x.nextMemberValue());
 
 // Pairs are separated by ','.
 
@@ -216,11 +214,13 @@ public class JSONObject extends JSONBase<String> {
             case ';':
             case ',':
                 if (x.nextClean() == '}') {
+                    this.map.seal();
                     return;
                 }
                 x.back();
                 break;
             case '}':
+                this.map.seal();
                 return;
             default:
                 throw x.syntaxError("Expected a ',' or '}'");
@@ -228,6 +228,30 @@ public class JSONObject extends JSONBase<String> {
         }
     }
 
+    /**
+     * Construct a JSONObject by combining a JSONArray of names with a JSONArray
+     * of values, as {@link JSONArray#toJSONObject(JSONArray)} does. The keys
+     * are laid out in shapes shared with the other objects read by the
+     * tokener, so the rows of a table share their names.
+     *
+     * @param names
+     *            A JSONArray of key strings.
+     * @param values
+     *            A JSONArray of values.
+     * @param x
+     *            The JSONTokener that the values were read from.
+     * @throws JSONException
+     *             If any of the names are null.
+     */
+    JSONObject(JSONArray names, JSONArray values, JSONTokener x)
+            throws JSONException {
+        this.map.share(x.shape());
+        for (int i = 0; i < names.length(); i++) {
+            this.put(names.getString(i), values.opt(i));
+        }
+        this.map.seal();
+    }
+
     /**
      * Construct a JSONObject from a Map.
      *
@@ -491,7 +515,8 @@ public class JSONObject extends JSONBase<String> {
     /**
      * Increment a property of a JSONObject. If there is no such property,
      * create one with a value of 1. If there is such a property, and if it is
-     * an Integer, Long, Double, or Float, then add one to it.
+     * an Integer, Long, Double, or Float, or a JSONNumber holding one, then add
+     * one to it.
      *
      * @param key
      *            A key string.
@@ -502,6 +527,9 @@ public class JSONObject extends JSONBase<String> {
      */
     public JSONObject increment(String key) throws JSONException {
         Object value = this.opt(key);
+        if (value instanceof JSONNumber) {
+            value = ((JSONNumber) value).numberValue();
+        }
         if (value == null) {
             this.put(key, 1);
         } else if (value instanceof Integer) {
@@ -575,6 +603,12 @@ public class JSONObject extends JSONBase<String> {
             throw new JSONException("Null pointer");
         }
         testValidity(number);
+        if (number instanceof JSONNumber) {
+            return number.toString();
+        }
+        if (number instanceof Double) {
+            return DoubleFormatter.toString((Double) number);
+        }
 
 // Shave off trailing zeros and decimal point, if possible.
 
@@ -603,48 +637,24 @@ public class JSONObject extends JSONBase<String> {
         return key == null ? null : this.map.get(key);
     }
 
-    private void populateMap(Object bean) {
-        Class klass = bean.getClass();
-
-// If klass is a System class then set includeSuperClass to false.
-
-        boolean includeSuperClass = klass.getClassLoader() != null;
-
-        Method[] methods = includeSuperClass ? klass.getMethods() : klass
-                .getDeclaredMethods();
-        for (Method method : methods) {
-            try {
-                if (Modifier.isPublic(method.getModifiers())) {
-                    String name = method.getName();
-                    String key = "";
-                    if (name.startsWith("get")) {
-                        if ("getClass".equals(name)
-                                || "getDeclaringClass".equals(name)) {
-                            key = "";
-                        } else {
-                            key = name.substring(3);
-                        }
-                    } else if (name.startsWith("is")) {
-                        key = name.substring(2);
-                    }
-                    if (key.length() > 0
-                            && Character.isUpperCase(key.charAt(0))
-                            && method.getParameterTypes().length == 0) {
-                        if (key.length() == 1) {
-                            key = key.toLowerCase();
-                        } else if (!Character.isUpperCase(key.charAt(1))) {
-                            key = key.substring(0, 1).toLowerCase()
-                                    + key.substring(1);
-                        }
+    /**
+     * Get the value of a key as it is kept, which for a lazy JSONObject may
+     * be a value that has not been parsed yet. Writers use it to copy such
+     * values as they are.
+     *
+     * @param key A key string.
+     * @return The value, or null if there is none.
+     */
+    Object peek(String key) {
+        return this.map.peek(key);
+    }
 
-                        Object result = method.invoke(bean, (Object[]) null);
-                        if (result != null) {
-                            this.map.put(key, wrap(result));
-                        }
-                    }
-                }
-            } catch (Exception ignore) {
-            }
+    private void populateMap(Object bean) {
+        JSONCodec<Object> codec = JSONType.of(bean.getClass()).codec;
+        if (codec != null) {
+            codec.populate(bean, this);
+        } else {
+            JSONBean.of(bean.getClass()).populate(bean, this.map);
         }
     }
 
@@ -825,7 +835,13 @@ public class JSONObject extends JSONBase<String> {
      * @return A String correctly formatted for insertion in a JSON text.
      */
     public static String quote(String string) {
-        StringWriter sw = new StringWriter();
+        if (string == null || string.length() == 0) {
+            return "\"\"";
+        }
+        if (escapeIndex(string, 0) == string.length()) {
+            return "\"" + string + "\"";
+        }
+        StringWriter sw = new StringWriter(string.length() + 16);
         synchronized (sw.getBuffer()) {
             try {
                 return quote(string, sw).toString();
@@ -842,48 +858,83 @@ public class JSONObject extends JSONBase<String> {
             return w;
         }
 
-        char b;
-        char c = 0;
+// Runs of characters that need no escaping are written in one piece.
 
+        final int length = string.length();
+        int start = 0;
+        int i = escapeIndex(string, 0);
         w.write('"');
-        for (int i = 0; i < string.length(); i++) {
-            b = c;
-            c = string.charAt(i);
-            switch (c) {
-            case '\\':
-            case '"':
-                w.write('\\');
-                w.write(c);
-                break;
-            case '/':
-                if (b == '<') {
-                    w.write('\\');
-                }
+        while (i < length) {
+            char c = string.charAt(i);
+            w.write(string, start, i - start);
+            w.write('\\');
+            if (c == '\\' || c == '"' || c == '/') {
                 w.write(c);
-                break;
-            case '\b':
-            case '\t':
-            case '\n':
-            case '\f':
-            case '\r':
-                w.write(c);
-                break;
-            default:
-                if (c < ' ' || (c >= '\u0080' && c < '\u00a0')
-                        || (c >= '\u2000' && c < '\u2100')) {
-                    w.write("\\u");
-                    String hhhh = Integer.toHexString(c);
-                    w.write("0000", 0, 4 - hhhh.length());
-                    w.write(hhhh);
-                } else {
-                    w.write(c);
-                }
+            } else {
+                w.write('u');
+                String hhhh = Integer.toHexString(c);
+                w.write("0000", 0, 4 - hhhh.length());
+                w.write(hhhh);
             }
+            start = i + 1;
+            i = escapeIndex(string, start);
         }
+        w.write(string, start, length - start);
         w.write('"');
         return w;
     }
 
+    /**
+     * Find the next character of a string that quote has to escape: a quote
+     * or backslash, the slash in &lt;/, a control character other than
+     * \b, \t, \n, \f, and \r, or a character in the ranges U+0080 to
+     * U+009F and U+2000 to U+20FF.
+     *
+     * @param string
+     *            A String.
+     * @param from
+     *            The index to start looking at.
+     * @return The index of the character, or the length of the string if
+     *         there is none.
+     */
+    static int escapeIndex(String string, int from) {
+        return escapeIndex(string, from, false);
+    }
+
+    /**
+     * Find the next character of a string that quote has to escape, and
+     * also, if lineBreaks is true, the next \n or \r.
+     *
+     * @param string
+     *            A String.
+     * @param from
+     *            The index to start looking at.
+     * @param lineBreaks
+     *            Whether line breaks are escaped.
+     * @return The index of the character, or the length of the string if
+     *         there is none.
+     */
+    static int escapeIndex(String string, int from, boolean lineBreaks) {
+        final int length = string.length();
+        for (int i = from; i < length; i++) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\'
+                    || (c == '/' && i > 0 && string.charAt(i - 1) == '<')) {
+                return i;
+            }
+            if (c < ' ') {
+                if (c == '\n' || c == '\r' ? lineBreaks
+                        : c != '\b' && c != '\t' && c != '\f') {
+                    return i;
+                }
+            } else if (c >= '\u0080' && (c < '\u00a0'
+                    || (c >= '\u2000' && c < '\u2100'))) {
+                return i;
+            }
+        }
+        return length;
+    }
+
     /**
      * Remove a name and its value, if present.
      *
@@ -968,6 +1019,24 @@ public class JSONObject extends JSONBase<String> {
         }
     }
 
+    /**
+     * Make an instance of a class from the members of this JSONObject, by
+     * calling its public no-argument constructor and then the setters that
+     * match the keys, or, for a record, its canonical constructor. Nested
+     * objects and arrays are converted to the types of the setters. Keys
+     * that have no setter are ignored.
+     *
+     * @param klass
+     *            The class to make.
+     * @return A new instance of the class.
+     * @throws JSONException
+     *             If the class cannot be instantiated, or a value cannot be
+     *             converted to the type of its setter.
+     */
+    public <T> T toBean(Class<T> klass) throws JSONException {
+        return klass.cast(JSONBinder.of(klass).bind(this));
+    }
+
     /**
      * Produce a JSONArray containing the values of the members of this
      * JSONObject.
@@ -1038,6 +1107,16 @@ public class JSONObject extends JSONBase<String> {
         if (NULL.equals(value)) {
             return "null";
         }
+        JSONCodec<Object> codec = JSONType.of(value.getClass()).codec;
+        if (codec != null) {
+            StringWriter sw = new StringWriter();
+            try {
+                codec.write(value, sw, 0, 0);
+            } catch (IOException e) {
+                throw new JSONException(e);
+            }
+            return sw.toString();
+        }
         if (value instanceof JSONString) {
             String object;
             try {
@@ -1090,38 +1169,27 @@ public class JSONObject extends JSONBase<String> {
             if (object == null) {
                 return NULL;
             }
-            if (object instanceof JSONObject || object instanceof JSONArray
-                    || NULL.equals(object) || object instanceof JSONString
-                    || object instanceof Byte || object instanceof Character
-                    || object instanceof Short || object instanceof Integer
-                    || object instanceof Long || object instanceof Boolean
-                    || object instanceof Float || object instanceof Double
-                    || object instanceof String) {
+            JSONType type = JSONType.of(object.getClass());
+            switch (type.wrap) {
+            case JSONType.AS_IS:
                 return object;
-            }
-
-            if (object instanceof Collection) {
+            case JSONType.COLLECTION:
                 @SuppressWarnings("unchecked")
-                Collection<Object> cast = (Collection<Object>) object;
-                return new JSONArray(cast);
-            }
-            if (object.getClass().isArray()) {
+                Collection<Object> collection = (Collection<Object>) object;
+                return new JSONArray(collection);
+            case JSONType.JAVA_ARRAY:
                 return new JSONArray(object);
-            }
-            if (object instanceof Map) {
+            case JSONType.MAP:
                 @SuppressWarnings("unchecked")
-                Map<String, Object> cast = (Map<String, Object>) object;
-                return new JSONObject(cast);
-            }
-            Package objectPackage = object.getClass().getPackage();
-            String objectPackageName = objectPackage != null ? objectPackage
-                    .getName() : "";
-            if (objectPackageName.startsWith("java.")
-                    || objectPackageName.startsWith("javax.")
-                    || object.getClass().getClassLoader() == null) {
+                Map<String, Object> map = (Map<String, Object>) object;
+                return new JSONObject(map);
+            case JSONType.CODEC:
+                return type.codec.toJSON(object);
+            case JSONType.TO_STRING:
                 return object.toString();
+            default:
+                return new JSONObject(object);
             }
-            return new JSONObject(object);
         } catch (Exception exception) {
             return null;
         }
@@ -1129,27 +1197,52 @@ public class JSONObject extends JSONBase<String> {
 
     static Writer writeValue(Writer writer, Object value,
             int indentFactor, int indent) throws JSONException, IOException {
-        if (NULL.equals(value)) {
+        if (value == null) {
+            writer.write("null");
+            return writer;
+        }
+        JSONType type = JSONType.of(value.getClass());
+        switch (type.write) {
+        case JSONType.NULL:
             writer.write("null");
-        } else if (value instanceof JSONObject) {
+            break;
+        case JSONType.OBJECT:
             ((JSONObject) value).write(writer, indentFactor, indent);
-        } else if (value instanceof JSONArray) {
+            break;
+        case JSONType.ARRAY:
             ((JSONArray) value).write(writer, indentFactor, indent);
-        } else if (value instanceof Map) {
+            break;
+        case JSONType.MAP:
             @SuppressWarnings("unchecked")
-            Map<String, Object> cast = (Map<String, Object>) value;
-            new JSONObject(cast).write(writer, indentFactor, indent);
-        } else if (value instanceof Collection) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            new JSONObject(map).write(writer, indentFactor, indent);
+            break;
+        case JSONType.COLLECTION:
             @SuppressWarnings("unchecked")
-            Collection<Object> cast = (Collection<Object>) value;
-            new JSONArray(cast).write(writer, indentFactor, indent);
-        } else if (value.getClass().isArray()) {
+            Collection<Object> collection = (Collection<Object>) value;
+            new JSONArray(collection).write(writer, indentFactor, indent);
+            break;
+        case JSONType.JAVA_ARRAY:
             new JSONArray(value).write(writer, indentFactor, indent);
-        } else if (value instanceof Number) {
-            writer.write(numberToString((Number) value));
-        } else if (value instanceof Boolean) {
+            break;
+        case JSONType.NUMBER:
+            if (value instanceof Double) {
+                testValidity(value);
+                char[] chars = new char[DoubleFormatter.MAX_LENGTH];
+                writer.write(chars, 0,
+                        DoubleFormatter.format((Double) value, chars, 0));
+            } else {
+                writer.write(numberToString((Number) value));
+            }
+            break;
+        case JSONType.BOOLEAN:
             writer.write(value.toString());
-        } else if (value instanceof JSONString) {
+            break;
+        case JSONType.JSON_STRING:
+            if (value instanceof JSONRaw) {
+                ((JSONRaw) value).write(writer, indentFactor, indent);
+                break;
+            }
             Object o;
             try {
                 o = ((JSONString) value).toJSONString();
@@ -1157,7 +1250,11 @@ public class JSONObject extends JSONBase<String> {
                 throw new JSONException(e);
             }
             writer.write(o != null ? o.toString() : quote(value.toString()));
-        } else {
+            break;
+        case JSONType.CODEC:
+            type.codec.write(value, writer, indentFactor, indent);
+            break;
+        default:
             quote(value.toString(), writer);
         }
         return writer;
@@ -1189,12 +1286,12 @@ public class JSONObject extends JSONBase<String> {
 
             if (length == 1) {
                 String key = keys.next();
-                writer.write(quote(key));
+                quote(key, writer);
                 writer.write(':');
                 if (indentFactor > 0) {
                     writer.write(' ');
                 }
-                writeValue(writer, this.map.get(key), indentFactor, indent);
+                writeValue(writer, this.map.peek(key), indentFactor, indent);
             } else if (length != 0) {
                 final int newindent = indent + indentFactor;
                 while (keys.hasNext()) {
@@ -1206,12 +1303,12 @@ public class JSONObject extends JSONBase<String> {
                         writer.write('\n');
                     }
                     indent(writer, newindent);
-                    writer.write(quote(key));
+                    quote(key, writer);
                     writer.write(':');
                     if (indentFactor > 0) {
                         writer.write(' ');
                     }
-                    writeValue(writer, this.map.get(key), indentFactor,
+                    writeValue(writer, this.map.peek(key), indentFactor,
                             newindent);
                     commanate = true;
                 }
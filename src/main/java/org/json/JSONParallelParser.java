@@ -0,0 +1,456 @@
+package org.json;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A JSONParallelParser parses a large UTF-8 text on several threads at once.
+ * The text is cut into pieces on record boundaries, the pieces are parsed
+ * separately with {@link UTF8Tokener}s, and the results are put back
+ * together in order.
+ * <p>
+ * For newline-delimited JSON, the pieces are cut at newlines, and the
+ * records come out as an ordered parallel Stream. This relies on records not
+ * holding raw newlines, which {@link JSONLineWriter} ensures. For a JSON
+ * array, a quick scan of the text finds commas between the elements of the
+ * array itself, and the pieces are cut there and parsed on a ForkJoinPool.
+ * <p>
+ * Small texts are not worth cutting up, and are parsed on the calling
+ * thread. Positions in syntax errors are counted from the start of the text,
+ * as if it had been parsed in one piece.
+ *
+ * @author kuporific
+ */
+public class JSONParallelParser {
+
+    /**
+     * The smallest piece of text that is parsed on its own.
+     */
+    private static final int PIECE = 64 * 1024;
+
+    /**
+     * The largest piece of a file that is mapped at once.
+     */
+    private static final long MAPPING = Integer.MAX_VALUE;
+
+    /**
+     * Parse a JSON array on the common ForkJoinPool.
+     *
+     * @param bytes UTF-8 encoded JSON text that begins with <code>[</code>.
+     * @return A JSONArray, the same as new JSONArray(new UTF8Tokener(bytes))
+     *         would make.
+     * @throws JSONException If there is a syntax error.
+     */
+    public static JSONArray parseArray(byte[] bytes) throws JSONException {
+        return parseArray(ByteBuffer.wrap(bytes), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parse the remaining bytes of a ByteBuffer as a JSON array on the common
+     * ForkJoinPool. The buffer's position is not changed.
+     *
+     * @param byteBuffer UTF-8 encoded JSON text that begins with
+     *        <code>[</code>.
+     * @return A JSONArray.
+     * @throws JSONException If there is a syntax error.
+     */
+    public static JSONArray parseArray(ByteBuffer byteBuffer)
+            throws JSONException {
+        return parseArray(byteBuffer, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parse the remaining bytes of a ByteBuffer as a JSON array. The elements
+     * are parsed in pieces on a ForkJoinPool, about four pieces for each
+     * thread. A pool with only one thread parses the whole array itself. The
+     * buffer's position is not changed, and it must not be changed while it
+     * is being parsed.
+     *
+     * @param byteBuffer UTF-8 encoded JSON text that begins with
+     *        <code>[</code>.
+     * @param pool The pool to parse on.
+     * @return A JSONArray.
+     * @throws JSONException If there is a syntax error. If there are several,
+     *         the first one in the text is thrown.
+     */
+    public static JSONArray parseArray(ByteBuffer byteBuffer, ForkJoinPool pool)
+            throws JSONException {
+        ByteBuffer text = text(byteBuffer);
+        int pieces = Math.min(pool.getParallelism() * 4,
+                text.limit() / PIECE);
+        int[] bounds = pieces < 2 || pool.getParallelism() < 2 ? null
+                : split(text, pieces);
+        if (bounds == null) {
+            return new JSONArray(new UTF8Tokener(text));
+        }
+        Pieces task = new Pieces(text, bounds, 0, bounds.length - 1);
+        pool.invoke(task);
+        for (JSONException error : task.errors) {
+            if (error != null) {
+                throw error;
+            }
+        }
+        JSONArray result = task.results[0];
+        for (int i = 1; i < task.results.length; i++) {
+            JSONArray piece = task.results[i];
+            for (int j = 0; j < piece.length(); j++) {
+                result.put(piece.get(j));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get an ordered parallel Stream of the records in newline-delimited
+     * JSON, which must be objects. The records are parsed as the stream is
+     * consumed. A parallel stream runs on the common ForkJoinPool, unless
+     * its terminal operation is started from a task in another pool.
+     *
+     * @param bytes UTF-8 encoded newline-delimited JSON text.
+     * @return A Stream of JSONObjects.
+     */
+    public static Stream<JSONObject> lines(byte[] bytes) {
+        return lines(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Get an ordered parallel Stream of the records in the remaining bytes of
+     * a ByteBuffer, which hold newline-delimited JSON. The buffer's position
+     * is not changed, and it must not be changed while the stream is used.
+     * <p>
+     * A syntax error is thrown from the terminal operation of the stream.
+     * When the record was parsed on another thread, the ForkJoinPool throws
+     * a copy of the JSONException, with the tokener's exception as its
+     * cause. {@link #unwrap(RuntimeException)} finds the original.
+     *
+     * @param byteBuffer UTF-8 encoded newline-delimited JSON text.
+     * @return A Stream of JSONObjects.
+     */
+    public static Stream<JSONObject> lines(ByteBuffer byteBuffer) {
+        ByteBuffer text = text(byteBuffer);
+        return StreamSupport.stream(new Lines(text, 0, text.limit()), true);
+    }
+
+    /**
+     * Get an ordered parallel Stream of the records in a file of
+     * newline-delimited JSON, which must be objects. The file is memory
+     * mapped, in pieces of up to 2 GB that end at newlines, and positions in
+     * syntax errors are counted from the start of each piece. Syntax errors
+     * are thrown as they are from {@link #lines(ByteBuffer)}. The file must
+     * not be changed while the stream is used.
+     *
+     * @param file A file of UTF-8 encoded newline-delimited JSON text.
+     * @return A Stream of JSONObjects.
+     * @throws IOException If the file cannot be opened or mapped.
+     * @throws JSONException If a record is longer than a mapping.
+     */
+    public static Stream<JSONObject> lines(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            Stream<JSONObject> stream = Stream.<JSONObject>empty().parallel();
+            long position = 0;
+            while (position < size) {
+                ByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY,
+                        position, Math.min(MAPPING, size - position));
+                if (position + mapping.limit() < size) {
+                    int end = mapping.limit();
+                    while (end > 0 && mapping.get(end - 1) != '\n') {
+                        end -= 1;
+                    }
+                    if (end == 0) {
+                        throw new JSONException("A record at " + position
+                                + " is longer than 2 GB");
+                    }
+                    mapping.limit(end);
+                }
+                stream = Stream.concat(stream, lines(mapping));
+                position += mapping.limit();
+            }
+            return stream;
+        }
+    }
+
+    /**
+     * Find the syntax error that made a Stream of records fail. A record that
+     * fails on a thread other than the one that runs the terminal operation
+     * is rethrown as a copy made by the ForkJoinPool, with the original
+     * exception as its cause, and again for each thread it passes through.
+     *
+     * @param exception The exception thrown by the terminal operation.
+     * @return The last JSONException in the chain of causes, which is the one
+     *         the tokener threw, or null if there is none.
+     */
+    public static JSONException unwrap(RuntimeException exception) {
+        JSONException error = null;
+        for (Throwable t = exception; t != null; t = t.getCause()) {
+            if (t instanceof JSONException) {
+                error = (JSONException) t;
+            }
+        }
+        return error;
+    }
+
+    /**
+     * Get the text in the remaining bytes of a ByteBuffer, after any byte
+     * order mark, so that offsets in it are the positions that a UTF8Tokener
+     * would report.
+     */
+    private static ByteBuffer text(ByteBuffer byteBuffer) {
+        ByteBuffer text = byteBuffer.slice();
+        if (text.limit() >= 3 && text.get(0) == (byte) 0xEF
+                && text.get(1) == (byte) 0xBB && text.get(2) == (byte) 0xBF) {
+            text.position(3);
+            text = text.slice();
+        }
+        return text;
+    }
+
+    /**
+     * Find where to cut an array into pieces, at commas between its elements.
+     * The scan follows only brackets, braces and quotes; everything else is
+     * left for the parser to check.
+     *
+     * @param text The text of the array.
+     * @param pieces The number of pieces wanted.
+     * @return The offsets of the opening bracket, the commas to cut at, and
+     *         the closing bracket, or null if the text does not look like an
+     *         array that can be cut, as when it is closed with a brace.
+     */
+    private static int[] split(ByteBuffer text, int pieces) {
+        int length = text.limit();
+        int i = 0;
+        while (i < length && text.get(i) >= 0 && text.get(i) <= ' ') {
+            i += 1;
+        }
+        if (i == length || text.get(i) != '[') {
+            return null;
+        }
+        int step = (length - i) / pieces;
+        int[] bounds = new int[pieces + 1];
+        int count = 0;
+        bounds[count++] = i;
+        int next = i + step;
+        int depth = 0;
+        byte last = 0;
+        byte quote = 0;
+        for (; i < length; i++) {
+            byte b = text.get(i);
+            if (quote != 0) {
+                if (b == '\\') {
+                    i += 1;
+                } else if (b == quote) {
+                    quote = 0;
+                    last = b;
+                }
+                continue;
+            }
+            switch (b) {
+            case '"':
+            case '\'':
+// A quote only opens a string where a value or key can begin. Otherwise it
+// is part of an unquoted value.
+                if (last == '[' || last == '{' || last == ',' || last == ':'
+                        || last == ';') {
+                    quote = b;
+                }
+                break;
+            case '[':
+            case '{':
+                depth += 1;
+                break;
+            case ']':
+            case '}':
+                depth -= 1;
+                if (depth == 0) {
+                    if (b != ']' || count < 2) {
+                        return null;
+                    }
+                    bounds[count++] = i;
+                    return Arrays.copyOf(bounds, count);
+                }
+                break;
+            case ',':
+                if (depth == 1 && i >= next && count < pieces) {
+                    bounds[count++] = i;
+                    next = i + step;
+                }
+                break;
+            default:
+            }
+            if (b < 0 || b > ' ') {
+                last = b;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse the elements between two cuts in an array, the way JSONArray
+     * does. A comma at the end of a piece is followed by a cut, which is
+     * another comma, and so it is followed by a missing element, unless it is
+     * the last piece.
+     *
+     * @param x A tokener on the piece.
+     * @param last true if this is the last piece of the array.
+     * @return The elements.
+     */
+    private static JSONArray elements(JSONTokener x, boolean last)
+            throws JSONException {
+        JSONArray elements = new JSONArray();
+        for (;;) {
+            char c = x.nextClean();
+            if (c == 0) {
+                if (!last) {
+                    elements.put(JSONObject.NULL);
+                }
+                return elements;
+            }
+            x.back();
+            if (c == ',') {
+                elements.put(JSONObject.NULL);
+            } else {
+                elements.put(x.nextValue());
+            }
+            c = x.nextClean();
+            if (c == 0) {
+                return elements;
+            }
+            if (c != ',') {
+                throw x.syntaxError("Expected a ',' or ']'");
+            }
+        }
+    }
+
+    /**
+     * A task that parses a range of the pieces of an array, by splitting the
+     * range in half until there is one piece.
+     */
+    private static final class Pieces extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] bounds;
+        private final JSONException[] errors;
+        private final int from;
+        private final JSONArray[] results;
+        private final ByteBuffer text;
+        private final int to;
+
+        Pieces(ByteBuffer text, int[] bounds, int from, int to) {
+            this(text, bounds, new JSONArray[to - from],
+                    new JSONException[to - from], from, to);
+        }
+
+        private Pieces(ByteBuffer text, int[] bounds, JSONArray[] results,
+                JSONException[] errors, int from, int to) {
+            this.bounds = bounds;
+            this.errors = errors;
+            this.from = from;
+            this.results = results;
+            this.text = text;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new Pieces(this.text, this.bounds, this.results,
+                        this.errors, this.from, middle),
+                        new Pieces(this.text, this.bounds, this.results,
+                                this.errors, middle, this.to));
+                return;
+            }
+            int start = this.bounds[this.from] + 1;
+            int end = this.bounds[this.from + 1];
+            try {
+                this.results[this.from] = elements(
+                        new UTF8Tokener(this.text, start, end - start),
+                        this.from == this.results.length - 1);
+            } catch (JSONException exception) {
+                this.errors[this.from] = exception;
+            }
+        }
+    }
+
+    /**
+     * A Spliterator over the records of newline-delimited JSON in a range of
+     * a text. Until it starts reading, it can be split at the newline nearest
+     * the middle of its range.
+     */
+    private static final class Lines implements Spliterator<JSONObject> {
+        private final int end;
+        private int start;
+        private final ByteBuffer text;
+        private UTF8Tokener x;
+
+        Lines(ByteBuffer text, int start, int end) {
+            this.end = end;
+            this.start = start;
+            this.text = text;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL
+                    | Spliterator.IMMUTABLE;
+        }
+
+        /**
+         * Estimate the number of records by the number of bytes, which is
+         * only in proportion to it.
+         */
+        @Override
+        public long estimateSize() {
+            return this.end - this.start;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super JSONObject> action) {
+            while (this.tryAdvance(action)) {
+                // keep reading
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super JSONObject> action) {
+            if (this.x == null) {
+                this.x = new UTF8Tokener(this.text, this.start,
+                        this.end - this.start);
+            }
+            JSONObject record = JSONLineReader.nextRecord(this.x);
+            if (record == null) {
+                return false;
+            }
+            action.accept(record);
+            return true;
+        }
+
+        @Override
+        public Spliterator<JSONObject> trySplit() {
+            if (this.x != null || this.end - this.start < 2 * PIECE) {
+                return null;
+            }
+            int middle = this.start + (this.end - this.start) / 2;
+            while (middle < this.end && this.text.get(middle) != '\n') {
+                middle += 1;
+            }
+            if (middle == this.end) {
+                return null;
+            }
+            Lines prefix = new Lines(this.text, this.start, middle + 1);
+            this.start = middle + 1;
+            return prefix;
+        }
+    }
+}
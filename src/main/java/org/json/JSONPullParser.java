@@ -0,0 +1,368 @@
+package org.json;
+
+/**
+ * A JSONPullParser reads a JSON text from a {@link JSONTokener} one event at
+ * a time, instead of building the whole text as JSONObjects and JSONArrays.
+ * It accepts the same forgiving syntax as the JSONObject and JSONArray
+ * constructors, including unquoted values, elided array elements and extra
+ * commas. Only the nesting of the open objects and arrays is kept, so the
+ * memory used does not grow with the size of the text.
+ * <p>
+ * For example, this reads the <code>"id"</code> of every record and skips
+ * everything else:
+ *
+ * <pre>
+ * JSONPullParser parser = new JSONPullParser(tokener);
+ * while (parser.hasNext()) {
+ *     if (parser.next() == JSONPullParser.Event.KEY_NAME) {
+ *         if ("id".equals(parser.getString())) {
+ *             parser.next();
+ *             ids.add(parser.getNumber());
+ *         } else {
+ *             parser.skip();
+ *         }
+ *     }
+ * }
+ * </pre>
+ *
+ * @author kuporific
+ */
+public class JSONPullParser {
+
+    /**
+     * The events that a JSONPullParser reports.
+     */
+    public enum Event {
+        START_OBJECT,
+        END_OBJECT,
+        START_ARRAY,
+        END_ARRAY,
+        KEY_NAME,
+        VALUE_STRING,
+        VALUE_NUMBER,
+        VALUE_TRUE,
+        VALUE_FALSE,
+        VALUE_NULL
+    }
+
+    /**
+     * Waiting for the top level value.
+     */
+    private static final int VALUE = 0;
+
+    /**
+     * In an object, waiting for a key or the end of the object.
+     */
+    private static final int KEY = 1;
+
+    /**
+     * In an object, waiting for the value of the key just read.
+     */
+    private static final int MEMBER = 2;
+
+    /**
+     * In an array, waiting for an element or the end of the array.
+     */
+    private static final int ELEMENT = 3;
+
+    /**
+     * Waiting for a separator or the end of the enclosing object or array.
+     */
+    private static final int SEPARATOR = 4;
+
+    /**
+     * The top level value has been read.
+     */
+    private static final int DONE = 5;
+
+    private Event event;
+
+    private String key;
+
+    /**
+     * The open objects and arrays, 'o' for an object and 'a' for an array.
+     */
+    private final StringBuilder stack = new StringBuilder();
+
+    private int state;
+
+    private Object value;
+
+    private final JSONTokener x;
+
+    /**
+     * Construct a JSONPullParser that reads from a JSONTokener.
+     *
+     * @param x A JSONTokener.
+     */
+    public JSONPullParser(JSONTokener x) {
+        this.x = x;
+        this.state = VALUE;
+    }
+
+    /**
+     * Construct a JSONPullParser that reads from a JSON text.
+     *
+     * @param source A JSON text.
+     */
+    public JSONPullParser(String source) {
+        this(new JSONTokener(source));
+    }
+
+    /**
+     * Get the number of objects and arrays that are open. It goes up by one
+     * with each START event and down by one with each END event.
+     *
+     * @return The depth.
+     */
+    public int getDepth() {
+        return this.stack.length();
+    }
+
+    /**
+     * Get the current event.
+     *
+     * @return The event returned by the last call to next(), or null.
+     */
+    public Event getEvent() {
+        return this.event;
+    }
+
+    /**
+     * Get the number value of a VALUE_NUMBER event.
+     *
+     * @return A Number.
+     * @throws JSONException If the current event is not VALUE_NUMBER.
+     */
+    public Number getNumber() throws JSONException {
+        if (this.event != Event.VALUE_NUMBER) {
+            throw new JSONException("Not at a number: " + this.event);
+        }
+        return (Number) this.value;
+    }
+
+    /**
+     * Get the name of a KEY_NAME event or the text of a value event.
+     *
+     * @return A String.
+     * @throws JSONException If the current event is not a key or a value.
+     */
+    public String getString() throws JSONException {
+        if (this.event == Event.KEY_NAME) {
+            return this.key;
+        }
+        if (this.value == null) {
+            throw new JSONException("Not at a key or value: " + this.event);
+        }
+        return this.value.toString();
+    }
+
+    /**
+     * Get the value of the current event. For a value event, it is the
+     * Boolean, Number, String, or JSONObject.NULL that the JSONTokener would
+     * have produced. For a START_OBJECT or START_ARRAY event, the rest of the
+     * object or array is read and returned as a JSONObject or JSONArray, and
+     * the current event becomes its END event.
+     *
+     * @return The value.
+     * @throws JSONException
+     *             If the current event is not a value or the start of an
+     *             object or array, or if there is a syntax error.
+     */
+    public Object getValue() throws JSONException {
+        if (this.event == Event.START_OBJECT || this.event == Event.START_ARRAY) {
+            this.x.back();
+            Object tree = this.event == Event.START_OBJECT
+                    ? new JSONObject(this.x)
+                    : new JSONArray(this.x);
+            this.end();
+            return tree;
+        }
+        if (this.value == null) {
+            throw new JSONException("Not at a value: " + this.event);
+        }
+        return this.value;
+    }
+
+    /**
+     * Determine if there are more events.
+     *
+     * @return true if the top level value has not been completely read.
+     */
+    public boolean hasNext() {
+        return this.state != DONE;
+    }
+
+    /**
+     * Read the next event.
+     *
+     * @return The event.
+     * @throws JSONException
+     *             If there is a syntax error, or if there are no more events.
+     */
+    public Event next() throws JSONException {
+        char c;
+        this.value = null;
+        for (;;) {
+            switch (this.state) {
+            case VALUE:
+            case MEMBER:
+                return this.value(this.x.nextClean());
+            case KEY:
+                c = this.x.nextClean();
+                switch (c) {
+                case 0:
+                    throw this.x.syntaxError("A JSONObject text must end with '}'");
+                case '}':
+                    return this.end();
+                default:
+                    this.key = this.x.nextKey(c);
+                }
+                if (this.x.nextClean() != ':') {
+                    throw this.x.syntaxError("Expected a ':' after a key");
+                }
+                this.state = MEMBER;
+                return this.event = Event.KEY_NAME;
+            case ELEMENT:
+                c = this.x.nextClean();
+                switch (c) {
+                case ']':
+                    return this.end();
+                case ',':
+                    this.x.back();
+                    this.value = JSONObject.NULL;
+                    this.state = SEPARATOR;
+                    return this.event = Event.VALUE_NULL;
+                default:
+                    return this.value(c);
+                }
+            case SEPARATOR:
+                c = this.x.nextClean();
+                if (this.stack.charAt(this.stack.length() - 1) == 'o') {
+                    switch (c) {
+                    case ';':
+                    case ',':
+                        this.state = KEY;
+                        break;
+                    case '}':
+                        return this.end();
+                    default:
+                        throw this.x.syntaxError("Expected a ',' or '}'");
+                    }
+                } else {
+                    switch (c) {
+                    case ',':
+                        this.state = ELEMENT;
+                        break;
+                    case ']':
+                        return this.end();
+                    default:
+                        throw this.x.syntaxError("Expected a ',' or ']'");
+                    }
+                }
+                break;
+            default:
+                throw new JSONException("No more events.");
+            }
+        }
+    }
+
+    /**
+     * Read the rest of the events, reporting each of them to a handler.
+     *
+     * @param handler The JSONHandler that receives the events.
+     * @throws JSONException If there is a syntax error.
+     */
+    public void parse(JSONHandler handler) throws JSONException {
+        while (this.hasNext()) {
+            switch (this.next()) {
+            case START_OBJECT:
+                handler.startObject();
+                break;
+            case END_OBJECT:
+                handler.endObject();
+                break;
+            case START_ARRAY:
+                handler.startArray();
+                break;
+            case END_ARRAY:
+                handler.endArray();
+                break;
+            case KEY_NAME:
+                handler.key(this.key);
+                break;
+            default:
+                handler.value(this.value);
+            }
+        }
+    }
+
+    /**
+     * Skip the current object, array or member without building it. After a
+     * START_OBJECT or START_ARRAY event, the rest of the object or array is
+     * skipped, and the current event becomes its END event. After a KEY_NAME
+     * event, the member's value is skipped. Otherwise, nothing happens.
+     * Skipped objects and arrays are not checked for syntax errors.
+     *
+     * @throws JSONException If the text ends before the skipped value.
+     */
+    public void skip() throws JSONException {
+        if (this.event == Event.START_OBJECT || this.event == Event.START_ARRAY) {
+            this.x.back();
+            this.x.skipValue();
+            this.end();
+        } else if (this.event == Event.KEY_NAME && this.state == MEMBER) {
+            this.x.skipValue();
+            this.state = SEPARATOR;
+        }
+    }
+
+    /**
+     * Close the innermost object or array.
+     *
+     * @return END_OBJECT or END_ARRAY.
+     */
+    private Event end() {
+        int top = this.stack.length() - 1;
+        this.event = this.stack.charAt(top) == 'o'
+                ? Event.END_OBJECT
+                : Event.END_ARRAY;
+        this.stack.setLength(top);
+        this.state = top == 0 ? DONE : SEPARATOR;
+        return this.event;
+    }
+
+    /**
+     * Read a value.
+     *
+     * @param c The first character of the value, already consumed.
+     * @return The event for the value.
+     * @throws JSONException If there is a syntax error.
+     */
+    private Event value(char c) throws JSONException {
+        switch (c) {
+        case '{':
+            this.stack.append('o');
+            this.state = KEY;
+            return this.event = Event.START_OBJECT;
+        case '[':
+            this.stack.append('a');
+            this.state = ELEMENT;
+            return this.event = Event.START_ARRAY;
+        }
+        this.value = this.x.nextSimpleValue(c);
+        this.state = this.stack.length() == 0 ? DONE : SEPARATOR;
+        if (this.value instanceof String) {
+            this.event = Event.VALUE_STRING;
+        } else if (this.value instanceof Number) {
+            this.event = Event.VALUE_NUMBER;
+        } else if (this.value == Boolean.TRUE) {
+            this.event = Event.VALUE_TRUE;
+        } else if (this.value == Boolean.FALSE) {
+            this.event = Event.VALUE_FALSE;
+        } else {
+            this.event = Event.VALUE_NULL;
+        }
+        return this.event;
+    }
+}
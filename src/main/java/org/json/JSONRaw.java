@@ -0,0 +1,94 @@
+package org.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A JSONRaw is a value in a lazy JSONObject or JSONArray that has not been
+ * parsed yet. The JSONMap or JSONList that holds it parses it the first time
+ * it is asked for, and keeps the value instead. Until then it is written by
+ * copying its text, as a {@link JSONString}, if the text is strict JSON and
+ * it is not being indented. Otherwise it is parsed and written, so that it
+ * comes out as it would have from an eager parse, or the syntax error is
+ * thrown.
+ *
+ * @author kuporific
+ */
+final class JSONRaw implements JSONString {
+
+    /**
+     * The number of the position of the value in the index.
+     */
+    private final int k;
+
+    private final JSONLazyTokener x;
+
+    JSONRaw(JSONLazyTokener x, int k) {
+        this.k = k;
+        this.x = x;
+    }
+
+    /**
+     * Parse the value.
+     *
+     * @return The value, with any objects and arrays in it lazy as well.
+     * @throws JSONException If there is a syntax error.
+     */
+    Object parse() throws JSONException {
+        return this.x.parse(this.k);
+    }
+
+    byte[] bytes() {
+        return this.x.bytes();
+    }
+
+    int end() {
+        return this.x.end(this.k);
+    }
+
+    /**
+     * Tell whether the text can be copied as it is.
+     */
+    boolean isVerbatim() {
+        return this.x.isVerbatim(this.k);
+    }
+
+    int start() {
+        return this.x.start(this.k);
+    }
+
+    @Override
+    public String toJSONString() {
+        if (!this.isVerbatim()) {
+            return JSONObject.valueToString(this.parse());
+        }
+        int start = this.start();
+        return new String(this.bytes(), start, this.end() - start,
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write the value, by copying its text if indentFactor is 0 and the
+     * text can be copied as it is.
+     *
+     * @param writer The writer.
+     * @param indentFactor The number of spaces to add to each level of
+     *        indentation.
+     * @param indent The indentation of the top level.
+     * @throws JSONException If the value has a syntax error.
+     */
+    void write(Writer writer, int indentFactor, int indent)
+            throws JSONException, IOException {
+        if (indentFactor == 0 && this.isVerbatim()) {
+            writer.write(this.toJSONString());
+        } else {
+            JSONObject.writeValue(writer, this.parse(), indentFactor, indent);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.toJSONString();
+    }
+}
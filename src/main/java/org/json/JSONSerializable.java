@@ -0,0 +1,29 @@
+package org.json;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for {@link JSONCodecProcessor}, which generates a
+ * {@link JSONCodec} for it when it is compiled. The codec is used in place of
+ * reflection wherever an instance of the class is wrapped, written, or read
+ * with {@link JSONTokener#nextBean(Class)}. A class that was compiled
+ * without the processor has no codec, and is converted by reflection instead.
+ * <p>
+ * The generated codec is named after the binary name of the class, with the
+ * names of any enclosing classes joined by '$' as they are in class files,
+ * followed by "JSONCodec", in the same package: the codec of
+ * <code>Outer.Inner</code> is <code>Outer$InnerJSONCodec</code>. A generic
+ * class is handled with wildcards, so the codec of <code>Box&lt;T&gt;</code>
+ * is a <code>JSONCodec&lt;Box&lt;?&gt;&gt;</code>.
+ *
+ * @author kuporific
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface JSONSerializable {
+}
@@ -0,0 +1,89 @@
+package org.json;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A JSONTextHandler is a {@link JSONHandler} that writes what it is told
+ * about to a Writer as compact JSON text, as it goes. Unlike
+ * {@link JSONWriter}, it does not remember the keys of the open objects, so
+ * it does not use memory for them and does not reject repeated keys. Text
+ * with repeated keys, such as {@link XML#parse(String, JSONHandler)} reports
+ * for repeated elements, is not accepted by the JSONObject constructor.
+ *
+ * @author kuporific
+ */
+public class JSONTextHandler implements JSONHandler {
+
+    private boolean comma;
+
+    private final Writer writer;
+
+    /**
+     * Construct a JSONTextHandler that writes to a Writer.
+     *
+     * @param writer The Writer that receives the JSON text.
+     */
+    public JSONTextHandler(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void startObject() {
+        this.write(this.comma ? ",{" : "{");
+        this.comma = false;
+    }
+
+    @Override
+    public void endObject() {
+        this.write("}");
+        this.comma = true;
+    }
+
+    @Override
+    public void startArray() {
+        this.write(this.comma ? ",[" : "[");
+        this.comma = false;
+    }
+
+    @Override
+    public void endArray() {
+        this.write("]");
+        this.comma = true;
+    }
+
+    @Override
+    public void key(String key) {
+        try {
+            if (this.comma) {
+                this.writer.write(',');
+            }
+            JSONObject.quote(key, this.writer);
+            this.writer.write(':');
+            this.comma = false;
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    @Override
+    public void value(Object value) {
+        try {
+            if (this.comma) {
+                this.writer.write(',');
+            }
+            JSONObject.writeValue(this.writer, value, 0, 0);
+            this.comma = true;
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    private void write(String string) {
+        try {
+            this.writer.write(string);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+}
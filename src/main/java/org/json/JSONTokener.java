@@ -5,7 +5,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 
 /*
 Copyright (c) 2002 JSON.org
@@ -35,19 +35,50 @@ SOFTWARE.
  * A JSONTokener takes a source string and extracts characters and tokens from
  * it. It is used by the JSONObject and JSONArray constructors to parse
  * JSON source strings.
+ * <p>
+ * A JSONTokener made from a String or a char array reads the characters
+ * straight out of the array, scanning strings and whitespace in bulk. The
+ * character and line reported in syntax errors are only worked out when an
+ * error is actually made.
  * @author JSON.org
  * @version 2012-02-16
  */
 public class JSONTokener {
 
     private long    character;
+
+    /**
+     * The character and line before the last character was read, which
+     * back() goes back to.
+     */
+    private long    backCharacter;
+    private long    backLine;
+
+    /**
+     * The character read before the previous one.
+     */
+    private char    beforePrevious;
     private boolean eof;
     private long    index;
+    private JSONKeyCache keyCache;
+    private boolean lazyNumbers;
+    private JSONMap.Shape shape;
     private long    line;
     private char    previous;
     private Reader  reader;
     private boolean usePrevious;
 
+    /**
+     * The source text, or null if the characters come from the reader.
+     */
+    private final char[] buffer;
+
+    /**
+     * The offset of the next character in the buffer. Like index, it keeps
+     * counting past the end of the buffer.
+     */
+    private int     position;
+
 
     /**
      * Construct a JSONTokener from a Reader.
@@ -55,6 +86,7 @@ public class JSONTokener {
      * @param reader     A reader.
      */
     public JSONTokener(Reader reader) {
+        this.buffer = null;
         this.reader = reader.markSupported()
             ? reader
             : new BufferedReader(reader);
@@ -68,10 +100,23 @@ public class JSONTokener {
 
 
     /**
-     * Construct a JSONTokener from an InputStream.
+     * Construct a JSONTokener from an InputStream. The bytes are decoded as
+     * UTF-8, whatever the platform's default charset is. {@link UTF8Tokener}
+     * reads UTF-8 bytes without decoding them into a character stream first.
      */
     public JSONTokener(InputStream inputStream) throws JSONException {
-        this(new InputStreamReader(inputStream));
+        this(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Construct a JSONTokener for a subclass that supplies the characters
+     * itself. Such a subclass must override every method that reads
+     * characters: back, end, next, nextClean, nextString, nextUnquoted and
+     * skipTo, as well as toString.
+     */
+    JSONTokener() {
+        this.buffer = null;
     }
 
 
@@ -81,7 +126,21 @@ public class JSONTokener {
      * @param s     A source string.
      */
     public JSONTokener(String s) {
-        this(new StringReader(s));
+        this(s.toCharArray());
+    }
+
+
+    /**
+     * Construct a JSONTokener from a char array. The array is not copied, so
+     * it must not be changed while it is being parsed.
+     *
+     * @param chars The source characters.
+     */
+    public JSONTokener(char[] chars) {
+        this.buffer = chars;
+        this.eof = false;
+        this.usePrevious = false;
+        this.position = 0;
     }
 
 
@@ -91,11 +150,21 @@ public class JSONTokener {
      * the next number or identifier.
      */
     public void back() throws JSONException {
+        if (this.buffer != null) {
+            if (this.usePrevious || this.position <= 0) {
+                throw new JSONException("Stepping back two steps is not supported");
+            }
+            this.position -= 1;
+            this.usePrevious = true;
+            this.eof = false;
+            return;
+        }
         if (this.usePrevious || this.index <= 0) {
             throw new JSONException("Stepping back two steps is not supported");
         }
         this.index -= 1;
-        this.character -= 1;
+        this.character = this.backCharacter;
+        this.line = this.backLine;
         this.usePrevious = true;
         this.eof = false;
     }
@@ -140,6 +209,21 @@ public class JSONTokener {
      * @return The next character, or 0 if past the end of the source string.
      */
     public char next() throws JSONException {
+        if (this.buffer != null) {
+            boolean again = this.usePrevious;
+            this.usePrevious = false;
+            int p = this.position;
+            this.position = p + 1;
+            if (p < this.buffer.length && this.buffer[p] != 0) {
+                return this.buffer[p];
+            }
+// As on the Reader path, reading the end again after back() does not
+// set eof.
+            if (!again) {
+                this.eof = true;
+            }
+            return 0;
+        }
         int c;
         if (this.usePrevious) {
             this.usePrevious = false;
@@ -155,9 +239,12 @@ public class JSONTokener {
                 this.eof = true;
                 c = 0;
             }
+            this.beforePrevious = this.previous;
         }
         this.index += 1;
-        if (this.previous == '\r') {
+        this.backCharacter = this.character;
+        this.backLine = this.line;
+        if (this.beforePrevious == '\r') {
             this.line += 1;
             this.character = c == '\n' ? 0 : 1;
         } else if (c == '\n') {
@@ -216,12 +303,38 @@ public class JSONTokener {
      }
 
 
+    /**
+     * Make an instance of a class from the next JSON object, as
+     * {@link JSONObject#toBean(Class)} does, but without building the
+     * JSONObject. The values of keys that the class has no setter for are
+     * skipped. Unlike the JSONObject constructor, a repeated key is not
+     * rejected: its last value is the one that is kept.
+     * @param klass The class to make.
+     * @return A new instance of the class, or null if the next value is null.
+     * @throws JSONException If syntax error, if the class cannot be
+     *  instantiated, or if a value cannot be converted to the type of its
+     *  setter.
+     */
+    public <T> T nextBean(Class<T> klass) throws JSONException {
+        return klass.cast(JSONBinder.read(this, klass));
+    }
+
+
     /**
      * Get the next char in the string, skipping whitespace.
      * @throws JSONException
      * @return  A character, or 0 if there are no more characters.
      */
     public char nextClean() throws JSONException {
+        if (this.buffer != null) {
+            char[] buf = this.buffer;
+            int p = this.position;
+            while (p < buf.length && buf[p] <= ' ' && buf[p] != 0) {
+                p += 1;
+            }
+            this.position = p;
+            return this.next();
+        }
         for (;;) {
             char c = this.next();
             if (c == 0 || c > ' ') {
@@ -243,8 +356,35 @@ public class JSONTokener {
      * @throws JSONException Unterminated string.
      */
     public String nextString(char quote) throws JSONException {
+        if (this.buffer == null) {
+            return this.nextString(quote, new StringBuilder());
+        }
+
+// Most strings have no escapes, so they can be taken straight from the buffer.
+
+        int start = this.position;
+        int end = this.scanPlain(start, quote);
+        this.position = end;
+        this.usePrevious = false;
+        if (end < this.buffer.length && this.buffer[end] == quote) {
+            this.position = end + 1;
+            return new String(this.buffer, start, end - start);
+        }
+        return this.nextString(quote, new StringBuilder(end - start + 16)
+                .append(this.buffer, start, end - start));
+    }
+
+
+    /**
+     * Finish a string that could not be taken from the buffer in one run.
+     * @param quote The quoting character.
+     * @param sb    The characters of the string read so far.
+     * @return      A String.
+     * @throws JSONException Unterminated string.
+     */
+    private String nextString(char quote, StringBuilder sb)
+            throws JSONException {
         char c;
-        StringBuilder sb = new StringBuilder();
         for (;;) {
             c = this.next();
             switch (c) {
@@ -253,35 +393,7 @@ public class JSONTokener {
             case '\r':
                 throw this.syntaxError("Unterminated string");
             case '\\':
-                c = this.next();
-                switch (c) {
-                case 'b':
-                    sb.append('\b');
-                    break;
-                case 't':
-                    sb.append('\t');
-                    break;
-                case 'n':
-                    sb.append('\n');
-                    break;
-                case 'f':
-                    sb.append('\f');
-                    break;
-                case 'r':
-                    sb.append('\r');
-                    break;
-                case 'u':
-                    sb.append((char)Integer.parseInt(this.next(4), 16));
-                    break;
-                case '"':
-                case '\'':
-                case '\\':
-                case '/':
-                    sb.append(c);
-                    break;
-                default:
-                    throw this.syntaxError("Illegal escape.");
-                }
+                this.nextEscape(sb);
                 break;
             default:
                 if (c == quote) {
@@ -289,7 +401,74 @@ public class JSONTokener {
                 }
                 sb.append(c);
             }
+            if (this.buffer != null) {
+                int start = this.position;
+                int end = this.scanPlain(start, quote);
+                sb.append(this.buffer, start, end - start);
+                this.position = end;
+            }
+        }
+    }
+
+
+    /**
+     * Read the rest of a backslash escape sequence, the backslash having
+     * already been consumed, and append the character it stands for.
+     * @param sb The string being built.
+     * @throws JSONException Illegal escape.
+     */
+    void nextEscape(StringBuilder sb) throws JSONException {
+        char c = this.next();
+        switch (c) {
+        case 'b':
+            sb.append('\b');
+            break;
+        case 't':
+            sb.append('\t');
+            break;
+        case 'n':
+            sb.append('\n');
+            break;
+        case 'f':
+            sb.append('\f');
+            break;
+        case 'r':
+            sb.append('\r');
+            break;
+        case 'u':
+            sb.append((char)Integer.parseInt(this.next(4), 16));
+            break;
+        case '"':
+        case '\'':
+        case '\\':
+        case '/':
+            sb.append(c);
+            break;
+        default:
+            throw this.syntaxError("Illegal escape.");
+        }
+    }
+
+
+    /**
+     * Find the end of a run of string characters in the buffer that need no
+     * special handling.
+     * @param from  The offset to start scanning at.
+     * @param quote The quoting character.
+     * @return The offset of the first quote, backslash, line end or NUL, or
+     *  the length of the buffer.
+     */
+    private int scanPlain(int from, char quote) {
+        char[] buf = this.buffer;
+        int i = from;
+        while (i < buf.length) {
+            char c = buf[i];
+            if (c == quote || c == '\\' || c == '\n' || c == '\r' || c == 0) {
+                break;
+            }
+            i += 1;
         }
+        return i;
     }
 
 
@@ -346,12 +525,8 @@ public class JSONTokener {
      */
     public Object nextValue() throws JSONException {
         char c = this.nextClean();
-        String string;
 
         switch (c) {
-            case '"':
-            case '\'':
-                return this.nextString(c);
             case '{':
                 this.back();
                 return new JSONObject(this);
@@ -359,28 +534,337 @@ public class JSONTokener {
                 this.back();
                 return new JSONArray(this);
         }
+        return this.nextSimpleValue(c);
+    }
+
+
+    /**
+     * Get the next value of a member of an object or an element of an array.
+     * It is the same as nextValue, except in a tokener that leaves values to
+     * be parsed later.
+     * @return An object.
+     * @throws JSONException If syntax error.
+     */
+    Object nextMemberValue() throws JSONException {
+        return this.nextValue();
+    }
+
+
+    /**
+     * Get the next value that is not an object or an array. The value can be
+     * a Boolean, Double, Integer, JSONNumber, Long, or String, or the
+     * JSONObject.NULL object.
+     * @param c The first character of the value, already consumed.
+     * @return An object.
+     * @throws JSONException If syntax error.
+     */
+    Object nextSimpleValue(char c) throws JSONException {
+        switch (c) {
+            case '"':
+            case '\'':
+                return this.nextString(c);
+        }
 
         /*
          * Handle unquoted text. This could be the values true, false, or
          * null, or it can be a number. An implementation (such as this one)
          * is allowed to also accept non-standard forms.
          *
-         * Accumulate characters until we reach the end of the text or a
-         * formatting character.
+         * A plain number is converted where it lies. Otherwise, accumulate
+         * characters until we reach the end of the text or a formatting
+         * character.
          */
 
-        StringBuilder sb = new StringBuilder();
-        while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+        if (!this.lazyNumbers && ((c >= '0' && c <= '9') || c == '-')) {
+            Object number = this.nextNumber(c);
+            if (number != null) {
+                return number;
+            }
+        }
+        String string = this.nextUnquoted(c);
+        if (string.isEmpty()) {
+            throw this.syntaxError("Missing value");
+        }
+        if (this.lazyNumbers && JSONNumber.isNumber(string)) {
+            return new JSONNumber(string);
+        }
+        return JSONObject.stringToValue(string);
+    }
+
+
+    /**
+     * Get the next key of an object. If a key cache is set, equal keys come
+     * back as the same String.
+     * @param c The first character of the key, already consumed.
+     * @return The key.
+     * @throws JSONException If syntax error.
+     */
+    String nextKey(char c) throws JSONException {
+        if (this.keyCache != null && (c == '"' || c == '\'')) {
+            String key = this.nextCachedKey(this.keyCache, c);
+            if (key != null) {
+                return key;
+            }
+        }
+        this.back();
+        String key = this.nextValue().toString();
+        return this.keyCache == null ? key : this.keyCache.intern(key);
+    }
+
+
+    /**
+     * Get the rest of a quoted key from the key cache, if it can be found
+     * without unescaping it. If it cannot, nothing is consumed.
+     * @param cache The key cache.
+     * @param quote The quoting character, already consumed.
+     * @return The key, or null.
+     */
+    String nextCachedKey(JSONKeyCache cache, char quote) {
+        if (this.buffer == null) {
+            return null;
+        }
+        int start = this.position;
+        int end = this.scanPlain(start, quote);
+        if (end == this.buffer.length || this.buffer[end] != quote) {
+            return null;
+        }
+        this.position = end + 1;
+        this.usePrevious = false;
+        return cache.intern(this.buffer, start, end - start);
+    }
+
+
+    /**
+     * Get the root of the shapes shared by the objects that are read with
+     * this tokener.
+     * @return The root shape.
+     */
+    JSONMap.Shape shape() {
+        if (this.shape == null) {
+            this.shape = new JSONMap.Shape();
+        }
+        return this.shape;
+    }
+
+
+    /**
+     * Let go of the shapes once their root has made all the shapes it may,
+     * so that the objects read next grow new shapes from their own keys.
+     * This is called between records, when no object is being read.
+     */
+    void renewShapes() {
+        if (this.shape != null && this.shape.isSpent()) {
+            this.shape = null;
+        }
+    }
+
+
+    /**
+     * Set a cache of keys, so that equal keys in the objects that are read
+     * share one String.
+     * @param keyCache A JSONKeyCache, or null for no caching.
+     */
+    public void setKeyCache(JSONKeyCache keyCache) {
+        this.keyCache = keyCache;
+    }
+
+
+    /**
+     * Choose whether numbers are read as {@link JSONNumber}s, which keep the
+     * text of the number and only convert it when its value is asked for,
+     * instead of as Integers, Longs, and Doubles. It is off by default.
+     * @param lazyNumbers true to read numbers as JSONNumbers.
+     */
+    public void setLazyNumbers(boolean lazyNumbers) {
+        this.lazyNumbers = lazyNumbers;
+    }
+
+
+    /**
+     * Skip past the next value without building it. Objects and arrays are
+     * skipped by matching up their brackets, so their contents are not
+     * checked for syntax errors. Within them, strings and unquoted values are
+     * told apart as nextValue tells them apart, so that a quote inside an
+     * unquoted value does not open a string.
+     * @throws JSONException If the value is missing or not terminated.
+     */
+    void skipValue() throws JSONException {
+        char c = this.nextClean();
+        switch (c) {
+        case '"':
+        case '\'':
+            this.skipString(c);
+            return;
+        case '{':
+        case '[':
+            break;
+        default:
+            if (endsUnquoted(c)) {
+                throw this.syntaxError("Missing value");
+            }
+            this.skipUnquoted(c);
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            c = this.nextClean();
+            switch (c) {
+            case 0:
+                throw this.syntaxError("Unterminated object or array");
+            case '"':
+            case '\'':
+                this.skipString(c);
+                break;
+            case '{':
+            case '[':
+                depth += 1;
+                break;
+            case '}':
+            case ']':
+                depth -= 1;
+                break;
+            default:
+                if (!endsUnquoted(c)) {
+                    this.skipUnquoted(c);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Skip past the rest of an unquoted value, which may hold spaces and
+     * single quotes, up to the character that ends it.
+     * @param c The first character of the value, already consumed.
+     */
+    private void skipUnquoted(char c) {
+        while (!endsUnquoted(c)) {
+            c = this.next();
+        }
+        this.back();
+    }
+
+
+    /**
+     * Skip past the characters up to and including the next close quote
+     * character, without building a String.
+     * @param quote The quoting character.
+     * @throws JSONException Unterminated string.
+     */
+    void skipString(char quote) throws JSONException {
+        for (;;) {
+            if (this.buffer != null) {
+                this.position = this.scanPlain(this.position, quote);
+            }
+            char c = this.next();
+            if (c == quote) {
+                return;
+            }
+            switch (c) {
+            case 0:
+            case '\n':
+            case '\r':
+                throw this.syntaxError("Unterminated string");
+            case '\\':
+                this.next();
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * Get the rest of an unquoted value.
+     * @param c The first character of the value, already consumed.
+     * @return The text of the value, trimmed.
+     * @throws JSONException
+     */
+    String nextUnquoted(char c) throws JSONException {
+        if (this.buffer != null) {
+            int start = this.position - 1;
+            int end = start;
+            while (end < this.buffer.length && !endsUnquoted(this.buffer[end])) {
+                end += 1;
+            }
+            this.position = end;
+            this.usePrevious = true;
+            this.eof = false;
+            return new String(this.buffer, start, end - start).trim();
+        }
+        return this.nextUnquoted(c, new StringBuilder());
+    }
+
+
+    /**
+     * Get the rest of an unquoted value as a number, if it is a plain number,
+     * without making a string of it. If it is not, nothing is consumed.
+     * @param c The first character of the value, already consumed.
+     * @return An Integer, Long, or Double, or null.
+     */
+    Object nextNumber(char c) {
+        if (this.buffer == null) {
+            return null;
+        }
+        int start = this.position - 1;
+        int end = this.position;
+        while (end < this.buffer.length && !endsUnquoted(this.buffer[end])) {
+            end += 1;
+        }
+        int last = end;
+        while (this.buffer[last - 1] == ' ') {
+            last -= 1;
+        }
+        Object number = NumberParser.parse(this.buffer, start, last);
+        if (number != null) {
+            this.position = end;
+            this.usePrevious = true;
+            this.eof = false;
+        }
+        return number;
+    }
+
+
+    /**
+     * Get the rest of an unquoted value one character at a time.
+     * @param c  The next character of the value, already consumed.
+     * @param sb The characters of the value read before c.
+     * @return The text of the value, trimmed.
+     * @throws JSONException
+     */
+    String nextUnquoted(char c, StringBuilder sb) throws JSONException {
+        while (!endsUnquoted(c)) {
             sb.append(c);
             c = this.next();
         }
         this.back();
+        return sb.toString().trim();
+    }
 
-        string = sb.toString().trim();
-        if (string.isEmpty()) {
-            throw this.syntaxError("Missing value");
+
+    /**
+     * Determine if a character ends unquoted text.
+     * @param c A character.
+     * @return true if c is a control character or one of
+     *  <code>, : ] } / \ " [ { ; = #</code>.
+     */
+    static boolean endsUnquoted(char c) {
+        switch (c) {
+        case ',':
+        case ':':
+        case ']':
+        case '}':
+        case '/':
+        case '\\':
+        case '"':
+        case '[':
+        case '{':
+        case ';':
+        case '=':
+        case '#':
+            return true;
+        default:
+            return c < ' ';
         }
-        return JSONObject.stringToValue(string);
     }
 
 
@@ -393,10 +877,23 @@ public class JSONTokener {
      */
     public char skipTo(char to) throws JSONException {
         char c;
+        if (this.buffer != null) {
+            int start = this.position;
+            do {
+                c = this.next();
+                if (c == 0) {
+                    this.position = start;
+                    return c;
+                }
+            } while (c != to);
+            this.back();
+            return c;
+        }
         try {
             long startIndex = this.index;
             long startCharacter = this.character;
             long startLine = this.line;
+            char startPrevious = this.previous;
             this.reader.mark(1000000);
             do {
                 c = this.next();
@@ -405,6 +902,7 @@ public class JSONTokener {
                     this.index = startIndex;
                     this.character = startCharacter;
                     this.line = startLine;
+                    this.previous = startPrevious;
                     return c;
                 }
             } while (c != to);
@@ -434,7 +932,39 @@ public class JSONTokener {
      * @return " at {index} [character {character} line {line}]"
      */
     public String toString() {
+        if (this.buffer != null) {
+            this.locate();
+        }
         return " at " + this.index + " [character " + this.character + " line " +
             this.line + "]";
     }
+
+
+    /**
+     * Work out the index, character and line of the buffer position. A '\r',
+     * a '\n', or a "\r\n" pair ends a line, and is counted once however
+     * many times back() steps over it, the same as when reading from a
+     * reader.
+     */
+    private void locate() {
+        long character = 1;
+        long line = 1;
+        char previous = 0;
+        for (int i = 0; i < this.position; i++) {
+            char c = i < this.buffer.length ? this.buffer[i] : 0;
+            if (previous == '\r') {
+                line += 1;
+                character = c == '\n' ? 0 : 1;
+            } else if (c == '\n') {
+                line += 1;
+                character = 0;
+            } else {
+                character += 1;
+            }
+            previous = c;
+        }
+        this.index = this.position;
+        this.character = character;
+        this.line = line;
+    }
 }
@@ -0,0 +1,266 @@
+package org.json;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A JSONType holds what {@link JSONObject#wrap(Object)} and
+ * {@link JSONObject#writeValue} do with the instances of a class. It is
+ * worked out once per class, and kept for as long as the class is loaded, so
+ * that wrapping or writing a value costs one lookup instead of a chain of
+ * instanceof tests and a look at the name of its package.
+ * <p>
+ * The JSONType of a class also holds its JSONCodec: one registered with
+ * {@link JSONCodec#register(Class, JSONCodec)} for the class or one of its
+ * supertypes, or else one generated for a {@link JSONSerializable} class.
+ * A class with a codec is always wrapped and written through it.
+ *
+ * @author kuporific
+ */
+final class JSONType {
+
+    /**
+     * The value is JSONObject.NULL.
+     */
+    static final int NULL = 0;
+
+    /**
+     * The value is a JSONObject.
+     */
+    static final int OBJECT = 1;
+
+    /**
+     * The value is a JSONArray.
+     */
+    static final int ARRAY = 2;
+
+    /**
+     * The value is a Map, which is made into a JSONObject.
+     */
+    static final int MAP = 3;
+
+    /**
+     * The value is a Collection, which is made into a JSONArray.
+     */
+    static final int COLLECTION = 4;
+
+    /**
+     * The value is a Java array, which is made into a JSONArray.
+     */
+    static final int JAVA_ARRAY = 5;
+
+    /**
+     * The value is a Number, written as a number.
+     */
+    static final int NUMBER = 6;
+
+    /**
+     * The value is a Boolean.
+     */
+    static final int BOOLEAN = 7;
+
+    /**
+     * The value is a JSONString, written with its toJSONString.
+     */
+    static final int JSON_STRING = 8;
+
+    /**
+     * The value is converted by the codec.
+     */
+    static final int CODEC = 9;
+
+    /**
+     * The value is written as its toString, quoted.
+     */
+    static final int QUOTE = 10;
+
+    /**
+     * The value is wrapped as it is.
+     */
+    static final int AS_IS = 11;
+
+    /**
+     * The value comes from the Java platform, and is wrapped as its toString.
+     */
+    static final int TO_STRING = 12;
+
+    /**
+     * The value is a bean, which is made into a JSONObject.
+     */
+    static final int BEAN = 13;
+
+    private static final Map<Class<?>, JSONCodec<?>> REGISTERED = new ConcurrentHashMap<>();
+
+    private static final ClassValue<JSONType> TYPES = new ClassValue<JSONType>() {
+        @Override
+        protected JSONType computeValue(Class<?> klass) {
+            return new JSONType(klass);
+        }
+    };
+
+    /**
+     * The count of registrations, which marks the JSONTypes that were worked
+     * out before the last one as stale.
+     */
+    private static volatile int registrations;
+
+    /**
+     * The codec of the class, or null.
+     */
+    final JSONCodec<Object> codec;
+
+    /**
+     * What wrap does: AS_IS, MAP, COLLECTION, JAVA_ARRAY, CODEC, TO_STRING,
+     * or BEAN.
+     */
+    final int wrap;
+
+    /**
+     * What writeValue does: NULL, OBJECT, ARRAY, MAP, COLLECTION,
+     * JAVA_ARRAY, NUMBER, BOOLEAN, JSON_STRING, CODEC, or QUOTE.
+     */
+    final int write;
+
+    private final int registration;
+
+    private JSONType(Class<?> klass) {
+        this.registration = registrations;
+        this.codec = codec(klass);
+        if (this.codec != null) {
+            this.wrap = CODEC;
+            this.write = CODEC;
+            return;
+        }
+        if (JSONObject.class.isAssignableFrom(klass)
+                || JSONArray.class.isAssignableFrom(klass)
+                || klass == JSONObject.NULL.getClass()
+                || JSONString.class.isAssignableFrom(klass)
+                || klass == Byte.class || klass == Character.class
+                || klass == Short.class || klass == Integer.class
+                || klass == Long.class || klass == Boolean.class
+                || klass == Float.class || klass == Double.class
+                || klass == JSONNumber.class || klass == String.class) {
+            this.wrap = AS_IS;
+        } else if (Collection.class.isAssignableFrom(klass)) {
+            this.wrap = COLLECTION;
+        } else if (klass.isArray()) {
+            this.wrap = JAVA_ARRAY;
+        } else if (Map.class.isAssignableFrom(klass)) {
+            this.wrap = MAP;
+        } else if (klass.getName().startsWith("java.")
+                || klass.getName().startsWith("javax.")
+                || klass.getClassLoader() == null) {
+            this.wrap = TO_STRING;
+        } else {
+            this.wrap = BEAN;
+        }
+        if (klass == JSONObject.NULL.getClass()) {
+            this.write = NULL;
+        } else if (JSONObject.class.isAssignableFrom(klass)) {
+            this.write = OBJECT;
+        } else if (JSONArray.class.isAssignableFrom(klass)) {
+            this.write = ARRAY;
+        } else if (Map.class.isAssignableFrom(klass)) {
+            this.write = MAP;
+        } else if (Collection.class.isAssignableFrom(klass)) {
+            this.write = COLLECTION;
+        } else if (klass.isArray()) {
+            this.write = JAVA_ARRAY;
+        } else if (Number.class.isAssignableFrom(klass)) {
+            this.write = NUMBER;
+        } else if (klass == Boolean.class) {
+            this.write = BOOLEAN;
+        } else if (JSONString.class.isAssignableFrom(klass)) {
+            this.write = JSON_STRING;
+        } else {
+            this.write = QUOTE;
+        }
+    }
+
+    /**
+     * Get the JSONType of a class.
+     *
+     * @param klass A class.
+     * @return The JSONType, which is only worked out again after a codec has
+     *         been registered.
+     * @throws JSONException If the class is marked JSONSerializable and has
+     *         a generated codec that cannot be made.
+     */
+    static JSONType of(Class<?> klass) throws JSONException {
+        JSONType type = TYPES.get(klass);
+        if (type.registration != registrations) {
+            TYPES.remove(klass);
+            type = TYPES.get(klass);
+        }
+        return type;
+    }
+
+    /**
+     * Register a codec for a class and its subclasses, or remove it.
+     *
+     * @param klass A class.
+     * @param codec The codec, or null to remove the codec of the class.
+     */
+    static synchronized void register(Class<?> klass, JSONCodec<?> codec) {
+        if (codec == null) {
+            REGISTERED.remove(klass);
+        } else {
+            REGISTERED.put(klass, codec);
+        }
+        registrations += 1;
+    }
+
+    /**
+     * Find the codec of a class: the one registered for it or for its
+     * nearest supertype, other than Object, or else the generated one. A
+     * JSONSerializable class that was compiled without JSONCodecProcessor
+     * has no generated codec, and is converted by reflection as any other
+     * bean is. A generated codec that is there but cannot be made is an
+     * error, which is thrown each time the class is looked up.
+     */
+    @SuppressWarnings("unchecked")
+    private static JSONCodec<Object> codec(Class<?> klass) {
+        if (!REGISTERED.isEmpty()) {
+            Deque<Class<?>> interfaces = new ArrayDeque<>();
+            for (Class<?> c = klass; c != null && c != Object.class;
+                    c = c.getSuperclass()) {
+                JSONCodec<?> codec = REGISTERED.get(c);
+                if (codec != null) {
+                    return (JSONCodec<Object>) codec;
+                }
+                for (Class<?> i : c.getInterfaces()) {
+                    interfaces.add(i);
+                }
+            }
+            while (!interfaces.isEmpty()) {
+                Class<?> i = interfaces.remove();
+                JSONCodec<?> codec = REGISTERED.get(i);
+                if (codec != null) {
+                    return (JSONCodec<Object>) codec;
+                }
+                for (Class<?> j : i.getInterfaces()) {
+                    interfaces.add(j);
+                }
+            }
+        }
+        if (!klass.isAnnotationPresent(JSONSerializable.class)) {
+            return null;
+        }
+        String name = klass.getName() + "JSONCodec";
+        Class<?> generated;
+        try {
+            generated = Class.forName(name, true, klass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        try {
+            return (JSONCodec<Object>) generated.getConstructor().newInstance();
+        } catch (Exception e) {
+            throw new JSONException("Cannot make " + name + " for "
+                    + klass.getName() + ".", e);
+        }
+    }
+}
@@ -65,6 +65,11 @@ public class JSONWriter {
      */
     private boolean comma;
 
+    /**
+     * The characters of the last double appended, made on the first one.
+     */
+    private char[] digits;
+
     /**
      * The current mode. Values:
      * 'a' (array),
@@ -111,12 +116,30 @@ public class JSONWriter {
         if (string == null) {
             throw new JSONException("Null pointer");
         }
+        return this.append(string, null, 0);
+    }
+
+    /**
+     * Append either a string, or the first characters of an array when the
+     * string is null.
+     * @param string A string value, or null.
+     * @param chars The characters to append when the string is null.
+     * @param length The number of characters to append.
+     * @return this
+     * @throws JSONException If the value is out of sequence.
+     */
+    private JSONWriter append(String string, char[] chars, int length)
+            throws JSONException {
         if (this.mode == 'o' || this.mode == 'a') {
             try {
                 if (this.comma && this.mode == 'a') {
                     this.writer.write(',');
                 }
-                this.writer.write(string);
+                if (string != null) {
+                    this.writer.write(string);
+                } else {
+                    this.writer.write(chars, 0, length);
+                }
             } catch (IOException e) {
                 throw new JSONException(e);
             }
@@ -300,7 +323,14 @@ public class JSONWriter {
      * @throws JSONException If the number is not finite.
      */
     public JSONWriter value(double d) throws JSONException {
-        return this.value(Double.valueOf(d));
+        if (Double.isInfinite(d) || Double.isNaN(d)) {
+            throw new JSONException("JSON does not allow non-finite numbers.");
+        }
+        if (this.digits == null) {
+            this.digits = new char[DoubleFormatter.MAX_LENGTH];
+        }
+        return this.append(null, this.digits,
+                DoubleFormatter.format(d, this.digits, 0));
     }
 
     /**
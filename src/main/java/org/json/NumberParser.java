@@ -0,0 +1,300 @@
+package org.json;
+
+import java.math.BigInteger;
+
+/**
+ * NumberParser converts the text of a number straight to an Integer, Long, or
+ * Double, without making a String first. It is used by the tokeners to read
+ * numbers out of their buffers. The digits are accumulated in a long, and a
+ * decimal number is converted with the Eisel-Lemire algorithm, which gives
+ * the correctly rounded double in almost all cases with a single 128-bit
+ * multiplication.
+ * <p>
+ * Only the plain number syntax is handled. Whenever a text is outside of it,
+ * or the conversion cannot be sure of the result, null is returned, and the
+ * caller falls back on {@link JSONObject#stringToValue(String)}. The values
+ * produced are always the same as stringToValue would produce.
+ *
+ * @author kuporific
+ */
+final class NumberParser {
+
+    /**
+     * The smallest power of ten in the table.
+     */
+    private static final int MIN_EXPONENT = -342;
+
+    /**
+     * The largest power of ten in the table.
+     */
+    private static final int MAX_EXPONENT = 308;
+
+    /**
+     * The powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] EXACT = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The 128-bit significands of the powers of ten from 1e-342 to 1e308,
+     * normalized so that the top bit is set and rounded down, as pairs of
+     * high and low longs.
+     */
+    private static final long[] POWERS = powers();
+
+    private NumberParser() {
+    }
+
+    /**
+     * Convert the text of a number in a char array.
+     *
+     * @param s     The characters.
+     * @param start The offset of the first character of the number.
+     * @param end   The offset just past the last character of the number.
+     * @return An Integer, Long, or Double, or null if the text cannot be
+     *         converted here.
+     */
+    static Object parse(char[] s, int start, int end) {
+        return parse(s, null, start, end);
+    }
+
+    /**
+     * Convert the text of a number in a byte array of ASCII characters.
+     *
+     * @param s     The bytes.
+     * @param start The offset of the first byte of the number.
+     * @param end   The offset just past the last byte of the number.
+     * @return An Integer, Long, or Double, or null if the text cannot be
+     *         converted here.
+     */
+    static Object parse(byte[] s, int start, int end) {
+        return parse(null, s, start, end);
+    }
+
+    /**
+     * Convert the text of a number in either a char array or a byte array,
+     * so that both are read with the same grammar.
+     *
+     * @param chars The characters, or null if the text is in bytes.
+     * @param bytes The bytes, used if chars is null.
+     * @return An Integer, Long, or Double, or null.
+     */
+    private static Object parse(char[] chars, byte[] bytes, int start,
+            int end) {
+        int i = start;
+        char c = at(chars, bytes, i, end);
+        boolean negative = c == '-';
+        if (negative) {
+            i += 1;
+            c = at(chars, bytes, i, end);
+        }
+        int first = i;
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean decimal = false;
+        for (; c >= '0' && c <= '9'; c = at(chars, bytes, ++i, end)) {
+            if (digits == 19) {
+                return null;
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (mantissa != 0) {
+                digits += 1;
+            }
+        }
+        if (i == first || (i - first > 1 && at(chars, bytes, first, end) == '0')) {
+            return null;
+        }
+        if (c == '.') {
+            decimal = true;
+            int fraction = i + 1;
+            for (c = at(chars, bytes, ++i, end); c >= '0' && c <= '9';
+                    c = at(chars, bytes, ++i, end)) {
+                if (digits == 19) {
+                    return null;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digits += 1;
+                }
+                exponent -= 1;
+            }
+            if (i == fraction) {
+                return null;
+            }
+        }
+        if (c == 'e' || c == 'E') {
+            decimal = true;
+            c = at(chars, bytes, ++i, end);
+            boolean negativeExponent = c == '-';
+            if (c == '-' || c == '+') {
+                c = at(chars, bytes, ++i, end);
+            }
+            int power = i;
+            int e = 0;
+            for (; c >= '0' && c <= '9'; c = at(chars, bytes, ++i, end)) {
+                if (e < 100000) {
+                    e = e * 10 + (c - '0');
+                }
+            }
+            if (i == power) {
+                return null;
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (i != end) {
+            return null;
+        }
+        return value(negative, mantissa, digits, exponent, decimal);
+    }
+
+    /**
+     * Get the character at an offset in whichever array holds the text, or 0
+     * at the end. A byte outside of ASCII becomes a character that no number
+     * contains.
+     */
+    private static char at(char[] chars, byte[] bytes, int i, int end) {
+        if (i >= end) {
+            return 0;
+        }
+        return chars != null ? chars[i] : (char) bytes[i];
+    }
+
+    /**
+     * Make the value of a number from its parts.
+     *
+     * @return An Integer, Long, or Double, or null.
+     */
+    private static Object value(boolean negative, long mantissa, int digits,
+            int exponent, boolean decimal) {
+        if (!decimal) {
+
+// stringToValue leaves "-0" as a string, since it does not survive a round
+// trip through Long.
+
+            if (digits > 18 || (negative && mantissa == 0)) {
+                return null;
+            }
+            long l = negative ? -mantissa : mantissa;
+            return l == (int) l ? (Object) Integer.valueOf((int) l) : Long.valueOf(l);
+        }
+        double d = toDouble(mantissa, exponent, negative);
+        return Double.isNaN(d) ? null : Double.valueOf(d);
+    }
+
+    /**
+     * Compute the double nearest to mantissa * 10^exponent.
+     *
+     * @param mantissa An unsigned mantissa.
+     * @param exponent The power of ten.
+     * @param negative true if the number is negative.
+     * @return The double, or NaN if it could not be determined here, or if it
+     *         is too large or too small to be a normal double.
+     */
+    static double toDouble(long mantissa, int exponent, boolean negative) {
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+
+// When the mantissa and the power of ten are both exact doubles, a single
+// multiplication or division is correctly rounded.
+
+        if (mantissa > 0 && mantissa <= 1L << 53
+                && exponent >= -22 && exponent <= 22) {
+            double d = exponent < 0
+                    ? mantissa / EXACT[-exponent]
+                    : mantissa * EXACT[exponent];
+            return negative ? -d : d;
+        }
+        if (exponent < MIN_EXPONENT || exponent > MAX_EXPONENT) {
+            return Double.NaN;
+        }
+
+// Eisel-Lemire: multiply the normalized mantissa by the 128-bit approximation
+// of the power of ten, and keep the top 54 bits.
+
+        int zeros = Long.numberOfLeadingZeros(mantissa);
+        long m = mantissa << zeros;
+        long exponent2 = ((217706L * exponent) >> 16) + 64 + 1023 - zeros;
+        int index = (exponent - MIN_EXPONENT) * 2;
+        long high = multiplyHigh(m, POWERS[index]);
+        long low = m * POWERS[index];
+        if ((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + m, m) < 0) {
+            long yHigh = multiplyHigh(m, POWERS[index + 1]);
+            long yLow = m * POWERS[index + 1];
+            long mergedHigh = high;
+            long mergedLow = low + yHigh;
+            if (Long.compareUnsigned(mergedLow, low) < 0) {
+                mergedHigh += 1;
+            }
+            if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow == -1
+                    && Long.compareUnsigned(yLow + m, m) < 0) {
+                return Double.NaN;
+            }
+            high = mergedHigh;
+            low = mergedLow;
+        }
+        long top = high >>> 63;
+        long significand = high >>> (top + 9);
+        exponent2 -= 1 ^ top;
+        if (low == 0 && (high & 0x1FF) == 0 && (significand & 3) == 1) {
+            return Double.NaN;
+        }
+        significand += significand & 1;
+        significand >>>= 1;
+        if (significand >>> 53 > 0) {
+            significand >>>= 1;
+            exponent2 += 1;
+        }
+        if (exponent2 <= 0 || exponent2 >= 0x7FF) {
+            return Double.NaN;
+        }
+        long bits = exponent2 << 52 | significand & 0x000FFFFFFFFFFFFFL;
+        if (negative) {
+            bits |= 0x8000000000000000L;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Get the high 64 bits of the unsigned 128-bit product of two longs.
+     */
+    static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long t = x1 * y0 + ((x0 * y0) >>> 32);
+        long w1 = (t & 0xFFFFFFFFL) + x0 * y1;
+        return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+    }
+
+    private static long[] powers() {
+        long[] powers = new long[(MAX_EXPONENT - MIN_EXPONENT + 1) * 2];
+        BigInteger power = BigInteger.ONE;
+        for (int q = 0; q <= MAX_EXPONENT; q += 1) {
+            put(powers, q, normalize(power));
+            power = power.multiply(BigInteger.TEN);
+        }
+        power = BigInteger.ONE;
+        for (int q = -1; q >= MIN_EXPONENT; q -= 1) {
+            power = power.multiply(BigInteger.TEN);
+            put(powers, q, BigInteger.ONE.shiftLeft(power.bitLength() + 127)
+                    .divide(power));
+        }
+        return powers;
+    }
+
+    private static BigInteger normalize(BigInteger power) {
+        int shift = power.bitLength() - 128;
+        return shift > 0 ? power.shiftRight(shift) : power.shiftLeft(-shift);
+    }
+
+    private static void put(long[] powers, int q, BigInteger significand) {
+        int index = (q - MIN_EXPONENT) * 2;
+        powers[index] = significand.shiftRight(64).longValue();
+        powers[index + 1] = significand.longValue();
+    }
+}
@@ -0,0 +1,885 @@
+package org.json;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A UTF8Tokener is a {@link JSONTokener} that reads UTF-8 encoded bytes
+ * directly, instead of going through a {@link java.io.Reader}. Whitespace,
+ * punctuation and unquoted values are scanned as bytes, and only the
+ * contents of strings are decoded, a whole run at a time. It can be passed
+ * anywhere a JSONTokener is expected, such as the JSONObject and JSONArray
+ * constructors.
+ * <p>
+ * A byte order mark at the start of the input is skipped. Malformed byte
+ * sequences are replaced with U+FFFD. The character position reported in
+ * syntax errors counts bytes rather than characters.
+ *
+ * @author kuporific
+ */
+public class UTF8Tokener extends JSONTokener {
+
+    /**
+     * The size of the window used when reading from a stream.
+     */
+    private static final int WINDOW = 8192;
+
+    /**
+     * The largest piece of a file that is mapped at once.
+     */
+    private static final long MAPPING = Integer.MAX_VALUE;
+
+    /**
+     * The window of input bytes. For a byte array source, it is the array
+     * itself.
+     */
+    private byte[] buffer;
+
+    /**
+     * The offset of the next byte in the buffer.
+     */
+    private int position;
+
+    /**
+     * The offset just past the last valid byte in the buffer.
+     */
+    private int limit;
+
+    /**
+     * The position in the input of buffer[0]. It may be negative when
+     * parsing part of a byte array.
+     */
+    private long origin;
+
+    /**
+     * The source of more bytes, or null if there are no more.
+     */
+    private InputStream in;
+
+    /**
+     * The low surrogate of a supplementary character whose high surrogate
+     * was just returned, or 0.
+     */
+    private char pending;
+
+    private boolean eof;
+    private char previous;
+    private boolean started;
+    private boolean usePrevious;
+
+    /**
+     * The number of times the end of the input has been read. JSONTokener
+     * counts each of them as a character.
+     */
+    private int beyond;
+
+    /**
+     * The lines in the bytes that have been dropped from the window. The
+     * rest are counted only when a position is reported.
+     */
+    private LineCount lines;
+
+    /**
+     * The whole text, when only a piece of it is being parsed, or null. The
+     * lines before the piece are counted only when a position is reported,
+     * and the lines of the piece are counted as if it started a text.
+     */
+    private ByteBuffer text;
+
+    /**
+     * The offset of the piece in the whole text.
+     */
+    private int textOffset;
+
+    /**
+     * The positions of the tokens in the buffer, for a two-stage parse, or
+     * null.
+     */
+    private JSONIndex index;
+
+    /**
+     * The number of the first position in the index that has not been
+     * passed.
+     */
+    private int cursor;
+
+    /**
+     * Construct a UTF8Tokener from a byte array. The array is not copied, so
+     * it must not be changed while it is being parsed.
+     *
+     * @param bytes UTF-8 encoded JSON text.
+     */
+    public UTF8Tokener(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Construct a UTF8Tokener from part of a byte array. The array is not
+     * copied, so it must not be changed while it is being parsed.
+     *
+     * @param bytes  UTF-8 encoded JSON text.
+     * @param offset The offset of the first byte of the text.
+     * @param length The number of bytes in the text.
+     */
+    public UTF8Tokener(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.buffer = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+        this.origin = -offset;
+        this.start();
+    }
+
+    /**
+     * Construct a UTF8Tokener from the remaining bytes of a ByteBuffer. The
+     * buffer's position is not changed. A buffer backed by an array is read
+     * in place, while other buffers are copied a window at a time.
+     *
+     * @param byteBuffer UTF-8 encoded JSON text.
+     */
+    public UTF8Tokener(ByteBuffer byteBuffer) {
+        if (byteBuffer.hasArray()) {
+            this.buffer = byteBuffer.array();
+            this.position = byteBuffer.arrayOffset() + byteBuffer.position();
+            this.limit = byteBuffer.arrayOffset() + byteBuffer.limit();
+            this.origin = -this.position;
+        } else {
+            this.buffer = new byte[WINDOW];
+            this.in = new ByteBufferInputStream(byteBuffer.duplicate());
+        }
+        this.start();
+    }
+
+    /**
+     * Construct a UTF8Tokener from a piece of a larger text, so that pieces
+     * can be parsed separately. Positions are reported from the start of the
+     * whole text rather than the start of the piece.
+     *
+     * @param text   UTF-8 encoded JSON text, starting at position 0.
+     * @param offset The offset of the first byte of the piece.
+     * @param length The number of bytes in the piece.
+     */
+    UTF8Tokener(ByteBuffer text, int offset, int length) {
+        this(piece(text, offset, length));
+        this.origin += offset;
+        this.lines = new LineCount(offset);
+        this.text = text;
+        this.textOffset = offset;
+    }
+
+    private static ByteBuffer piece(ByteBuffer text, int offset, int length) {
+        ByteBuffer piece = text.duplicate();
+        piece.limit(offset + length);
+        piece.position(offset);
+        return piece;
+    }
+
+    /**
+     * Construct a UTF8Tokener from a sequence of ByteBuffers, read one after
+     * the other a window at a time.
+     *
+     * @param byteBuffers UTF-8 encoded JSON text.
+     */
+    private UTF8Tokener(ByteBuffer[] byteBuffers) {
+        this.buffer = new byte[WINDOW];
+        this.in = new ByteBufferInputStream(byteBuffers);
+        this.start();
+    }
+
+    /**
+     * Make a UTF8Tokener that reads a file through memory mapping, instead
+     * of reading it onto the heap. The pages of the file are brought in by
+     * the operating system as they are parsed, and only a window of bytes is
+     * copied at a time. Files larger than 2 GB are mapped in several pieces.
+     * The file must not be changed while it is being parsed.
+     *
+     * @param file A file of UTF-8 encoded JSON text.
+     * @return A UTF8Tokener.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public static UTF8Tokener map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer[] mappings
+                    = new ByteBuffer[(int) ((size + MAPPING - 1) / MAPPING)];
+            for (int i = 0; i < mappings.length; i++) {
+                long position = (long) i * MAPPING;
+                mappings[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        position, Math.min(MAPPING, size - position));
+            }
+            return new UTF8Tokener(mappings);
+        }
+    }
+
+    /**
+     * Make a UTF8Tokener that parses a byte array in two stages. First the
+     * whole array is scanned for the positions of its tokens, and then it is
+     * parsed by jumping from one position to the next, without looking at
+     * whitespace again. Objects and arrays that are skipped, as when binding
+     * to a class that does not have all of their keys, are passed over in one
+     * step. A text that cannot be indexed, because it uses single quotes, is
+     * parsed in one stage. The array is not copied, so it must not be changed
+     * while it is being parsed.
+     * <p>
+     * A two-stage parse is not faster than a one-stage parse. Building the
+     * index costs about as much as it saves when the whole text is read, and
+     * more when most of the text is skipped. The index is what
+     * {@link #lazy(byte[])} is built on.
+     *
+     * @param bytes UTF-8 encoded JSON text.
+     * @return A UTF8Tokener.
+     */
+    public static UTF8Tokener indexed(byte[] bytes) {
+        return indexed(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Make a UTF8Tokener that parses part of a byte array in two stages, as
+     * {@link #indexed(byte[])} does.
+     *
+     * @param bytes  UTF-8 encoded JSON text.
+     * @param offset The offset of the first byte of the text.
+     * @param length The number of bytes in the text.
+     * @return A UTF8Tokener.
+     */
+    public static UTF8Tokener indexed(byte[] bytes, int offset, int length) {
+        UTF8Tokener x = new UTF8Tokener(bytes, offset, length);
+        x.buildIndex();
+        return x;
+    }
+
+    /**
+     * Make a UTF8Tokener that builds JSONObjects and JSONArrays whose values
+     * are parsed only when they are asked for. The text is indexed as
+     * {@link #indexed(byte[])} does, and then each member of an object or
+     * element of an array is kept as a position in the array until it is read
+     * with get or opt, or by iterating. A value that is never read is written
+     * out again by copying its bytes as they are, whitespace and all, but
+     * only if it is strict JSON and the text is not indented; an indented
+     * text is pretty-printed as it is from an eager parse, and a value that
+     * uses the lenient syntax the tokener accepts, or that has a syntax error
+     * or a duplicate key, is parsed when it is written, so that the text is
+     * the same as that of an eager parse, or the same syntax error is thrown.
+     * Only the objects and arrays that are read or written are checked for
+     * syntax errors, and when they are read or written.
+     * <p>
+     * All of the lazy values made from one text share this tokener: its
+     * position, its index, and the shapes of its objects. Reading or writing
+     * any of them can move the tokener, and a lazy JSONObject or JSONArray
+     * changes when it is read. So the whole tree, not just each object or
+     * array in it, must be used by one thread at a time. The array is not
+     * copied, so it must not be changed while the values are being used. A
+     * text that cannot be indexed is parsed all at once.
+     *
+     * @param bytes UTF-8 encoded JSON text.
+     * @return A UTF8Tokener.
+     */
+    public static UTF8Tokener lazy(byte[] bytes) {
+        return new JSONLazyTokener(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Index the rest of the text, which must come from a byte array.
+     *
+     * @return The index, or null if the text cannot be indexed.
+     */
+    JSONIndex buildIndex() {
+        this.index = JSONIndex.of(this.buffer, this.position, this.limit);
+        return this.index;
+    }
+
+    /**
+     * Get the number of the position in the index of the character that
+     * nextClean returned last.
+     *
+     * @return The number of the position.
+     */
+    int entry() {
+        return this.cursor;
+    }
+
+    /**
+     * Go to a position in the index.
+     *
+     * @param k The number of the position, or the count of positions to go
+     *        to the end of the text.
+     */
+    void seek(int k) {
+        this.position = k < this.index.count ? this.index.positions[k]
+                : this.limit;
+        this.cursor = k;
+        this.beyond = 0;
+        this.eof = false;
+        this.pending = 0;
+        this.usePrevious = false;
+    }
+
+    /**
+     * Construct a UTF8Tokener from an InputStream. The stream is read a
+     * window at a time, and is not closed.
+     *
+     * @param inputStream A stream of UTF-8 encoded JSON text.
+     */
+    public UTF8Tokener(InputStream inputStream) {
+        this.buffer = new byte[WINDOW];
+        this.in = inputStream;
+        this.start();
+    }
+
+    private void start() {
+        this.lines = new LineCount(0);
+        while (this.limit - this.position < 3 && this.fill()) {
+            // keep reading until the byte order mark can be seen
+        }
+        if (this.limit - this.position >= 3
+                && this.buffer[this.position] == (byte) 0xEF
+                && this.buffer[this.position + 1] == (byte) 0xBB
+                && this.buffer[this.position + 2] == (byte) 0xBF) {
+            this.position += 3;
+            this.origin -= 3;
+        }
+    }
+
+    @Override
+    public void back() throws JSONException {
+        if (this.usePrevious || !this.started) {
+            throw new JSONException("Stepping back two steps is not supported");
+        }
+        this.usePrevious = true;
+        this.eof = false;
+    }
+
+    @Override
+    public boolean end() {
+        return this.eof && !this.usePrevious;
+    }
+
+    @Override
+    public char next() throws JSONException {
+        char c;
+        if (this.usePrevious) {
+            this.usePrevious = false;
+            c = this.previous;
+        } else if (this.pending != 0) {
+            c = this.pending;
+            this.pending = 0;
+        } else if (this.position < this.limit || this.fill()) {
+            byte b = this.buffer[this.position];
+            if (b >= 0) {
+                this.position += 1;
+                c = (char) b;
+            } else {
+                c = this.decode();
+            }
+        } else {
+            this.beyond += 1;
+            c = 0;
+        }
+        if (c == 0) {
+            this.eof = true;
+        }
+        this.started = true;
+        this.previous = c;
+        return c;
+    }
+
+    @Override
+    public char nextClean() throws JSONException {
+        if (this.index != null && !this.usePrevious && this.pending == 0) {
+            int[] positions = this.index.positions;
+            int k = this.cursor;
+            while (k < this.index.count && positions[k] < this.position) {
+                k += 1;
+            }
+            this.cursor = k;
+            this.position = k < this.index.count ? positions[k] : this.limit;
+            return this.next();
+        }
+        if (this.usePrevious || this.pending != 0) {
+            char c = this.next();
+            if (c == 0 || c > ' ') {
+                return c;
+            }
+        }
+        for (;;) {
+            while (this.position < this.limit) {
+                byte b = this.buffer[this.position];
+                if (b <= 0 || b > ' ') {
+                    return this.next();
+                }
+                this.position += 1;
+            }
+            if (!this.fill()) {
+                return this.next();
+            }
+        }
+    }
+
+    @Override
+    public String nextString(char quote) throws JSONException {
+        if (this.usePrevious || this.pending != 0 || quote >= 0x80) {
+            return super.nextString(quote);
+        }
+        StringBuilder sb = null;
+        int i = this.position;
+        for (;;) {
+            if (i == this.limit) {
+                int run = i - this.position;
+                if (!this.fill()) {
+                    this.position = this.limit;
+                    this.beyond += 1;
+                    throw this.syntaxError("Unterminated string");
+                }
+                i = this.position + run;
+                continue;
+            }
+            byte b = this.buffer[i];
+            if (b == quote) {
+                String string = this.decode(this.position, i);
+                this.position = i + 1;
+                this.started = true;
+                this.previous = quote;
+                return sb == null ? string : sb.append(string).toString();
+            }
+            if (b == '\\') {
+                if (sb == null) {
+                    sb = new StringBuilder();
+                }
+                sb.append(this.decode(this.position, i));
+                this.position = i + 1;
+                this.nextEscape(sb);
+                i = this.position;
+            } else if (b == '\n' || b == '\r' || b == 0) {
+                this.position = i + 1;
+                throw this.syntaxError("Unterminated string");
+            } else {
+                i += 1;
+            }
+        }
+    }
+
+    @Override
+    void skipValue() throws JSONException {
+        if (this.index == null || this.usePrevious || this.pending != 0) {
+            super.skipValue();
+            return;
+        }
+        char c = this.nextClean();
+        int close = c == '{' || c == '[' ? this.index.partner(this.cursor) : 0;
+        if (close == 0) {
+            this.back();
+            super.skipValue();
+            return;
+        }
+        this.position = this.index.positions[close] + 1;
+        this.previous = (char) this.buffer[this.position - 1];
+        this.cursor = close + 1;
+    }
+
+    @Override
+    String nextCachedKey(JSONKeyCache cache, char quote) {
+        if (this.usePrevious || this.pending != 0) {
+            return null;
+        }
+        int i = this.position;
+        while (i < this.limit) {
+            byte b = this.buffer[i];
+            if (b == quote) {
+                String key = cache.intern(this.buffer, this.position,
+                        i - this.position);
+                this.position = i + 1;
+                this.started = true;
+                this.previous = quote;
+                return key;
+            }
+            if (b < ' ' || b == '\\') {
+                return null;
+            }
+            i += 1;
+        }
+        return null;
+    }
+
+    @Override
+    Object nextNumber(char c) {
+        if (this.pending != 0 || this.usePrevious || this.position == 0
+                || this.buffer[this.position - 1] != c) {
+            return null;
+        }
+
+// A number that runs into the end of the window is left to nextUnquoted,
+// which knows how to refill it.
+
+        int end = this.position;
+        while (end < this.limit && !endsUnquoted((char) (this.buffer[end] & 0xFF))) {
+            end += 1;
+        }
+        if (end == this.limit && this.in != null) {
+            return null;
+        }
+        int last = end;
+        while (this.buffer[last - 1] == ' ') {
+            last -= 1;
+        }
+        Object number = NumberParser.parse(this.buffer, this.position - 1, last);
+        if (number != null) {
+            this.previous = (char) this.buffer[end - 1];
+            this.position = end;
+            this.started = true;
+        }
+        return number;
+    }
+
+    @Override
+    String nextUnquoted(char c) throws JSONException {
+        if (c >= 0x80 || endsUnquoted(c) || this.pending != 0
+                || this.usePrevious) {
+            return super.nextUnquoted(c);
+        }
+
+// The first character was the last byte read, unless the window has just
+// been refilled.
+
+        boolean inBuffer = this.position > 0
+                && this.buffer[this.position - 1] == c;
+        int i = this.position;
+        for (;;) {
+            if (i == this.limit) {
+                int run = i - this.position;
+                int before = this.position;
+                boolean more = this.fill();
+                if (this.position != before) {
+                    inBuffer = false;
+                }
+                i = this.position + run;
+                if (!more) {
+                    break;
+                }
+                continue;
+            }
+            byte b = this.buffer[i];
+            if (b < 0) {
+                StringBuilder sb = new StringBuilder();
+                if (!inBuffer) {
+                    sb.append(c);
+                }
+                int from = inBuffer ? this.position - 1 : this.position;
+                sb.append(this.decode(from, i));
+                this.position = i;
+                return this.nextUnquoted(this.next(), sb);
+            }
+            if (endsUnquoted((char) b)) {
+                break;
+            }
+            i += 1;
+        }
+        int from = inBuffer ? this.position - 1 : this.position;
+        String string = new String(this.buffer, from, i - from,
+                StandardCharsets.ISO_8859_1);
+        if (!inBuffer) {
+            string = c + string;
+        }
+        if (i > this.position) {
+            this.previous = (char) this.buffer[i - 1];
+        }
+        this.position = i;
+        this.started = true;
+        return string.trim();
+    }
+
+    @Override
+    public char skipTo(char to) throws JSONException {
+        if (to == 0 || to >= 0x80 || this.usePrevious || this.pending != 0) {
+            char c;
+            do {
+                c = this.next();
+            } while (c != to && c != 0);
+            if (c == 0) {
+                return c;
+            }
+            this.back();
+            return c;
+        }
+        int i = this.position;
+        for (;;) {
+            if (i == this.limit) {
+                int run = i - this.position;
+                if (!this.fill()) {
+                    return 0;
+                }
+                i = this.position + run;
+                continue;
+            }
+            if (this.buffer[i] == to) {
+                this.position = i;
+                return to;
+            }
+            i += 1;
+        }
+    }
+
+    /**
+     * Make a printable string of this UTF8Tokener. The position, line and
+     * character are the ones that JSONTokener would report, except that
+     * they are counted in bytes.
+     *
+     * @return " at {offset} [character {column} line {line}]", where the
+     *  offset and column are counted in bytes.
+     */
+    @Override
+    public String toString() {
+        long offset = this.origin + this.position + this.beyond;
+        if (this.usePrevious) {
+            offset -= width(this.previous);
+        }
+        LineCount lines = this.lines.copy();
+        while (lines.at < offset) {
+            long i = lines.at - this.origin;
+            lines.count(i < this.limit ? this.buffer[(int) i] : 0);
+        }
+        long line = lines.line;
+        long lineStart = lines.lineStart;
+        if (this.text != null) {
+
+// The piece was counted as if it started a text. Count the text before it,
+// and join the two at the line break that a carriage return at the end of
+// the text before it makes.
+
+            LineCount before = new LineCount(0);
+            while (before.at < this.textOffset) {
+                before.count(this.text.get((int) before.at));
+            }
+            line += before.line - 1;
+            if (lines.line == 1) {
+                lineStart = before.lineStart;
+            }
+            if (before.last == '\r' && offset > this.textOffset
+                    && (this.textOffset == this.text.limit()
+                    || this.text.get(this.textOffset) != '\n')) {
+                line += 1;
+                if (lines.line == 1) {
+                    lineStart = this.textOffset;
+                }
+            }
+        }
+        return " at " + offset + " [character " + (offset - lineStart)
+                + " line " + line + "]";
+    }
+
+    /**
+     * Get the number of bytes that stepping back over a character returns
+     * to. The end of the input counts as one, as it does in JSONTokener.
+     */
+    private static int width(char c) {
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800) {
+            return 2;
+        }
+        if (Character.isHighSurrogate(c)) {
+            return 4;
+        }
+        return Character.isLowSurrogate(c) ? 0 : 3;
+    }
+
+    /**
+     * Decode the multi-byte character starting at the position. If it is a
+     * supplementary character, the high surrogate is returned and the low
+     * surrogate is kept for the next call to next().
+     *
+     * @return A character.
+     */
+    private char decode() {
+        int lead = this.buffer[this.position] & 0xFF;
+        int length = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+        while (this.limit - this.position < length && this.fill()) {
+            // keep reading until the whole sequence is in the window
+        }
+        if (length == 1 || this.limit - this.position < length) {
+            this.position += 1;
+            return '\uFFFD';
+        }
+        int code = lead & (0x7F >> length);
+        for (int i = 1; i < length; i++) {
+            int b = this.buffer[this.position + i];
+            if ((b & 0xC0) != 0x80) {
+                this.position += i;
+                return '\uFFFD';
+            }
+            code = code << 6 | b & 0x3F;
+        }
+        this.position += length;
+        if (length == 4) {
+            if (code < 0x10000 || code > Character.MAX_CODE_POINT) {
+                return '\uFFFD';
+            }
+            this.pending = Character.lowSurrogate(code);
+            return Character.highSurrogate(code);
+        }
+        return (char) code;
+    }
+
+    /**
+     * Decode a run of bytes in the buffer.
+     *
+     * @param from The offset of the first byte.
+     * @param to   The offset just past the last byte.
+     * @return A string.
+     */
+    private String decode(int from, int to) {
+        return new String(this.buffer, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read more bytes into the window. The bytes before the position are
+     * discarded to make room, so offsets into the buffer must be taken
+     * relative to the position across a call to this method.
+     *
+     * @return true if more bytes were read, false at the end of the input.
+     */
+    private boolean fill() throws JSONException {
+        if (this.in == null) {
+            return false;
+        }
+        if (this.position > 0) {
+            while (this.lines.at < this.origin + this.position) {
+                this.lines.count(
+                        this.buffer[(int) (this.lines.at - this.origin)]);
+            }
+            int kept = this.limit - this.position;
+            System.arraycopy(this.buffer, this.position, this.buffer, 0, kept);
+            this.origin += this.position;
+            this.position = 0;
+            this.limit = kept;
+        }
+        if (this.limit == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+        }
+        try {
+            int n;
+            do {
+                n = this.in.read(this.buffer, this.limit,
+                        this.buffer.length - this.limit);
+            } while (n == 0);
+            if (n < 0) {
+                this.in = null;
+                return false;
+            }
+            this.limit += n;
+            return true;
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        }
+    }
+
+    /**
+     * A count of the lines in the input up to a position, made the same way
+     * that JSONTokener counts them: a line ends at a newline, a carriage
+     * return, or both, and the line break is counted with the character
+     * after a carriage return.
+     */
+    private static final class LineCount {
+
+        /**
+         * The position of the next byte to count.
+         */
+        private long at;
+
+        /**
+         * The last byte counted.
+         */
+        private int last;
+
+        private long line = 1;
+
+        /**
+         * The position in the input that the character count of the current
+         * line is taken from. As with JSONTokener, the first line counts from
+         * 1 and the others from 0.
+         */
+        private long lineStart = -1;
+
+        LineCount(long at) {
+            this.at = at;
+        }
+
+        LineCount copy() {
+            LineCount copy = new LineCount(this.at);
+            copy.last = this.last;
+            copy.line = this.line;
+            copy.lineStart = this.lineStart;
+            return copy;
+        }
+
+        /**
+         * Count the byte at the position.
+         */
+        void count(int b) {
+            if (this.last == '\r') {
+                this.line += 1;
+                this.lineStart = b == '\n' ? this.at + 1 : this.at;
+            } else if (b == '\n') {
+                this.line += 1;
+                this.lineStart = this.at + 1;
+            }
+            this.last = b;
+            this.at += 1;
+        }
+    }
+
+    /**
+     * An InputStream that copies bytes out of a sequence of ByteBuffers, one
+     * after the other.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private int index;
+        private final ByteBuffer[] sources;
+
+        ByteBufferInputStream(ByteBuffer... sources) {
+            this.sources = sources;
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer source = this.source();
+            return source == null ? -1 : source.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            ByteBuffer source = this.source();
+            if (source == null) {
+                return -1;
+            }
+            int n = Math.min(length, source.remaining());
+            source.get(bytes, offset, n);
+            return n;
+        }
+
+        /**
+         * Get the first buffer that has bytes remaining. Buffers that have
+         * been used up are dropped, so that their memory can be released.
+         */
+        private ByteBuffer source() {
+            while (this.index < this.sources.length) {
+                ByteBuffer source = this.sources[this.index];
+                if (source.hasRemaining()) {
+                    return source;
+                }
+                this.sources[this.index] = null;
+                this.index += 1;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,637 @@
+package org.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A UTF8Writer writes JSON text as UTF-8 bytes straight to an OutputStream or
+ * a ByteBuffer, the counterpart of {@link UTF8Tokener}. It produces exactly
+ * the bytes of {@link JSONObject#toString(int)} encoded in UTF-8, but without
+ * making a String, a StringWriter, or a char array along the way. Values are
+ * written with the same rules as {@link JSONObject#valueToString(Object)}.
+ * <p>
+ * Bytes are collected in an internal buffer, and passed on to the
+ * OutputStream when it fills, or when {@link #flush()} is called. When the
+ * target is a ByteBuffer with an accessible array, the bytes are written
+ * directly into that array, and the ByteBuffer's position is advanced after
+ * each value.
+ *
+ * <pre>
+ * UTF8Writer writer = new UTF8Writer(response.getOutputStream());
+ * writer.write(jsonObject).flush();
+ * </pre>
+ *
+ * @author kuporific
+ */
+public class UTF8Writer implements Closeable, Flushable {
+
+    /**
+     * The size of the internal buffer.
+     */
+    private static final int BUFFER = 8192;
+
+    /**
+     * The length of a unicode escape.
+     */
+    private static final int ESCAPE = 6;
+
+    /**
+     * The number of keys whose quoted bytes are kept.
+     */
+    private static final int KEYS = 256;
+
+    /**
+     * The length of the longest key that is kept.
+     */
+    private static final int MAX_KEY = 64;
+
+    private static final byte[] HEX = {
+        '0', '1', '2', '3', '4', '5', '6', '7',
+        '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+    };
+
+    private final byte[] buffer;
+
+    /**
+     * Whether line breaks in strings are escaped, so that no value spans
+     * more than one line.
+     */
+    private boolean escapeLineBreaks;
+
+    /**
+     * The offset in the buffer of the ByteBuffer's position 0.
+     */
+    private final int offset;
+
+    /**
+     * The keys written recently, and their quoted bytes in the same slots.
+     */
+    private final String[] keys = new String[KEYS];
+
+    private final OutputStream out;
+
+    private final byte[][] quotedKeys = new byte[KEYS][];
+
+    private final ByteBuffer target;
+
+    private int limit;
+
+    private int position;
+
+    /**
+     * Construct a UTF8Writer on an OutputStream.
+     *
+     * @param outputStream The stream that receives the bytes.
+     */
+    public UTF8Writer(OutputStream outputStream) {
+        this(outputStream, BUFFER);
+    }
+
+    /**
+     * Construct a UTF8Writer on an OutputStream.
+     *
+     * @param outputStream The stream that receives the bytes.
+     * @param bufferSize   The size of the internal buffer.
+     */
+    public UTF8Writer(OutputStream outputStream, int bufferSize) {
+        this.buffer = new byte[Math.max(bufferSize, 32)];
+        this.limit = this.buffer.length;
+        this.offset = 0;
+        this.out = outputStream;
+        this.target = null;
+    }
+
+    /**
+     * Construct a UTF8Writer that writes into a ByteBuffer, starting at its
+     * position. A JSONException is thrown if a value does not fit before the
+     * ByteBuffer's limit, and the ByteBuffer then holds the part that fit.
+     *
+     * @param byteBuffer The ByteBuffer that receives the bytes.
+     */
+    public UTF8Writer(ByteBuffer byteBuffer) {
+        this.out = null;
+        this.target = byteBuffer;
+        if (byteBuffer.hasArray()) {
+            this.buffer = byteBuffer.array();
+            this.offset = byteBuffer.arrayOffset();
+            this.position = this.offset + byteBuffer.position();
+            this.limit = this.offset + byteBuffer.limit();
+        } else {
+            this.buffer = new byte[BUFFER];
+            this.offset = 0;
+            this.limit = this.buffer.length;
+        }
+    }
+
+    /**
+     * Write any buffered bytes, and close the OutputStream.
+     *
+     * @throws IOException If the OutputStream cannot be written or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.flush();
+        if (this.out != null) {
+            this.out.close();
+        }
+    }
+
+    /**
+     * Write any buffered bytes, and flush the OutputStream.
+     *
+     * @throws IOException If the OutputStream cannot be written or flushed.
+     */
+    @Override
+    public void flush() throws IOException {
+        this.drain();
+        if (this.out != null) {
+            this.out.flush();
+        }
+    }
+
+    /**
+     * Write a value as JSON text. For compactness, no whitespace is added.
+     * <p>
+     * Warning: This method assumes that the data structure is acyclical.
+     *
+     * @param value
+     *            A JSONObject, JSONArray, or any other value that
+     *            JSONObject.valueToString accepts.
+     * @return this.
+     * @throws JSONException
+     *             If the value is or contains an invalid number, or if the
+     *             bytes cannot be written.
+     */
+    public UTF8Writer write(Object value) throws JSONException {
+        return this.write(value, 0);
+    }
+
+    /**
+     * Write a value as prettyprinted JSON text.
+     * <p>
+     * Warning: This method assumes that the data structure is acyclical.
+     *
+     * @param value
+     *            A JSONObject, JSONArray, or any other value that
+     *            JSONObject.valueToString accepts.
+     * @param indentFactor
+     *            The number of spaces to add to each level of indentation.
+     * @return this.
+     * @throws JSONException
+     *             If the value is or contains an invalid number, or if the
+     *             bytes cannot be written.
+     */
+    public UTF8Writer write(Object value, int indentFactor)
+            throws JSONException {
+        try {
+            this.value(value, indentFactor, 0);
+            if (this.target != null) {
+                this.drain();
+            }
+            return this;
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        }
+    }
+
+    /**
+     * Escape the line breaks in strings, as JSON Lines text requires, instead
+     * of writing them as they are, as JSONObject does.
+     */
+    void escapeLineBreaks() {
+        this.escapeLineBreaks = true;
+    }
+
+    /**
+     * Write a newline, which ends a record of JSON Lines text.
+     *
+     * @throws IOException If the bytes cannot be written.
+     */
+    void newline() throws IOException {
+        this.put('\n');
+    }
+
+    private void array(JSONArray ja, int indentFactor, int indent)
+            throws IOException {
+        boolean commanate = false;
+        int length = ja.length();
+        this.put('[');
+
+        if (length == 1) {
+            this.value(ja.peek(0), indentFactor, indent);
+        } else if (length != 0) {
+            final int newindent = indent + indentFactor;
+            for (int i = 0; i < length; i++) {
+                if (commanate) {
+                    this.put(',');
+                }
+                if (indentFactor > 0) {
+                    this.put('\n');
+                }
+                this.indent(newindent);
+                this.value(ja.peek(i), indentFactor, newindent);
+                commanate = true;
+            }
+            if (indentFactor > 0) {
+                this.put('\n');
+            }
+            this.indent(indent);
+        }
+        this.put(']');
+    }
+
+    /**
+     * Write a string of ASCII characters.
+     */
+    private void ascii(String string) throws IOException {
+        for (int i = 0; i < string.length(); i += 1) {
+            this.put(string.charAt(i));
+        }
+    }
+
+    /**
+     * Pass the buffered bytes on to the target.
+     */
+    private void drain() throws IOException {
+        if (this.out != null) {
+            this.out.write(this.buffer, 0, this.position);
+            this.position = 0;
+        } else if (this.target.hasArray()) {
+            this.target.position(this.position - this.offset);
+        } else {
+            if (this.target.remaining() < this.position) {
+                throw new JSONException("The ByteBuffer is full.");
+            }
+            this.target.put(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+    }
+
+    /**
+     * Encode one character of a string, or a surrogate pair, in UTF-8. A
+     * surrogate without its partner is written as '?'.
+     *
+     * @return The index of the last character used.
+     */
+    private int encode(String string, int i, char c) {
+        if (c < 0x80) {
+            this.buffer[this.position++] = (byte) c;
+        } else if (c < 0x800) {
+            this.buffer[this.position++] = (byte) (0xC0 | c >> 6);
+            this.buffer[this.position++] = (byte) (0x80 | c & 0x3F);
+        } else if (!Character.isSurrogate(c)) {
+            this.buffer[this.position++] = (byte) (0xE0 | c >> 12);
+            this.buffer[this.position++] = (byte) (0x80 | c >> 6 & 0x3F);
+            this.buffer[this.position++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+                && Character.isLowSurrogate(string.charAt(i + 1))) {
+            int code = Character.toCodePoint(c, string.charAt(i + 1));
+            this.buffer[this.position++] = (byte) (0xF0 | code >> 18);
+            this.buffer[this.position++] = (byte) (0x80 | code >> 12 & 0x3F);
+            this.buffer[this.position++] = (byte) (0x80 | code >> 6 & 0x3F);
+            this.buffer[this.position++] = (byte) (0x80 | code & 0x3F);
+            return i + 1;
+        } else {
+            this.buffer[this.position++] = '?';
+        }
+        return i;
+    }
+
+    void indent(int indent) throws IOException {
+        for (int i = 0; i < indent; i++) {
+            this.put(' ');
+        }
+    }
+
+    /**
+     * Write an integer in decimal, without making a String.
+     */
+    private void integer(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            this.ascii(Long.toString(value));
+            return;
+        }
+        int digits = 1;
+        for (long rest = Math.abs(value); rest >= 10; rest /= 10) {
+            digits += 1;
+        }
+        this.require(value < 0 ? digits + 1 : digits);
+        if (value < 0) {
+            this.buffer[this.position++] = '-';
+            value = -value;
+        }
+        int end = this.position + digits;
+        for (int i = end - 1; i >= this.position; i -= 1) {
+            this.buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        this.position = end;
+    }
+
+    /**
+     * Write a quoted key. The bytes of short keys are kept, so that a key that
+     * is written again, as in an array of records, is copied in one piece.
+     */
+    void key(String key) throws IOException {
+        if (key.length() > MAX_KEY || this.escapeLineBreaks
+                && (key.indexOf('\n') >= 0 || key.indexOf('\r') >= 0)) {
+            this.quote(key);
+            return;
+        }
+        int hash = key.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (KEYS - 1);
+        String cached = this.keys[slot];
+        if (cached != key && !key.equals(cached)) {
+            this.keys[slot] = key;
+            this.quotedKeys[slot] = JSONObject.quote(key)
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+        this.put(this.quotedKeys[slot], 0, this.quotedKeys[slot].length);
+    }
+
+    private void object(JSONObject jo, int indentFactor, int indent)
+            throws IOException {
+        boolean commanate = false;
+        final int length = jo.length();
+        Iterator<String> keys = jo.keys();
+        this.put('{');
+
+        if (length == 1) {
+            String key = keys.next();
+            this.key(key);
+            this.put(':');
+            if (indentFactor > 0) {
+                this.put(' ');
+            }
+            this.value(jo.peek(key), indentFactor, indent);
+        } else if (length != 0) {
+            final int newindent = indent + indentFactor;
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (commanate) {
+                    this.put(',');
+                }
+                if (indentFactor > 0) {
+                    this.put('\n');
+                }
+                this.indent(newindent);
+                this.key(key);
+                this.put(':');
+                if (indentFactor > 0) {
+                    this.put(' ');
+                }
+                this.value(jo.peek(key), indentFactor, newindent);
+                commanate = true;
+            }
+            if (indentFactor > 0) {
+                this.put('\n');
+            }
+            this.indent(indent);
+        }
+        this.put('}');
+    }
+
+    void put(char c) throws IOException {
+        if (this.position == this.limit) {
+            this.require(1);
+        }
+        this.buffer[this.position++] = (byte) c;
+    }
+
+    private void put(byte[] bytes, int offset, int length) throws IOException {
+        if (this.limit - this.position < length) {
+            this.drain();
+            if (length > this.limit - this.position) {
+
+// A run longer than the buffer goes straight to the stream or the direct
+// ByteBuffer.
+
+                if (this.out != null) {
+                    this.out.write(bytes, offset, length);
+                    return;
+                }
+                if (!this.target.hasArray()) {
+                    if (this.target.remaining() < length) {
+                        throw new JSONException("The ByteBuffer is full.");
+                    }
+                    this.target.put(bytes, offset, length);
+                    return;
+                }
+                throw new JSONException("The ByteBuffer is full.");
+            }
+        }
+        System.arraycopy(bytes, offset, this.buffer, this.position, length);
+        this.position += length;
+    }
+
+    /**
+     * Copy the bytes of a value that has not been parsed. If the value is
+     * being indented, the text is not strict JSON, or line breaks are escaped
+     * and the text has one between its tokens, the value is parsed and
+     * written instead.
+     */
+    private void copy(JSONRaw raw, int indentFactor, int indent)
+            throws IOException {
+        if (indentFactor != 0 || !raw.isVerbatim()) {
+            this.value(raw.parse(), indentFactor, indent);
+            return;
+        }
+        byte[] bytes = raw.bytes();
+        int start = raw.start();
+        int end = raw.end();
+        if (this.escapeLineBreaks) {
+            for (int i = start; i < end; i++) {
+                if (bytes[i] == '\n' || bytes[i] == '\r') {
+                    this.value(raw.parse(), indentFactor, indent);
+                    return;
+                }
+            }
+        }
+        this.put(bytes, start, end - start);
+    }
+
+    /**
+     * Write a string in double quotes, escaped exactly as JSONObject.quote
+     * escapes it. Runs of characters that need no escaping are encoded in
+     * one piece.
+     */
+    private void quote(String string) throws IOException {
+        final int length = string.length();
+        int start = 0;
+        int i = JSONObject.escapeIndex(string, 0, this.escapeLineBreaks);
+        this.put('"');
+        while (i < length) {
+            char c = string.charAt(i);
+            this.run(string, start, i);
+            if (c == '\n' || c == '\r') {
+                this.require(2);
+                this.buffer[this.position++] = '\\';
+                this.buffer[this.position++] = c == '\n' ? (byte) 'n'
+                        : (byte) 'r';
+            } else if (c == '\\' || c == '"' || c == '/') {
+                this.require(2);
+                this.buffer[this.position++] = '\\';
+                this.buffer[this.position++] = (byte) c;
+            } else {
+                this.require(ESCAPE);
+                this.buffer[this.position++] = '\\';
+                this.buffer[this.position++] = 'u';
+                this.buffer[this.position++] = HEX[c >> 12];
+                this.buffer[this.position++] = HEX[c >> 8 & 0xF];
+                this.buffer[this.position++] = HEX[c >> 4 & 0xF];
+                this.buffer[this.position++] = HEX[c & 0xF];
+            }
+            start = i + 1;
+            i = JSONObject.escapeIndex(string, start, this.escapeLineBreaks);
+        }
+        this.run(string, start, length);
+        this.put('"');
+    }
+
+    /**
+     * Write a string as it is, in UTF-8.
+     */
+    private void raw(String string) throws IOException {
+        this.run(string, 0, string.length());
+    }
+
+    /**
+     * Encode part of a string in UTF-8. ASCII characters are copied as long
+     * as there is room in the buffer, without checking the room for each.
+     */
+    private void run(String string, int from, int to) throws IOException {
+        int i = from;
+        while (i < to) {
+            int end = Math.min(to, i + this.limit - this.position);
+            while (i < end) {
+                char c = string.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                this.buffer[this.position++] = (byte) c;
+                i += 1;
+            }
+            if (i < end) {
+                char c = string.charAt(i);
+                this.require(width(string, i, c));
+                i = this.encode(string, i, c) + 1;
+            } else if (i < to) {
+                this.require(1);
+            }
+        }
+    }
+
+    /**
+     * Make room in the buffer for some bytes.
+     *
+     * @param length The number of bytes.
+     * @throws JSONException If a ByteBuffer target is full.
+     */
+    private void require(int length) throws IOException {
+        if (this.limit - this.position < length) {
+            this.drain();
+            if (this.limit - this.position < length) {
+                throw new JSONException("The ByteBuffer is full.");
+            }
+        }
+    }
+
+    /**
+     * Get the number of bytes that encode will produce for a character.
+     */
+    private static int width(String string, int i, char c) {
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800) {
+            return 2;
+        }
+        if (!Character.isSurrogate(c)) {
+            return 3;
+        }
+        return Character.isHighSurrogate(c) && i + 1 < string.length()
+                && Character.isLowSurrogate(string.charAt(i + 1)) ? 4 : 1;
+    }
+
+    void value(Object value, int indentFactor, int indent)
+            throws IOException {
+        if (value == null) {
+            this.ascii("null");
+            return;
+        }
+        JSONType type = JSONType.of(value.getClass());
+        switch (type.write) {
+        case JSONType.NULL:
+            this.ascii("null");
+            break;
+        case JSONType.OBJECT:
+            this.object((JSONObject) value, indentFactor, indent);
+            break;
+        case JSONType.ARRAY:
+            this.array((JSONArray) value, indentFactor, indent);
+            break;
+        case JSONType.MAP:
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) value;
+            this.object(new JSONObject(map), indentFactor, indent);
+            break;
+        case JSONType.COLLECTION:
+            @SuppressWarnings("unchecked")
+            Collection<Object> collection = (Collection<Object>) value;
+            this.array(new JSONArray(collection), indentFactor, indent);
+            break;
+        case JSONType.JAVA_ARRAY:
+            this.array(new JSONArray(value), indentFactor, indent);
+            break;
+        case JSONType.NUMBER:
+            if (value instanceof Integer || value instanceof Long) {
+                this.integer(((Number) value).longValue());
+            } else if (value instanceof Double) {
+                double d = (Double) value;
+                JSONObject.testValidity(value);
+                if (this.limit - this.position >= DoubleFormatter.MAX_LENGTH) {
+                    this.position = DoubleFormatter.format(d, this.buffer,
+                            this.position);
+                } else {
+                    byte[] bytes = new byte[DoubleFormatter.MAX_LENGTH];
+                    this.put(bytes, 0, DoubleFormatter.format(d, bytes, 0));
+                }
+            } else {
+                this.ascii(JSONObject.numberToString((Number) value));
+            }
+            break;
+        case JSONType.BOOLEAN:
+            this.ascii(value.toString());
+            break;
+        case JSONType.JSON_STRING:
+            if (value instanceof JSONRaw) {
+                this.copy((JSONRaw) value, indentFactor, indent);
+                break;
+            }
+            Object o;
+            try {
+                o = ((JSONString) value).toJSONString();
+            } catch (Exception e) {
+                throw new JSONException(e);
+            }
+            if (o != null) {
+                this.raw(o.toString());
+            } else {
+                this.quote(value.toString());
+            }
+            break;
+        case JSONType.CODEC:
+            type.codec.write(value, this, indentFactor, indent);
+            break;
+        default:
+            this.quote(value.toString());
+        }
+    }
+}
@@ -24,6 +24,7 @@ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 SOFTWARE.
 */
 
+import java.util.ArrayList;
 import java.util.Iterator;
 
 
@@ -119,19 +120,55 @@ public class XML {
         }
     }
 
+    /**
+     * Report the structure of a well-formed (but not necessarily valid) XML
+     * string to a JSONHandler, in a single pass. Elements, attributes and
+     * content are reported in document order, as they are read, so the
+     * structure is not always the one that toJSONObject would produce:
+     * <ul>
+     * <li>An element that appears more than once in the same parent is
+     * reported as a repeated key rather than as an array. A
+     * {@link JSONTextHandler} writes such keys as they come, so its text is
+     * not accepted by the JSONObject constructor.</li>
+     * <li>Content text that is broken up by comments or CDATA sections is
+     * reported as one array of strings, where toJSONObject gives an array
+     * in an array.</li>
+     * <li>An element whose children are all named "content" is reported as
+     * an object with a "content" member. toJSONObject reduces it to the
+     * value of that member.</li>
+     * </ul>
+     * A {@link JSONBuilder} that accumulates repeated keys undoes the first
+     * two differences, but not the third.
+     * @param string The source string.
+     * @param handler The JSONHandler that receives the structure.
+     * @throws JSONException
+     */
+    public static void parse(String string, JSONHandler handler)
+            throws JSONException {
+        XMLTokener x = new XMLTokener(string);
+        HandlerElement root = new HandlerElement(handler, null);
+        handler.startObject();
+        root.open = true;
+        while (x.more() && x.skipPast("<")) {
+            parse(x, root, null);
+        }
+        handler.endObject();
+    }
+
+
     /**
      * Scan the content following the named tag, attaching it to the context.
      * @param x       The XMLTokener containing the source string.
-     * @param context The JSONObject that will include the new material.
+     * @param context The enclosing element.
      * @param name    The tag name.
      * @return true if the close tag is processed.
      * @throws JSONException
      */
-    private static boolean parse(XMLTokener x, JSONObject context,
-                                 String name) throws JSONException {
+    private static boolean parse(XMLTokener x, Element context, String name)
+            throws JSONException {
         char       c;
         int        i;
-        JSONObject jsonobject;
+        Element    element;
         String     string;
         String     tagName;
         Object     token;
@@ -164,7 +201,7 @@ public class XML {
                     if (x.next() == '[') {
                         string = x.nextCDATA();
                         if (string.length() > 0) {
-                            context.accumulate("content", string);
+                            context.content(string);
                         }
                         return false;
                     }
@@ -213,7 +250,7 @@ public class XML {
         } else {
             tagName = (String)token;
             token = null;
-            jsonobject = new JSONObject();
+            element = context.child(tagName);
             for (;;) {
                 if (token == null) {
                     token = x.nextToken();
@@ -229,11 +266,11 @@ public class XML {
                         if (!(token instanceof String)) {
                             throw x.syntaxError("Missing value");
                         }
-                        jsonobject.accumulate(string,
+                        element.attribute(string,
                                 XML.stringToValue((String)token));
                         token = null;
                     } else {
-                        jsonobject.accumulate(string, "");
+                        element.attribute(string, "");
                     }
 
 // Empty tag <.../>
@@ -242,11 +279,7 @@ public class XML {
                     if (x.nextToken() != GT) {
                         throw x.syntaxError("Misshaped tag");
                     }
-                    if (jsonobject.length() > 0) {
-                        context.accumulate(tagName, jsonobject);
-                    } else {
-                        context.accumulate(tagName, "");
-                    }
+                    element.close(true);
                     return false;
 
 // Content, between <...> and </...>
@@ -262,23 +295,14 @@ public class XML {
                         } else if (token instanceof String) {
                             string = (String)token;
                             if (string.length() > 0) {
-                                jsonobject.accumulate("content",
-                                        XML.stringToValue(string));
+                                element.content(XML.stringToValue(string));
                             }
 
 // Nested element
 
                         } else if (token == LT) {
-                            if (parse(x, jsonobject, tagName)) {
-                                if (jsonobject.length() == 0) {
-                                    context.accumulate(tagName, "");
-                                } else if (jsonobject.length() == 1 &&
-                                       jsonobject.opt("content") != null) {
-                                    context.accumulate(tagName,
-                                            jsonobject.opt("content"));
-                                } else {
-                                    context.accumulate(tagName, jsonobject);
-                                }
+                            if (parse(x, element, tagName)) {
+                                element.close(false);
                                 return false;
                             }
                         }
@@ -352,8 +376,9 @@ public class XML {
     public static JSONObject toJSONObject(String string) throws JSONException {
         JSONObject jo = new JSONObject();
         XMLTokener x = new XMLTokener(string);
+        Element root = new ObjectElement(null, jo, null);
         while (x.more() && x.skipPast("<")) {
-            parse(x, jo, null);
+            parse(x, root, null);
         }
         return jo;
     }
@@ -487,4 +512,156 @@ public class XML {
             }
         }
     }
+
+
+    /**
+     * The element that the parser is in. The parser reports what it finds
+     * to the element, and the element passes it on to a JSONHandler or
+     * attaches it to a JSONObject.
+     */
+    private static abstract class Element {
+
+        /**
+         * Add an attribute.
+         */
+        abstract void attribute(String key, Object value);
+
+        /**
+         * Begin a child element.
+         */
+        abstract Element child(String tagName);
+
+        /**
+         * End the element, either at its close tag or, if empty is true, at
+         * the end of an empty tag.
+         */
+        abstract void close(boolean empty);
+
+        /**
+         * Add content text.
+         */
+        abstract void content(Object value);
+    }
+
+
+    /**
+     * An element that is reported to a JSONHandler. Its shape is not known
+     * until it is closed, and an element with only content becomes a simple
+     * value, so its content is held back until an attribute or a child
+     * element shows that it has to be reported as an object.
+     */
+    private static final class HandlerElement extends Element {
+        private final ArrayList<Object> contents = new ArrayList<>();
+        private final JSONHandler handler;
+        private boolean open;
+        private final String tagName;
+
+        HandlerElement(JSONHandler handler, String tagName) {
+            this.handler = handler;
+            this.tagName = tagName;
+        }
+
+        @Override
+        void attribute(String key, Object value) {
+            this.open();
+            this.handler.key(key);
+            this.handler.value(value);
+        }
+
+        @Override
+        Element child(String tagName) {
+            this.open();
+            return new HandlerElement(this.handler, tagName);
+        }
+
+        @Override
+        void close(boolean empty) {
+            if (this.open) {
+                this.handler.endObject();
+                return;
+            }
+            this.handler.key(this.tagName);
+            if (this.contents.isEmpty()) {
+                this.handler.value("");
+            } else if (this.contents.size() == 1) {
+                this.handler.value(this.contents.get(0));
+            } else {
+                this.handler.startArray();
+                for (Object content : this.contents) {
+                    this.handler.value(content);
+                }
+                this.handler.endArray();
+            }
+        }
+
+        @Override
+        void content(Object value) {
+            if (this.open) {
+                this.handler.key("content");
+                this.handler.value(value);
+            } else {
+                this.contents.add(value);
+            }
+        }
+
+        private void open() {
+            if (!this.open) {
+                this.open = true;
+                this.handler.key(this.tagName);
+                this.handler.startObject();
+                for (Object content : this.contents) {
+                    this.handler.key("content");
+                    this.handler.value(content);
+                }
+                this.contents.clear();
+            }
+        }
+    }
+
+
+    /**
+     * An element that is built as a JSONObject and accumulated into the
+     * JSONObject of its parent when it is closed, as toJSONObject does.
+     */
+    private static final class ObjectElement extends Element {
+        private final JSONObject context;
+        private final JSONObject jsonobject;
+        private final String tagName;
+
+        ObjectElement(JSONObject context, JSONObject jsonobject,
+                String tagName) {
+            this.context = context;
+            this.jsonobject = jsonobject;
+            this.tagName = tagName;
+        }
+
+        @Override
+        void attribute(String key, Object value) {
+            this.jsonobject.accumulate(key, value);
+        }
+
+        @Override
+        Element child(String tagName) {
+            return new ObjectElement(this.jsonobject, new JSONObject(),
+                    tagName);
+        }
+
+        @Override
+        void close(boolean empty) {
+            if (this.jsonobject.length() == 0) {
+                this.context.accumulate(this.tagName, "");
+            } else if (!empty && this.jsonobject.length() == 1 &&
+                    this.jsonobject.opt("content") != null) {
+                this.context.accumulate(this.tagName,
+                        this.jsonobject.opt("content"));
+            } else {
+                this.context.accumulate(this.tagName, this.jsonobject);
+            }
+        }
+
+        @Override
+        void content(Object value) {
+            this.jsonobject.accumulate("content", value);
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package org.json;
+
+import java.lang.reflect.Field;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author kuporific
+ */
+public class JSONArrayTest {
+
+    @Test
+    public void numericArrays() {
+        JSONArray ints = new JSONArray("[1, 2, 3]");
+        assertEquals(Integer.valueOf(2), ints.get(1));
+        assertEquals(2.0, ints.getDouble(1), 0);
+        assertArrayEquals(new int[]{1, 2, 3}, ints.toIntArray());
+        assertArrayEquals(new long[]{1, 2, 3}, ints.toLongArray());
+
+        JSONArray doubles = new JSONArray("[1.5, -2.5, 1e3]");
+        assertEquals(Double.valueOf(-2.5), doubles.get(1));
+        assertEquals(1, doubles.getInt(0));
+        assertArrayEquals(new double[]{1.5, -2.5, 1000}, doubles.toDoubleArray(), 0);
+
+        JSONArray longs = new JSONArray("[5000000000, -5000000000]");
+        assertEquals(Long.valueOf(5000000000L), longs.get(0));
+        assertArrayEquals(new long[]{5000000000L, -5000000000L}, longs.toLongArray());
+
+        assertArrayEquals(new double[0], new JSONArray().toDoubleArray(), 0);
+    }
+
+    @Test
+    public void integersAmongDoublesAndLongs() throws Exception {
+        JSONArray series = new JSONArray("[0, 1.5, 2.25, 3]");
+        Field field = JSONArray.class.getDeclaredField("myArrayList");
+        field.setAccessible(true);
+        assertTrue(((JSONList) field.get(series)).isPrimitive());
+        assertEquals(Integer.valueOf(0), series.get(0));
+        assertEquals(Double.valueOf(1.5), series.get(1));
+        assertEquals(Integer.valueOf(3), series.get(3));
+        assertEquals("[0,1.5,2.25,3]", series.toString());
+        assertArrayEquals(new double[]{0, 1.5, 2.25, 3}, series.toDoubleArray(), 0);
+
+        JSONList list = (JSONList) field.get(series);
+        list.add(1, 7);
+        list.remove(0);
+        series.put(0.5);
+        assertEquals("[7,1.5,2.25,3,0.5]", series.toString());
+        assertEquals(Integer.valueOf(7), series.get(0));
+        assertEquals(Double.valueOf(1.5), series.get(1));
+        assertEquals(Integer.valueOf(3), series.get(3));
+        assertTrue(list.isPrimitive());
+
+        JSONArray longs = new JSONArray("[1, 5000000000, 2]");
+        assertTrue(((JSONList) field.get(longs)).isPrimitive());
+        assertEquals(Integer.valueOf(1), longs.get(0));
+        assertEquals(Long.valueOf(5000000000L), longs.get(1));
+        assertEquals(Integer.valueOf(2), longs.get(2));
+
+        StringBuilder sb = new StringBuilder("[0.5");
+        for (int i = 1; i < 200; i++) {
+            sb.append(',').append(i % 3 == 0 ? String.valueOf(i) : i + ".5");
+        }
+        JSONArray many = new JSONArray(sb.append(']').toString());
+        ((JSONList) field.get(many)).remove(0);
+        for (int i = 0; i < 199; i++) {
+            Object expected = (i + 1) % 3 == 0 ? (Object) Integer.valueOf(i + 1)
+                    : (Object) Double.valueOf(i + 1.5);
+            assertEquals(expected, many.get(i));
+        }
+    }
+
+    @Test
+    public void mixedArrays() {
+        JSONArray array = new JSONArray("[1, 2, 3]");
+        array.put(1, 2.5);
+        array.put("4");
+        assertEquals("[1,2.5,3,\"4\"]", array.toString());
+        assertEquals(Integer.valueOf(1), array.get(0));
+        assertEquals(Double.valueOf(2.5), array.get(1));
+        assertArrayEquals(new double[]{1, 2.5, 3, 4}, array.toDoubleArray(), 0);
+
+        array.put(true);
+        try {
+            array.toIntArray();
+            fail();
+        } catch (JSONException e) {
+            assertEquals("JSONArray[4] is not a Integer, it is a Boolean.", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.json;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author kuporific
+ */
+public class JSONBinderTest {
+
+    private static final String TEXT = "{\"name\": \"order\", \"count\": 3,"
+            + " \"ignored\": {\"a\": [1, {\"b\": 2}], c': [it's, d'e]},"
+            + " \"price\": 9.95,"
+            + " \"color\": \"RED\", \"tags\": [\"x\", \"y\", \"x\"],"
+            + " \"scores\": [1, 2, 3], \"items\": [{\"name\": \"a\"},"
+            + " {\"name\": \"b\", \"count\": 2}], \"extra\": {\"k\": 1.5},"
+            + " \"child\": {\"name\": \"c\", \"items\": []}, \"id\": 7,"
+            + " \"open\": null}";
+
+    @Test
+    public void toBean() {
+        check(new JSONObject(TEXT).toBean(Order.class));
+    }
+
+    @Test
+    public void nextBean() {
+        JSONTokener x = new JSONTokener("[" + TEXT + ", " + TEXT + "]");
+        assertEquals('[', x.nextClean());
+        check(x.nextBean(Order.class));
+        assertEquals(',', x.nextClean());
+        check(x.nextBean(Order.class));
+        assertEquals(']', x.nextClean());
+        assertNull(new JSONTokener("null").nextBean(Order.class));
+    }
+
+    @Test
+    public void errors() {
+        String text = "{\"items\": [{\"name\": \"a\"}, {\"count\": \"many\"}]}";
+        String message = "JSONObject[\"items\"][1][\"count\"] is not a int, it is a String.";
+        try {
+            new JSONObject(text).toBean(Order.class);
+            fail();
+        } catch (JSONException e) {
+            assertEquals(message, e.getMessage());
+        }
+        try {
+            new JSONTokener(text).nextBean(Order.class);
+            fail();
+        } catch (JSONException e) {
+            assertEquals(message, e.getMessage());
+        }
+        try {
+            new JSONTokener("{\"name\" \"a\"}").nextBean(Order.class);
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Expected a ':' after a key at 9 [character 10 line 1]", e.getMessage());
+        }
+        try {
+            new JSONObject().toBean(Map.Entry.class);
+            fail();
+        } catch (JSONException e) {
+            assertEquals("java.util.Map$Entry has no public constructor to bind with.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void objectForScalar() {
+        for (String key : new String[] { "open", "price", "color", "id" }) {
+            String text = "{\"" + key + "\": {\"a\": 1}}";
+            String expected = null;
+            try {
+                new JSONObject(text).toBean(Order.class);
+                fail();
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            assertTrue(expected, expected.startsWith(
+                    "JSONObject[\"" + key + "\"] is not a "));
+            try {
+                new JSONTokener(text).nextBean(Order.class);
+                fail();
+            } catch (JSONException e) {
+                assertEquals(expected, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void duplicateKeys() {
+        String text = "{\"name\": \"a\", \"name\": \"b\"}";
+        assertEquals("b", new JSONTokener(text).nextBean(Order.class)
+                .getName());
+        try {
+            new JSONObject(text).toBean(Order.class);
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Duplicate key \"name\"", e.getMessage());
+        }
+    }
+
+    private static void check(Order order) {
+        assertEquals("order", order.getName());
+        assertEquals(3, order.getCount());
+        assertEquals(new BigDecimal("9.95"), order.getPrice());
+        assertEquals(Color.RED, order.getColor());
+        assertEquals(Arrays.asList("x", "y"), Arrays.asList(order.getTags().toArray()));
+        assertArrayEquals(new int[]{1, 2, 3}, order.getScores());
+        assertEquals(2, order.getItems().size());
+        assertEquals("b", order.getItems().get(1).getName());
+        assertEquals(2, order.getItems().get(1).getCount());
+        assertEquals(Collections.singletonMap("k", 1.5), order.getExtra());
+        assertEquals("c", order.getChild().getName());
+        assertEquals(Collections.emptyList(), order.getChild().getItems());
+        assertEquals(7L, order.id);
+        assertNull(order.open);
+    }
+
+    public enum Color {
+        RED, GREEN
+    }
+
+    public static class Order {
+        private Order child;
+        private Color color;
+        private int count;
+        private Map<String, Double> extra;
+        public long id;
+        private List<Order> items;
+        private String name;
+        public Boolean open = Boolean.TRUE;
+        private BigDecimal price;
+        private int[] scores;
+        private Set<String> tags;
+
+        public Order getChild() {
+            return this.child;
+        }
+
+        public void setChild(Order child) {
+            this.child = child;
+        }
+
+        public Color getColor() {
+            return this.color;
+        }
+
+        public void setColor(Color color) {
+            this.color = color;
+        }
+
+        public int getCount() {
+            return this.count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public Map<String, Double> getExtra() {
+            return this.extra;
+        }
+
+        public void setExtra(Map<String, Double> extra) {
+            this.extra = extra;
+        }
+
+        public List<Order> getItems() {
+            return this.items;
+        }
+
+        public void setItems(List<Order> items) {
+            this.items = items;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public BigDecimal getPrice() {
+            return this.price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+        public int[] getScores() {
+            return this.scores;
+        }
+
+        public void setScores(int[] scores) {
+            this.scores = scores;
+        }
+
+        public Set<String> getTags() {
+            return this.tags;
+        }
+
+        public void setTags(Set<String> tags) {
+            this.tags = tags;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package org.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import javax.annotation.processing.Processor;
+import javax.lang.model.SourceVersion;
+import javax.tools.DiagnosticCollector;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author kuporific
+ */
+public class JSONCodecProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String ORDER = "package shop;\n"
+            + "import java.util.List;\n"
+            + "@org.json.JSONSerializable\n"
+            + "public class Order {\n"
+            + "    private int count;\n"
+            + "    private List<Line> lines;\n"
+            + "    private String name;\n"
+            + "    public String note;\n"
+            + "    public int getCount() { return count; }\n"
+            + "    public void setCount(int count) { this.count = count; }\n"
+            + "    public List<Line> getLines() { return lines; }\n"
+            + "    public void setLines(List<Line> lines) { this.lines = lines; }\n"
+            + "    public String getName() { return name; }\n"
+            + "    public void setName(String name) { this.name = name; }\n"
+            + "    @org.json.JSONSerializable\n"
+            + "    public static class Line {\n"
+            + "        private double price;\n"
+            + "        public double getPrice() { return price; }\n"
+            + "        public void setPrice(double price) { this.price = price; }\n"
+            + "    }\n"
+            + "}\n";
+
+    @Test
+    public void generatedCodec() throws Exception {
+        ClassLoader loader = this.compile("shop/Order.java", ORDER);
+        Class<?> order = loader.loadClass("shop.Order");
+        assertEquals("shop.OrderJSONCodec",
+                JSONCodec.of(order).getClass().getName());
+        assertEquals("shop.Order$LineJSONCodec", JSONCodec.of(
+                loader.loadClass("shop.Order$Line")).getClass().getName());
+
+        String text = "{\"name\":\"a\",\"count\":2,\"skipped\":[{}, {x':1}, it's],"
+                + "\"lines\":[{\"price\":1.5},{\"price\":2}],\"note\":\"n\"}";
+        Object bean = new JSONTokener(text).nextBean(order);
+        assertEquals("n", order.getField("note").get(bean));
+
+        JSONObject jo = new JSONObject(bean);
+        assertEquals(2, jo.getInt("count"));
+        assertEquals(2.0, jo.getJSONArray("lines").getJSONObject(1)
+                .getDouble("price"), 0);
+
+        JSONObject holder = new JSONObject().put("order", bean);
+        assertEquals(new JSONObject().put("order", jo).toString(2),
+                holder.toString(2));
+        assertEquals(new JSONObject().put("order", jo).toString(),
+                holder.toString());
+        assertEquals("[" + jo + "]", new JSONStringer().array().value(bean)
+                .endArray().toString());
+
+        JSONCodec.of(order).getClass().getDeclaredMethod("write", order,
+                UTF8Writer.class, int.class, int.class);
+        for (int indentFactor = 0; indentFactor <= 2; indentFactor += 2) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            new UTF8Writer(bytes).write(holder, indentFactor).flush();
+            assertEquals(holder.toString(indentFactor),
+                    new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        }
+
+        assertNull(new JSONTokener("null").nextBean(order));
+    }
+
+    @Test
+    public void generatedRecordCodec() throws Exception {
+        Assume.assumeTrue(SourceVersion.latestSupported().ordinal() >= 16);
+        ClassLoader loader = this.compile("shop/Point.java", "package shop;\n"
+                + "@org.json.JSONSerializable\n"
+                + "public record Point(int x, int y, java.util.List<String> tags) {}\n");
+        Class<?> point = loader.loadClass("shop.Point");
+        Object bean = new JSONTokener("{\"y\": 2, \"tags\": [\"a\"]}")
+                .nextBean(point);
+        assertEquals("Point[x=0, y=2, tags=[a]]", bean.toString());
+        JSONObject jo = (JSONObject) JSONObject.wrap(bean);
+        assertEquals(2, jo.getInt("y"));
+        assertEquals("a", jo.getJSONArray("tags").getString(0));
+    }
+
+    @Test
+    public void generatedRecordCodecHasNoWarnings() throws Exception {
+        Assume.assumeTrue(SourceVersion.latestSupported().ordinal() >= 16);
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        File source = this.write("shop/Sample.java", "package shop;\n"
+                + "@org.json.JSONSerializable\n"
+                + "public record Sample(boolean b, byte by, short s, char c,"
+                + " int i, long l, float f, double d, Object o) {}\n");
+        assertTrue(this.task(diagnostics, Arrays.asList("-Xlint:all"),
+                source).call());
+        assertEquals(Collections.emptyList(), diagnostics.getDiagnostics());
+        ClassLoader loader = new URLClassLoader(new URL[]{this.folder.getRoot()
+                .toURI().toURL()}, this.getClass().getClassLoader());
+        Object bean = new JSONTokener("{\"l\": 5, \"o\": \"x\"}").nextBean(
+                loader.loadClass("shop.Sample"));
+        assertEquals("Sample[b=false, by=0, s=0, c=\u0000, i=0, l=5, f=0.0,"
+                + " d=0.0, o=x]", bean.toString());
+    }
+
+    @Test
+    public void generatedGenericCodec() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        File box = this.write("shop/Box.java", "package shop;\n"
+                + "@org.json.JSONSerializable\n"
+                + "public class Box<T> {\n"
+                + "    private T value;\n"
+                + "    public T getValue() { return value; }\n"
+                + "    public void setValue(T value) { this.value = value; }\n"
+                + "}\n");
+        File clash = this.write("shop/Order_Line.java", "package shop;\n"
+                + "@org.json.JSONSerializable\n"
+                + "public class Order_Line {\n"
+                + "    public int quantity;\n"
+                + "}\n");
+        File order = this.write("shop/Order.java", ORDER);
+        assertTrue(this.task(diagnostics, Arrays.asList("-Xlint:all"), box,
+                clash, order).call());
+        for (javax.tools.Diagnostic<? extends JavaFileObject> diagnostic
+                : diagnostics.getDiagnostics()) {
+            assertTrue(diagnostic.toString(), diagnostic.getSource() == null
+                    || !diagnostic.getSource().getName().contains("JSONCodec"));
+        }
+        ClassLoader loader = new URLClassLoader(new URL[]{this.folder.getRoot()
+                .toURI().toURL()}, this.getClass().getClassLoader());
+        Class<?> klass = loader.loadClass("shop.Box");
+        Object bean = new JSONTokener("{\"value\": \"v\"}").nextBean(klass);
+        assertEquals("{\"value\":\"v\"}", new JSONObject(bean).toString());
+        assertEquals("shop.Order_LineJSONCodec", JSONCodec.of(
+                loader.loadClass("shop.Order_Line")).getClass().getName());
+        assertEquals("shop.Order$LineJSONCodec", JSONCodec.of(
+                loader.loadClass("shop.Order$Line")).getClass().getName());
+    }
+
+    @Test
+    public void compiledWithoutProcessor() throws Exception {
+        File source = this.write("shop/Order.java", ORDER);
+        assertTrue(this.task(null, Arrays.asList("-proc:none"), source).call());
+        ClassLoader loader = new URLClassLoader(new URL[]{this.folder.getRoot()
+                .toURI().toURL()}, this.getClass().getClassLoader());
+        Class<?> order = loader.loadClass("shop.Order");
+        assertNull(JSONCodec.of(order));
+        Object bean = new JSONTokener("{\"name\":\"a\",\"lines\":[{\"price\":2}]}")
+                .nextBean(order);
+        JSONObject jo = new JSONObject(bean);
+        assertEquals("a", jo.getString("name"));
+        assertEquals(2.0, jo.getJSONArray("lines").getJSONObject(0)
+                .getDouble("price"), 0);
+        assertEquals(jo.toString(), JSONObject.wrap(bean).toString());
+    }
+
+    @Test
+    public void registeredAsService() {
+        boolean found = false;
+        for (Processor processor : ServiceLoader.load(Processor.class,
+                this.getClass().getClassLoader())) {
+            found |= processor instanceof JSONCodecProcessor;
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    public void rejected() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        File source = this.write("shop/Outer.java", "package shop;\n"
+                + "public class Outer {\n"
+                + "    @org.json.JSONSerializable\n"
+                + "    public class Inner {}\n"
+                + "}\n");
+        assertEquals(false, this.task(source, diagnostics).call());
+        assertEquals("@JSONSerializable is not for inner classes; make the class static.",
+                diagnostics.getDiagnostics().get(0).getMessage(null));
+    }
+
+    private ClassLoader compile(String name, String source) throws Exception {
+        assertTrue(this.task(this.write(name, source), null).call());
+        return new URLClassLoader(new URL[]{this.folder.getRoot().toURI()
+                .toURL()}, this.getClass().getClassLoader());
+    }
+
+    private JavaCompiler.CompilationTask task(File source,
+            DiagnosticListener<JavaFileObject> diagnostics) {
+        return this.task(diagnostics, Collections.<String>emptyList(), source);
+    }
+
+    private JavaCompiler.CompilationTask task(
+            DiagnosticListener<JavaFileObject> diagnostics, List<String> flags,
+            File... sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeTrue(compiler != null);
+        StandardJavaFileManager files = compiler.getStandardFileManager(null,
+                null, StandardCharsets.UTF_8);
+        List<String> options = new ArrayList<>(Arrays.asList("-d",
+                this.folder.getRoot().getPath(), "-s",
+                this.folder.getRoot().getPath(), "-classpath",
+                System.getProperty("java.class.path"), "-implicit:class"));
+        options.addAll(flags);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+                options, null, files.getJavaFileObjects(sources));
+        task.setProcessors(Collections.singletonList(new JSONCodecProcessor()));
+        return task;
+    }
+
+    private File write(String name, String source) throws IOException {
+        File file = new File(this.folder.getRoot(), name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,163 @@
+package org.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author kuporific
+ */
+public class JSONExtractorTest {
+
+    private static final String TEXT = "{\"user\": {\"id\": 7, \"name\": \"a\"},"
+            + " \"items\": [{\"price\": 1.5}, , {\"price\": 2}],"
+            + " \"a/b\": {\"m~n\": true}, \"skip\": [[{\"x\": \"]\"}]]}";
+
+    private static final byte[] BYTES = TEXT.getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void extract() {
+        JSONExtractor extractor = new JSONExtractor("/user/id", "/items/2/price",
+                "/a~1b/m~0n", "/items/1", "/missing", "/items/9", "/user/id/x");
+        Object[] expected = { 7, 2, true, JSONObject.NULL, null, null, null };
+        assertArrayEquals(expected, extractor.extract(BYTES));
+        assertArrayEquals(expected, extractor.extract(new JSONTokener(TEXT)));
+        assertArrayEquals(expected,
+                extractor.extract(UTF8Tokener.indexed(BYTES)));
+    }
+
+    @Test
+    public void nestedPointers() {
+        Object[] values = new JSONExtractor("/items", "/items/0/price", "")
+                .extract(BYTES);
+        assertEquals(3, ((JSONArray) values[0]).length());
+        assertEquals(1.5, values[1]);
+        assertEquals(new JSONObject(TEXT).toString(), values[2].toString());
+    }
+
+    @Test
+    public void stopsWhenFound() {
+        JSONTokener x = new JSONTokener("{\"id\": 1, \"rest\": oops oops}");
+        assertArrayEquals(new Object[] { 1 }, new JSONExtractor("/id").extract(x));
+        assertEquals(',', x.nextClean());
+
+        try {
+            new JSONExtractor("/missing").extract(
+                    new JSONTokener("{\"id\": 1, \"rest\" oops}"));
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Expected a ':' after a key at 18 [character 19 line 1]",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void duplicateKeys() {
+        byte[] bytes = "{\"a\": 1, \"a\": 2, \"b\": 3}"
+                .getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(new Object[] { 1, 3 },
+                new JSONExtractor("/a", "/b").extract(bytes));
+        assertArrayEquals(new Object[] { 1 },
+                new JSONExtractor("/a").extract(bytes));
+    }
+
+    @Test
+    public void largeIndexes() {
+        JSONExtractor extractor = new JSONExtractor("/items/99999999",
+                "/items/2147483647", "/items/1");
+        assertArrayEquals(new Object[] { null, null, JSONObject.NULL },
+                extractor.extract(BYTES));
+    }
+
+    @Test
+    public void agreesWithEagerParse() {
+        String[] texts = { "{\"a\":[x'],\"b\":2}", "{'':{3':\"\"}, x: y'z}",
+                "{k1: {'': [[it's, -0, 's',], [007, 2.5], [],]}, k2: 1}",
+                "{\"a\": {b: c d'e}, f: [g'h, {\"i\": [\"]\"]}], j: null}" };
+        for (String text : texts) {
+            JSONObject jo = new JSONObject(text);
+            List<String> pointers = new ArrayList<String>();
+            pointers(jo, "", pointers);
+            Object[] expected = new Object[pointers.size()];
+            for (int i = 0; i < expected.length; i += 1) {
+                expected[i] = resolve(jo, pointers.get(i));
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < expected.length; i += 1) {
+                JSONExtractor extractor = new JSONExtractor(pointers.get(i));
+                String message = text + " " + pointers.get(i);
+                assertEquals(message, String.valueOf(expected[i]),
+                        String.valueOf(extractor.extract(bytes)[0]));
+                assertEquals(message, String.valueOf(expected[i]),
+                        String.valueOf(extractor.extract(
+                                new JSONTokener(text))[0]));
+                assertEquals(message, String.valueOf(expected[i]),
+                        String.valueOf(extractor.extract(
+                                UTF8Tokener.indexed(bytes))[0]));
+            }
+            assertEquals(text, Arrays.toString(expected), Arrays.toString(
+                    new JSONExtractor(pointers.toArray(
+                            new String[pointers.size()])).extract(bytes)));
+        }
+    }
+
+    /**
+     * Collect the pointer of every value in a tree, parents first.
+     */
+    private static void pointers(Object value, String pointer,
+            List<String> pointers) {
+        pointers.add(pointer);
+        if (value instanceof JSONObject) {
+            JSONObject jo = (JSONObject) value;
+            for (String key : jo.keySet()) {
+                pointers(jo.opt(key), pointer + "/"
+                        + key.replace("~", "~0").replace("/", "~1"), pointers);
+            }
+        } else if (value instanceof JSONArray) {
+            JSONArray ja = (JSONArray) value;
+            for (int i = 0; i < ja.length(); i += 1) {
+                pointers(ja.opt(i), pointer + "/" + i, pointers);
+            }
+        }
+    }
+
+    /**
+     * Resolve a pointer made by pointers against the eagerly parsed tree.
+     */
+    private static Object resolve(Object value, String pointer) {
+        String[] tokens = pointer.split("/", -1);
+        for (int i = 1; i < tokens.length; i += 1) {
+            String token = tokens[i].replace("~1", "/").replace("~0", "~");
+            value = value instanceof JSONObject
+                    ? ((JSONObject) value).opt(token)
+                    : ((JSONArray) value).opt(Integer.parseInt(token));
+        }
+        return value;
+    }
+
+    @Test
+    public void badPointers() {
+        try {
+            new JSONExtractor("user");
+            fail();
+        } catch (JSONException e) {
+            assertEquals("A JSON Pointer must start with '/': \"user\"",
+                    e.getMessage());
+        }
+        try {
+            new JSONExtractor("/a~2");
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Bad escape in JSON Pointer \"/a~2\"", e.getMessage());
+        }
+        assertNull(new JSONExtractor("/01").extract(
+                "[1, 2]".getBytes(StandardCharsets.UTF_8))[0]);
+    }
+}
@@ -0,0 +1,115 @@
+package org.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author kuporific
+ */
+public class JSONFeedParserTest {
+
+    private static final String SAMPLE
+            = "{\"name\": \"caf\u00e9 \ud83d\ude00\", escaped: \"a\\\"b\\u0041\","
+            + " 'list': [1, , -2.5e3, true, null, bare words,],\n"
+            + " \"deep\": {\"\u00fcber\": [[], {}]}; \"big\": 12345678901234}";
+
+    @Test
+    public void everySplit() {
+        byte[] bytes = SAMPLE.getBytes(StandardCharsets.UTF_8);
+        String expected = new JSONObject(SAMPLE).toString();
+        for (int split = 0; split < bytes.length; split++) {
+            JSONFeedParser parser = new JSONFeedParser();
+            assertEquals(JSONFeedParser.Status.NEED_MORE_INPUT,
+                    parser.feed(ByteBuffer.wrap(bytes, 0, split)));
+            assertEquals(JSONFeedParser.Status.COMPLETE,
+                    parser.feed(ByteBuffer.wrap(bytes, split, bytes.length - split)));
+            assertEquals(expected, parser.getValue().toString());
+        }
+    }
+
+    @Test
+    public void directBufferKeepsTheRest() {
+        byte[] bytes = "[1, [2]] [3]".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        JSONFeedParser parser = new JSONFeedParser();
+        assertEquals(JSONFeedParser.Status.COMPLETE, parser.feed(direct));
+        assertEquals("[1,[2]]", parser.getValue().toString());
+        assertEquals(8, direct.position());
+        parser.reset();
+        assertEquals(JSONFeedParser.Status.COMPLETE, parser.feed(direct));
+        assertEquals("[3]", parser.getValue().toString());
+    }
+
+    @Test
+    public void topLevelNumberNeedsFinish() {
+        JSONFeedParser parser = new JSONFeedParser();
+        assertEquals(JSONFeedParser.Status.NEED_MORE_INPUT,
+                parser.feed(ByteBuffer.wrap("-12.5".getBytes(StandardCharsets.UTF_8))));
+        parser.finish();
+        assertEquals(-12.5, parser.getValue());
+    }
+
+    @Test
+    public void syntaxErrorCountsLines() {
+        JSONFeedParser parser = new JSONFeedParser();
+        try {
+            parser.feed(ByteBuffer.wrap("{\"a\": 1,\n\"b\" 2}"
+                    .getBytes(StandardCharsets.UTF_8)));
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Expected a ':' after a key at 14 [character 5 line 2]",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void syntaxErrorCountsLinesAsTokenerDoes() {
+        for (String text : new String[] { "{\"a\":1,\r\"b\" 2}",
+                "{\"a\":1,\r\n\"b\" 2}", "{\"a\":1,\n\r\"b\" 2}",
+                "{\"a\":1,\r\r \"b\" 2}", "{\"a\":1,\r\n\n\"b\" 2}" }) {
+            String expected = null;
+            try {
+                new JSONObject(text);
+                fail();
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            for (int split = 1; split < bytes.length; split++) {
+                JSONFeedParser parser = new JSONFeedParser();
+                try {
+                    parser.feed(ByteBuffer.wrap(bytes, 0, split));
+                    parser.feed(ByteBuffer.wrap(bytes, split,
+                            bytes.length - split));
+                    fail();
+                } catch (JSONException e) {
+                    assertEquals(expected, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void duplicateKey() {
+        JSONFeedParser parser = new JSONFeedParser();
+        try {
+            parser.feed(ByteBuffer.wrap("{\"a\": 1, \"a\": 2}"
+                    .getBytes(StandardCharsets.UTF_8)));
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Duplicate key \"a\"", e.getMessage());
+        }
+    }
+
+    @Test(expected = JSONException.class)
+    public void unfinishedArray() {
+        JSONFeedParser parser = new JSONFeedParser();
+        parser.feed(ByteBuffer.wrap("[1, 2".getBytes(StandardCharsets.UTF_8)));
+        parser.finish();
+    }
+}
@@ -0,0 +1,104 @@
+package org.json;
+
+import java.io.StringWriter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author kuporific
+ */
+public class JSONHandlerTest {
+
+    @Test
+    public void pullParserToText() {
+        String text = "{\"a\":[1,true,null,\"x\\\"y\"],\"b\":{\"c\":{}},\"d\":[]}";
+        StringWriter writer = new StringWriter();
+        new JSONPullParser(text).parse(new JSONTextHandler(writer));
+        assertEquals(text, writer.toString());
+    }
+
+    @Test
+    public void xmlBuildsSameObject() {
+        String xml = "<?xml version=\"1.0\"?><!-- comment -->"
+                + "<root id=\"7\"><item>1</item><item>two</item>"
+                + "<mixed a=\"b\">text<br/>more</mixed><empty/>"
+                + "<plain><![CDATA[ <second> ]]></plain></root>";
+        JSONBuilder builder = new JSONBuilder(true);
+        XML.parse(xml, builder);
+        assertEquals(XML.toJSONObject(xml).toString(),
+                builder.getResult().toString());
+        assertEquals("{\"root\":{\"id\":7,\"item\":[1,\"two\"],"
+                + "\"mixed\":{\"a\":\"b\",\"content\":[\"text\",\"more\"],"
+                + "\"br\":\"\"},\"empty\":\"\",\"plain\":\" <second> \"}}",
+                builder.getResult().toString());
+    }
+
+    @Test
+    public void xmlContentOnlyElementsCollapse() {
+        assertEquals("{\"a\":\"x\"}",
+                XML.toJSONObject("<a><content>x</content></a>").toString());
+        assertEquals("{\"a\":[[\"q\",\"z\"]]}",
+                XML.toJSONObject("<a content=\"q\">z</a>").toString());
+        assertEquals("{\"r\":{\"a\":[[1,2]]}}", XML.toJSONObject(
+                "<r><a><content>1</content><content>2</content></a></r>")
+                .toString());
+        assertEquals("{\"a\":{\"content\":\"x\"}}",
+                XML.toJSONObject("<a content=\"x\"/>").toString());
+    }
+
+    @Test
+    public void xmlTextDiffersFromToJSONObject() {
+        String repeated = "<a><b>1</b><b>2</b></a>";
+        StringWriter writer = new StringWriter();
+        XML.parse(repeated, new JSONTextHandler(writer));
+        assertEquals("{\"a\":{\"b\":1,\"b\":2}}", writer.toString());
+        try {
+            new JSONObject(writer.toString());
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Duplicate key \"b\"", e.getMessage());
+        }
+        assertEquals("{\"a\":{\"b\":[1,2]}}",
+                XML.toJSONObject(repeated).toString());
+
+        String split = "<a>x<!-- c -->y<![CDATA[z]]></a>";
+        writer = new StringWriter();
+        XML.parse(split, new JSONTextHandler(writer));
+        assertEquals("{\"a\":[\"x\",\"y\",\"z\"]}", writer.toString());
+        assertEquals("{\"a\":[[\"x\",\"y\",\"z\"]]}",
+                XML.toJSONObject(split).toString());
+
+        String content = "<a><content>x</content></a>";
+        JSONBuilder builder = new JSONBuilder(true);
+        XML.parse(content, builder);
+        assertEquals("{\"a\":{\"content\":\"x\"}}",
+                builder.getResult().toString());
+        assertEquals("{\"a\":\"x\"}", XML.toJSONObject(content).toString());
+    }
+
+    @Test
+    public void builderRejectsDuplicateKeys() {
+        String text = "{\"a\": 1, \"b\": {\"a\": 2}, \"a\": 3}";
+        try {
+            new JSONPullParser(text).parse(new JSONBuilder());
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Duplicate key \"a\"", e.getMessage());
+        }
+        JSONBuilder builder = new JSONBuilder(true);
+        new JSONPullParser(text).parse(builder);
+        assertEquals("{\"a\":[1,3],\"b\":{\"a\":2}}",
+                builder.getResult().toString());
+    }
+
+    @Test
+    public void cdlRows() {
+        String cdl = "name,age\nalice,30\nbob,\n";
+        StringWriter writer = new StringWriter();
+        CDL.parse(new JSONTokener(cdl), new JSONTextHandler(writer));
+        assertEquals("[{\"name\":\"alice\",\"age\":\"30\"},{\"name\":\"bob\",\"age\":\"\"}]",
+                writer.toString());
+    }
+}
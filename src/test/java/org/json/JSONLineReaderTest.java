@@ -0,0 +1,143 @@
+package org.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author kuporific
+ */
+public class JSONLineReaderTest {
+
+    private static final String TEXT = "{\"id\":1,\"name\":\"a\"}\n"
+            + "{\"id\":2,\"name\":\"b\\n\"}  \r\n"
+            + "\n"
+            + "{\"id\":3,\"name\":\"\\u00e9\"}";
+
+    @Test
+    public void read() throws IOException {
+        try (JSONLineReader reader = new JSONLineReader(new ByteArrayInputStream(
+                TEXT.getBytes(StandardCharsets.UTF_8)))) {
+            assertTrue(reader.hasNext());
+            assertEquals(1, reader.next().getInt("id"));
+            assertEquals("b\n", reader.next().getString("name"));
+            assertEquals("\u00e9", reader.next().getString("name"));
+            assertFalse(reader.hasNext());
+            try {
+                reader.next();
+                fail();
+            } catch (NoSuchElementException expected) {
+            }
+        }
+        List<Object> ids = new JSONLineReader(new StringReader(TEXT)).stream()
+                .map(jo -> jo.get("id")).collect(Collectors.toList());
+        assertEquals(Arrays.asList(1, 2, 3), ids);
+    }
+
+    @Test
+    public void errors() {
+        JSONLineReader reader = new JSONLineReader(new JSONTokener(
+                "{\"id\":1} {\"id\":2}\n"));
+        try {
+            reader.next();
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Expected a newline after a record at 10 [character 11 line 1]",
+                    e.getMessage());
+        }
+        reader = new JSONLineReader(new JSONTokener("[1]\n"));
+        try {
+            reader.next();
+            fail();
+        } catch (JSONException e) {
+            assertEquals("A record must be a JSONObject at 3 [character 4 line 1]",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void varyingKeysKeepBoundedShapes() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        Random random = new Random(21);
+        for (int r = 0; r < 50000; r++) {
+            JSONObject record = new JSONObject();
+            for (int k = 0; k < 30; k++) {
+                if (random.nextInt(3) == 0) {
+                    record.put("k" + k, r);
+                }
+            }
+            sb.append(record).append('\n');
+        }
+        JSONTokener x = new JSONTokener(new StringReader(sb.toString()));
+        Set<JSONMap.Shape> roots = Collections.newSetFromMap(
+                new IdentityHashMap<JSONMap.Shape, Boolean>());
+        JSONLineReader reader = new JSONLineReader(x);
+        int records = 0;
+        while (reader.hasNext()) {
+            reader.next();
+            records += 1;
+            if (records % 1000 == 0) {
+                roots.add(x.shape());
+                assertTrue(shapes(x.shape()) <= 513);
+            }
+        }
+        assertEquals(50000, records);
+        assertTrue(roots.size() > 1);
+    }
+
+    /**
+     * Count a shape and the shapes that can follow it.
+     */
+    private static int shapes(JSONMap.Shape shape) throws Exception {
+        Field field = JSONMap.Shape.class.getDeclaredField("children");
+        field.setAccessible(true);
+        int count = 1;
+        JSONMap.Shape[] children = (JSONMap.Shape[]) field.get(shape);
+        if (children != null) {
+            for (JSONMap.Shape child : children) {
+                if (child != null) {
+                    count += shapes(child);
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void write() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JSONLineWriter writer = new JSONLineWriter(out, 32)) {
+            JSONLineReader reader = new JSONLineReader(new StringReader(TEXT));
+            while (reader.hasNext()) {
+                writer.write(reader.next());
+            }
+            writer.write(new JSONArray("[true]"));
+        }
+        assertEquals(4, new String(out.toByteArray(), StandardCharsets.UTF_8)
+                .split("\n").length);
+        JSONLineReader reader = new JSONLineReader(new ByteArrayInputStream(
+                out.toByteArray()));
+        assertEquals("{\"id\":1,\"name\":\"a\"}", reader.next().toString());
+        assertEquals("b\n", reader.next().getString("name"));
+        assertEquals(3, reader.next().getInt("id"));
+        assertEquals("[true]", reader.nextValue().toString());
+        assertFalse(reader.hasNext());
+    }
+}
@@ -0,0 +1,76 @@
+package org.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author kuporific
+ */
+public class JSONNumberTest {
+
+    private static JSONObject lazy(String source) {
+        JSONTokener x = new JSONTokener(source);
+        x.setLazyNumbers(true);
+        return new JSONObject(x);
+    }
+
+    @Test
+    public void writtenVerbatim() {
+        String source = "{\"a\":1.50,\"b\":123456789012345678901234567890,\"c\":-2E+3}";
+        assertEquals(source, lazy(source).toString());
+    }
+
+    @Test
+    public void convertedOnDemand() {
+        JSONObject jo = lazy("{\"i\": 42, \"l\": 12345678901, \"d\": 2.5e1, \"s\": 007}");
+        assertTrue(jo.get("i") instanceof JSONNumber);
+        assertEquals(42, jo.getInt("i"));
+        assertEquals(Integer.valueOf(42), ((JSONNumber) jo.get("i")).numberValue());
+        assertEquals(12345678901L, jo.getLong("l"));
+        assertEquals(25.0, jo.getDouble("d"), 0);
+        assertEquals("007", jo.get("s"));
+    }
+
+    @Test
+    public void keptAsStringsWhenEager() {
+        JSONObject jo = lazy("{\"z\": -0, \"b\": 123456789012345678901234567890,"
+                + " \"h\": 1e999, \"t\": 1e-999}");
+        assertEquals(Integer.valueOf(0), ((JSONNumber) jo.get("z")).numberValue());
+        assertEquals(new BigInteger("123456789012345678901234567890"),
+                ((JSONNumber) jo.get("b")).numberValue());
+        assertEquals(new BigDecimal("1e999"),
+                ((JSONNumber) jo.get("h")).numberValue());
+        assertEquals(Double.valueOf(0), ((JSONNumber) jo.get("t")).numberValue());
+        assertEquals("{\"z\":-0,\"b\":123456789012345678901234567890,"
+                + "\"h\":1e999,\"t\":1e-999}", jo.toString());
+
+        assertEquals("-0", JSONObject.stringToValue("-0"));
+        assertEquals("1e999", JSONObject.stringToValue("1e999"));
+        assertEquals("123456789012345678901234567890",
+                JSONObject.stringToValue("123456789012345678901234567890"));
+    }
+
+    @Test
+    public void increment() {
+        JSONObject jo = lazy("{\"n\": 9}");
+        jo.increment("n");
+        assertEquals(10, jo.get("n"));
+    }
+
+    @Test
+    public void syntax() {
+        assertTrue(JSONNumber.isNumber("0"));
+        assertTrue(JSONNumber.isNumber("-0.5e-7"));
+        assertFalse(JSONNumber.isNumber("01"));
+        assertFalse(JSONNumber.isNumber("1."));
+        assertFalse(JSONNumber.isNumber(".5"));
+        assertFalse(JSONNumber.isNumber("1e"));
+        assertFalse(JSONNumber.isNumber("-"));
+        assertFalse(JSONNumber.isNumber("0x1F"));
+    }
+}
@@ -1,13 +1,24 @@
 package org.json;
 
 import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Random;
 import org.junit.Assert;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -251,6 +262,285 @@ public class JSONObjectTest {
         assertEquals(jsonObject.get("number"), 1);
     }
 
+    @Test
+    public void testQuote() {
+        assertEquals("\"\"", JSONObject.quote(""));
+        assertEquals("\"plain text\"", JSONObject.quote("plain text"));
+        assertEquals("\"a\\\"b\\\\c<\\/d/e\"",
+                JSONObject.quote("a\"b\\c</d/e"));
+        assertEquals("\"tab\there\\u0001\\u0085\u00e9\\u2028\"",
+                JSONObject.quote("tab\there\u0001\u0085\u00e9\u2028"));
+    }
+
+    @Test
+    public void testDoubleToString() {
+        assertEquals("0", JSONObject.doubleToString(0.0));
+        assertEquals("-0", JSONObject.doubleToString(-0.0));
+        assertEquals("100", JSONObject.doubleToString(100.0));
+        assertEquals("-123.5", JSONObject.doubleToString(-123.5));
+        assertEquals("0.001", JSONObject.doubleToString(0.001));
+        assertEquals("1.0E-4", JSONObject.doubleToString(0.0001));
+        assertEquals("9999999", JSONObject.doubleToString(9999999.0));
+        assertEquals("1.0E7", JSONObject.doubleToString(1.0E7));
+        assertEquals("1.25E-5", JSONObject.doubleToString(1.25E-5));
+        assertEquals("0.30000000000000004", JSONObject.doubleToString(0.1 + 0.2));
+        assertEquals("2.82879384806159E17",
+                JSONObject.doubleToString(2.82879384806159E17));
+        assertEquals("4.9E-324", JSONObject.doubleToString(Double.MIN_VALUE));
+        assertEquals("1.7976931348623157E308",
+                JSONObject.doubleToString(Double.MAX_VALUE));
+        assertEquals("null", JSONObject.doubleToString(Double.NaN));
+        assertEquals("[1.5,2]", new JSONWriter(new StringWriter())
+                .array().value(1.5).value(2.0).endArray().writer.toString());
+        double[] values = { -0.0, 0.001, 0.0001, 9999999.0, 1.0E7, 1.25E-5,
+                2.82879384806159E17, Double.MIN_VALUE, -Double.MAX_VALUE };
+        for (double value : values) {
+            String string = JSONObject.doubleToString(value);
+            assertEquals("[" + string + "]", new JSONArray().put(value)
+                    .toString());
+            assertEquals("[" + string + "," + string + "]",
+                    new JSONWriter(new StringWriter()).array().value(value)
+                            .value(value).endArray().writer.toString());
+        }
+    }
+
+    @Test
+    public void testRegisteredCodec() throws IOException {
+        JSONObject jo = new JSONObject().put("price", new BigDecimal("1E+3"));
+        String before = jo.toString();
+        JSONCodec.register(BigDecimal.class, new JSONCodec<BigDecimal>() {
+            @Override
+            public Object toJSON(BigDecimal value) {
+                return value.toPlainString();
+            }
+
+            @Override
+            public BigDecimal read(JSONTokener x) {
+                Object value = x.nextValue();
+                return JSONObject.NULL.equals(value) ? null
+                        : new BigDecimal(value.toString()).scaleByPowerOfTen(-2);
+            }
+        });
+        try {
+            assertEquals("{\"price\":\"1000\"}", jo.toString());
+            assertEquals("[\"1000\"]", new JSONArray(Arrays.asList(
+                    new BigDecimal("1E+3"))).toString());
+            assertEquals("1000", JSONObject.wrap(new BigDecimal("1E+3")));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new UTF8Writer(out).write(jo).flush();
+            assertEquals("{\"price\":\"1000\"}",
+                    new String(out.toByteArray(), StandardCharsets.UTF_8));
+            assertEquals(new BigDecimal("1.50"), new JSONTokener("\"150\"")
+                    .nextBean(BigDecimal.class));
+        } finally {
+            JSONCodec.register(BigDecimal.class, null);
+        }
+        assertEquals(before, jo.toString());
+    }
+
+    @Test
+    public void testBean() {
+        for (int i = 0; i < 2; i++) {
+            JSONObject jsonObject = new JSONObject(new Bean(i));
+            assertEquals(new HashSet<>(Arrays.asList("number", "ok", "URL",
+                    "name")), jsonObject.keySet());
+            assertEquals(i, jsonObject.getInt("number"));
+            assertEquals("static", jsonObject.getString("name"));
+        }
+    }
+
+    @Test
+    public void testBeanGetterError() {
+        assertEquals("{\"a\":1}", new JSONObject(new FailingBean()).toString());
+    }
+
+    public static class FailingBean {
+        public int getA() {
+            return 1;
+        }
+
+        public int getMissing() {
+            throw new NoClassDefFoundError("missing");
+        }
+    }
+
+    public static class Bean {
+        private final int number;
+
+        public Bean(int number) {
+            this.number = number;
+        }
+
+        public static String getName() {
+            return "static";
+        }
+
+        public int getNumber() {
+            return this.number;
+        }
+
+        public boolean isOk() {
+            return true;
+        }
+
+        public String getURL() {
+            return "url";
+        }
+
+        public Object getMissing() {
+            return null;
+        }
+
+        public int getBroken() {
+            throw new IllegalStateException();
+        }
+
+        public String getArgument(int argument) {
+            return "not a getter";
+        }
+    }
+
+    @Test
+    public void testManyKeys() {
+        JSONObject jsonObject = new JSONObject();
+        for (int i = 0; i < 100; i++) {
+            jsonObject.put("key" + i, i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            jsonObject.remove("key" + i);
+        }
+        assertEquals(50, jsonObject.length());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 1, jsonObject.has("key" + i));
+        }
+        assertEquals(99, jsonObject.getInt("key99"));
+        assertEquals("key1", jsonObject.keys().next());
+    }
+
+    @Test
+    public void testRecordsWithSameKeys() {
+        JSONArray records = new JSONArray(
+                "[{a: 1, b: 2}, {a: 3, b: 4}, {a: 5, b: 6}, {b: 7, a: 8}]");
+        JSONObject first = records.getJSONObject(0);
+        JSONObject second = records.getJSONObject(1);
+        first.put("c", 9);
+        second.remove("a");
+        first.put("a", 10);
+        assertEquals("{\"a\":10,\"b\":2,\"c\":9}", first.toString());
+        assertEquals("{\"b\":4}", second.toString());
+        assertEquals("{\"a\":5,\"b\":6}", records.getJSONObject(2).toString());
+        assertEquals("{\"b\":7,\"a\":8}", records.getJSONObject(3).toString());
+        JSONObject third = records.getJSONObject(2);
+        third.keySet().clear();
+        assertEquals(0, third.length());
+        third.put("z", 1);
+        assertEquals("{\"z\":1}", third.toString());
+    }
+
+    @Test
+    public void testStandaloneObjectKeepsNoShapes() throws Exception {
+        for (int n : new int[] { 5, 20, 64 }) {
+            StringBuilder sb = new StringBuilder("{");
+            JSONObject built = new JSONObject();
+            for (int i = 0; i < n; i++) {
+                sb.append(i == 0 ? "" : ",").append("k").append(i)
+                        .append(":").append(i);
+                built.put("k" + i, i);
+            }
+            JSONObject parsed = new JSONObject(sb.append("}").toString());
+            assertEquals(built.toString(), parsed.toString());
+            Map<Object, Boolean> seen = new IdentityHashMap<>();
+            long size = retained(parsed, seen);
+            for (Object o : seen.keySet()) {
+                assertFalse(o instanceof JSONMap.Shape);
+            }
+            assertTrue(n + " keys: " + size, size <= retained(built,
+                    new IdentityHashMap<>()));
+        }
+    }
+
+    @Test
+    public void testShapesOfVaryingRecordsAreBounded() throws Exception {
+        StringBuilder sb = new StringBuilder("[");
+        Random random = new Random(11);
+        for (int r = 0; r < 20000; r++) {
+            sb.append(r == 0 ? "{" : ",{");
+            String separator = "";
+            for (int k = 0; k < 30; k++) {
+                if (random.nextInt(3) == 0) {
+                    sb.append(separator).append("k").append(k).append(":")
+                            .append(r);
+                    separator = ",";
+                }
+            }
+            sb.append("}");
+        }
+        JSONTokener x = new JSONTokener(sb.append("]").toString());
+        JSONArray records = new JSONArray(x);
+        assertEquals(20000, records.length());
+        assertTrue(x.shape().isSpent());
+        assertTrue(shapes(x.shape()) <= 513);
+
+        JSONMap.Shape root = new JSONMap.Shape();
+        JSONMap.Shape a = root.next("a");
+        JSONMap.Shape b = root.next("b");
+        a.next("c");
+        Map<Object, Boolean> seen = new IdentityHashMap<>();
+        retained(a, seen);
+        assertFalse(seen.containsKey(root));
+        assertFalse(seen.containsKey(b));
+        assertEquals(2, shapes(a));
+    }
+
+    private static int shapes(JSONMap.Shape shape)
+            throws IllegalAccessException {
+        Map<Object, Boolean> seen = new IdentityHashMap<>();
+        retained(shape, seen);
+        int count = 0;
+        for (Object o : seen.keySet()) {
+            if (o instanceof JSONMap.Shape) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Estimate the bytes reachable from an object through the classes of
+     * this package and arrays. Other objects, such as the keys and values,
+     * are not counted.
+     */
+    private static long retained(Object o, Map<Object, Boolean> seen)
+            throws IllegalAccessException {
+        if (o == null || seen.put(o, Boolean.TRUE) != null) {
+            return 0;
+        }
+        Class<?> c = o.getClass();
+        if (c.isArray()) {
+            int length = Array.getLength(o);
+            long size = 16 + 4L * length;
+            if (!c.getComponentType().isPrimitive()) {
+                for (int i = 0; i < length; i++) {
+                    size += retained(Array.get(o, i), seen);
+                }
+            }
+            return size;
+        }
+        if (!c.getName().startsWith("org.json.")) {
+            return 0;
+        }
+        long size = 12;
+        for (; c.getName().startsWith("org.json."); c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    size += 4 + retained(field.get(o), seen);
+                }
+            }
+        }
+        return size;
+    }
+
     @Test
     public void testNumberToString() {
         assertEquals(JSONObject.numberToString(10.0), "10");
@@ -0,0 +1,155 @@
+package org.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author kuporific
+ */
+public class JSONParallelParserTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private static byte[] array(int n, String tail) {
+        StringBuilder sb = new StringBuilder("\ufeff [");
+        for (int i = 0; i < n; i++) {
+            switch (i % 5) {
+            case 0:
+                sb.append("{\"id\":").append(i)
+                        .append(",\"tags\":[\"a,b\",\"]\",'[{']}");
+                break;
+            case 1:
+                sb.append("\"quote \\\" , ]\"");
+                break;
+            case 2:
+                sb.append("it's,");
+                break;
+            case 3:
+                sb.append("[1,[2,{\"x\":\"}\"}]]");
+                break;
+            default:
+                sb.append(i * 0.5);
+            }
+            sb.append(i % 7 == 0 ? " ,\n" : ",");
+        }
+        return sb.append(tail).append(']').toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void parseArray() {
+        byte[] bytes = array(100000, "true,");
+        JSONArray expected = new JSONArray(new UTF8Tokener(bytes));
+        JSONArray actual = JSONParallelParser.parseArray(
+                ByteBuffer.wrap(bytes), POOL);
+        assertEquals(expected.length(), actual.length());
+        assertEquals(expected.toString(), actual.toString());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertEquals(expected.toString(),
+                JSONParallelParser.parseArray(direct, POOL).toString());
+
+        assertEquals("[1,null,2]",
+                JSONParallelParser.parseArray("[1,,2]".getBytes(
+                        StandardCharsets.UTF_8)).toString());
+    }
+
+    @Test
+    public void arraySyntaxError() {
+        byte[] bytes = array(100000, "{\"a\" 1}");
+        String expected = null;
+        try {
+            new JSONArray(new UTF8Tokener(bytes));
+            fail();
+        } catch (JSONException e) {
+            expected = e.getMessage();
+        }
+        try {
+            JSONParallelParser.parseArray(ByteBuffer.wrap(bytes), POOL);
+            fail();
+        } catch (JSONException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+
+    @Test
+    public void arrayClosedWithBrace() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 40000; i++) {
+            sb.append("{\"k\":1},");
+        }
+        byte[] bytes = sb.append("1}").toString()
+                .getBytes(StandardCharsets.UTF_8);
+        String expected = null;
+        try {
+            new JSONArray(new UTF8Tokener(bytes));
+            fail();
+        } catch (JSONException e) {
+            expected = e.getMessage();
+        }
+        try {
+            JSONParallelParser.parseArray(ByteBuffer.wrap(bytes), POOL);
+            fail();
+        } catch (JSONException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+
+    @Test
+    public void lines() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"\\u00e9\\n\"}")
+                    .append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        List<Integer> ids = JSONParallelParser.lines(bytes)
+                .map(record -> record.getInt("id"))
+                .collect(Collectors.toList());
+        assertEquals(50000, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(Integer.valueOf(i), ids.get(i));
+        }
+    }
+
+    @Test
+    public void linesSyntaxError() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            sb.append(i == 40000 ? "{\"id\" 1}" : "{\"id\":1}").append('\n');
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            JSONParallelParser.lines(bytes).count();
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("Expected a ':' after a key at 360007"
+                    + " [character 7 line 40001]",
+                    JSONParallelParser.unwrap(e).getMessage());
+        }
+
+// Run in a pool of several threads, the error is thrown on one of them and
+// copied by the pool, and again by join().
+
+        try {
+            POOL.submit(() -> JSONParallelParser.lines(bytes)
+                    .mapToInt(jo -> jo.getInt("id")).sum()).join();
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("Expected a ':' after a key at 360007"
+                    + " [character 7 line 40001]",
+                    JSONParallelParser.unwrap(e).getMessage());
+        }
+        assertNull(JSONParallelParser.unwrap(
+                new IllegalStateException(new RuntimeException())));
+    }
+}
@@ -0,0 +1,67 @@
+package org.json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.json.JSONPullParser.Event.*;
+
+/**
+ * @author kuporific
+ */
+public class JSONPullParserTest {
+
+    @Test
+    public void events() {
+        JSONPullParser parser = new JSONPullParser(
+                "{\"a\": [1, 'two', , true, false, null, bare],"
+                        + " b: {}, \"c\": 2.5,}");
+        List<JSONPullParser.Event> events = new ArrayList<>();
+        while (parser.hasNext()) {
+            events.add(parser.next());
+        }
+        assertEquals(Arrays.asList(
+                START_OBJECT, KEY_NAME, START_ARRAY, VALUE_NUMBER,
+                VALUE_STRING, VALUE_NULL, VALUE_TRUE, VALUE_FALSE, VALUE_NULL,
+                VALUE_STRING, END_ARRAY, KEY_NAME, START_OBJECT, END_OBJECT,
+                KEY_NAME, VALUE_NUMBER, END_OBJECT), events);
+    }
+
+    @Test
+    public void skipAndMaterialize() {
+        JSONPullParser parser = new JSONPullParser(
+                "[{\"id\": 1, \"body\": {\"x\": [\"]}\", {}]}},"
+                        + " {\"skipped\": \"yes\", \"id\": 2}, {\"keep\": [3]}]");
+        List<Number> ids = new ArrayList<>();
+        JSONObject kept = null;
+        while (parser.hasNext()) {
+            JSONPullParser.Event event = parser.next();
+            if (event == KEY_NAME) {
+                if ("id".equals(parser.getString())) {
+                    parser.next();
+                    ids.add(parser.getNumber());
+                } else {
+                    parser.skip();
+                }
+            } else if (event == START_OBJECT && parser.getDepth() == 2
+                    && ids.size() == 2) {
+                kept = (JSONObject) parser.getValue();
+                assertEquals(END_OBJECT, parser.getEvent());
+            }
+        }
+        assertEquals(Arrays.<Number>asList(1, 2), ids);
+        assertEquals(3, kept.getJSONArray("keep").getInt(0));
+        assertFalse(parser.hasNext());
+    }
+
+    @Test(expected = JSONException.class)
+    public void missingSeparator() {
+        JSONPullParser parser = new JSONPullParser("[\"a\" \"b\"]");
+        while (parser.hasNext()) {
+            parser.next();
+        }
+    }
+}
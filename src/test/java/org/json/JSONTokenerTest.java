@@ -0,0 +1,198 @@
+package org.json;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author kuporific
+ */
+public class JSONTokenerTest {
+
+    private static final String SAMPLE
+            = "{\"plain\": \"text\", 'single': 'quoted',"
+            + " escaped: \"a\\\"b\\\\c\\u0041\\n\", number: -12.5e3,"
+            + " list: [1, , 2, true, null, unquoted text ],\n"
+            + " nested: {\"empty\": {}, \"none\": []}}";
+
+    @Test
+    public void charArrayAndReaderAgree() {
+        JSONObject fromString = new JSONObject(new JSONTokener(SAMPLE));
+        JSONObject fromReader
+                = new JSONObject(new JSONTokener(new StringReader(SAMPLE)));
+        assertEquals(fromReader.toString(), fromString.toString());
+        assertEquals("a\"b\\cA\n", fromString.getString("escaped"));
+        assertEquals("unquoted text",
+                fromString.getJSONArray("list").getString(5));
+    }
+
+    @Test
+    public void stepBackOnlyOnce() {
+        JSONTokener x = new JSONTokener("ab");
+        assertEquals('a', x.next());
+        x.back();
+        try {
+            x.back();
+            fail();
+        } catch (JSONException expected) {
+            // passed.
+        }
+        assertEquals('a', x.next());
+        assertEquals('b', x.next());
+        assertFalse(x.more());
+        assertTrue(x.end());
+    }
+
+    @Test
+    public void endAgainAfterBackAgreesWithReader() {
+        JSONTokener[] tokeners = {
+            new JSONTokener("a"), new JSONTokener(new StringReader("a"))
+        };
+        for (JSONTokener x : tokeners) {
+            assertEquals('a', x.next());
+            assertEquals(0, x.next());
+            assertTrue(x.end());
+            x.back();
+            assertTrue(x.more());
+            assertFalse(x.end());
+        }
+        try {
+            JSONML.toJSONArray("<b>x");
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Bad XML at 6 [character 7 line 1]", e.getMessage());
+        }
+    }
+
+    @Test
+    public void skipValueAgreesWithNextValue() {
+        String[] values = {
+            "{x':1}", "{'':{3':\"\"}}", "[x', \"y\"]", "[it's, 'a\"b']",
+            "{\"a\": {b: c d'e}, f: [g'h]}", "x'y", "'q'", "[[], {}, -0]"
+        };
+        for (String value : values) {
+            String text = "[" + value + " , \"after\"]";
+            assertEquals("after", new JSONArray(text).getString(1));
+            JSONTokener[] tokeners = {
+                new JSONTokener(text),
+                new JSONTokener(new StringReader(text)),
+                new UTF8Tokener(text.getBytes(StandardCharsets.UTF_8)),
+                UTF8Tokener.indexed(text.getBytes(StandardCharsets.UTF_8))
+            };
+            for (JSONTokener x : tokeners) {
+                assertEquals('[', x.nextClean());
+                x.skipValue();
+                assertEquals(value, ',', x.nextClean());
+                assertEquals(value, "after", x.nextValue());
+            }
+        }
+    }
+
+    @Test
+    public void skipToMissingCharacterStays() {
+        JSONTokener x = new JSONTokener("abc");
+        assertEquals(0, x.skipTo('z'));
+        assertEquals('a', x.next());
+        assertEquals('c', x.skipTo('c'));
+        assertEquals('c', x.next());
+        assertFalse(x.more());
+    }
+
+    @Test
+    public void syntaxErrorPosition() {
+        String text = "{\"a\": 1,\n \"b\" 2}";
+        assertEquals(errorMessage(new JSONTokener(new StringReader(text))),
+                errorMessage(new JSONTokener(text)));
+    }
+
+    @Test
+    public void lineBreaksCountedOnceAfterBack() {
+
+// The reader used to count a line break again when it stepped back over it,
+// and reported line 5 here.
+
+        String text = "{\"k0\":-0\r\n ,\r\n \"k1\": { \"k0\":{\"k0\"\n:{,}}}}";
+        String message = "Missing value at 36 [character 2 line 4]";
+        assertEquals(message, errorMessage(new JSONTokener(text)));
+        assertEquals(message,
+                errorMessage(new JSONTokener(new StringReader(text))));
+        JSONTokener x = new JSONTokener(new StringReader("a\r\nb"));
+        x.next();
+        x.next();
+        x.back();
+        x.next();
+        x.next();
+        x.back();
+        assertEquals(" at 2 [character 3 line 1]", x.toString());
+        x = new JSONTokener("a\r\nb");
+        x.next();
+        x.next();
+        x.next();
+        x.back();
+        assertEquals(" at 2 [character 3 line 1]", x.toString());
+    }
+
+    @Test
+    public void numbersMatchStringToValue() {
+        String[] numbers = {"0", "-0", "01", "1.", "42", "-2147483649",
+                "123456789012345678", "12345678901234567890", "0.1", "-2.5e3",
+                "1E+2", "2.2250738585072014E-308", "1.7976931348623157E308",
+                "4.9e-324", "1e999", "9007199254740993.0", "0x1F", "12 34"};
+        for (String number : numbers) {
+            Object expected = JSONObject.stringToValue(number);
+            Object value = new JSONTokener(number + ",").nextValue();
+            assertEquals(number, expected, value);
+            assertEquals(number, expected.getClass(), value.getClass());
+        }
+    }
+
+    @Test
+    public void keyCacheSharesKeys() {
+        String text = "[{\"id\": 1, \"n\\u0061me\": \"a\"},"
+                + " {\"id\": 2, \"name\": \"b\"}, {id: 3, 'name': 'c'}]";
+        JSONKeyCache cache = new JSONKeyCache(16);
+        JSONTokener[] tokeners = {new JSONTokener(text),
+                new UTF8Tokener(text.getBytes(StandardCharsets.UTF_8))};
+        for (JSONTokener x : tokeners) {
+            x.setKeyCache(cache);
+            JSONArray records = new JSONArray(x);
+            assertEquals(new JSONArray(text).toString(), records.toString());
+            for (int i = 1; i < records.length(); i += 1) {
+                assertSame(key(records.getJSONObject(0), "id"),
+                        key(records.getJSONObject(i), "id"));
+                assertSame(key(records.getJSONObject(0), "name"),
+                        key(records.getJSONObject(i), "name"));
+            }
+        }
+    }
+
+    private static String key(JSONObject jo, String key) {
+        for (String k : jo.keySet()) {
+            if (k.equals(key)) {
+                return k;
+            }
+        }
+        return null;
+    }
+
+    @Test(expected = JSONException.class)
+    public void unterminatedString() {
+        new JSONTokener("\"abc").nextValue();
+    }
+
+    private static String errorMessage(JSONTokener x) {
+        try {
+            new JSONObject(x);
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+        fail();
+        return null;
+    }
+}
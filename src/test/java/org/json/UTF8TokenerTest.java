@@ -0,0 +1,339 @@
+package org.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author kuporific
+ */
+public class UTF8TokenerTest {
+
+    private static final String SAMPLE
+            = "{\"name\": \"caf\u00e9 \u4e2d\u6587 \ud83d\ude00\","
+            + " escaped: \"tab\\there \\u00e9\\\"\","
+            + " 'single': 'x',\n \"list\": [1, -2.5e3, true, null, bare words],"
+            + " \"deep\": {\"\u00fcber\": [[], {}]}, \"big\": 12345678901234}";
+
+    private static final byte[] BYTES = SAMPLE.getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void byteArray() {
+        assertSameAsChars(new JSONObject(new UTF8Tokener(BYTES)));
+    }
+
+    @Test
+    public void heapAndDirectByteBuffers() {
+        assertSameAsChars(new JSONObject(new UTF8Tokener(ByteBuffer.wrap(BYTES))));
+        ByteBuffer direct = ByteBuffer.allocateDirect(BYTES.length);
+        direct.put(BYTES).flip();
+        assertSameAsChars(new JSONObject(new UTF8Tokener(direct)));
+        assertEquals(0, direct.position());
+    }
+
+    @Test
+    public void streamOneByteAtATime() {
+        assertSameAsChars(new JSONObject(new UTF8Tokener(trickle(BYTES))));
+    }
+
+    @Test
+    public void mappedFile() throws IOException {
+        File file = File.createTempFile("UTF8TokenerTest", ".json");
+        file.deleteOnExit();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(BYTES);
+        }
+        assertSameAsChars(new JSONObject(UTF8Tokener.map(file)));
+    }
+
+    @Test
+    public void byteOrderMarkIsSkipped() {
+        byte[] marked = new byte[BYTES.length + 3];
+        marked[0] = (byte) 0xEF;
+        marked[1] = (byte) 0xBB;
+        marked[2] = (byte) 0xBF;
+        System.arraycopy(BYTES, 0, marked, 3, BYTES.length);
+        assertSameAsChars(new JSONObject(new UTF8Tokener(marked)));
+    }
+
+    @Test
+    public void unquotedValueAtEndOfStream() {
+        InputStream in = new ByteArrayInputStream(
+                "abc".getBytes(StandardCharsets.UTF_8));
+        assertEquals("abc", new UTF8Tokener(in).nextValue());
+    }
+
+    @Test
+    public void syntaxErrorCountsLines() {
+        byte[] bytes = "{\"a\": 1,\n\"b\" 2}".getBytes(StandardCharsets.UTF_8);
+        try {
+            new JSONObject(new UTF8Tokener(bytes));
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Expected a ':' after a key at 14 [character 5 line 2]",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void syntaxErrorsMatchJSONTokener() {
+        String[] texts = {"{\"abc\":\"x\ny\"}", "{,}", "{\"a\"::1}",
+                "{\"a\":1\n,,}", "[1,\n2,\n{\"a\":\"b\n\"}]", "\"abc",
+                "\r\n\r[1 2 }", "\r{\"a\" 1}", "{\"a\":\"b\\q\"}", "[1,\0"};
+        for (String text : texts) {
+            String expected = null;
+            try {
+                new JSONTokener(text).nextValue();
+                fail();
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            JSONTokener[] tokeners = {new UTF8Tokener(bytes),
+                    UTF8Tokener.indexed(bytes), new UTF8Tokener(trickle(bytes))};
+            for (JSONTokener x : tokeners) {
+                try {
+                    x.nextValue();
+                    fail();
+                } catch (JSONException e) {
+                    assertEquals(expected, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void indexedMatchesOneStage() {
+        String text = "{\n  \"name\": \"caf\u00e9 \u4e2d\u6587 \ud83d\ude00\",\n"
+                + "  \"escaped\": \"a long string with \\\\\\\" quotes \\\\\",\n"
+                + "  \"list\": [1, -2.5e3, true, null, bare words, \"\"],\n"
+                + "  \"deep\": {\"\u00fcber\": [[], {}], \"k\": \"]}\"},\n"
+                + "  \"big\": 12345678901234\n}\n";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        assertEquals(new JSONObject(text).toString(),
+                new JSONObject(UTF8Tokener.indexed(bytes)).toString());
+        assertSameAsChars(new JSONObject(UTF8Tokener.indexed(BYTES)));
+    }
+
+    @Test
+    public void indexedSkipsValues() {
+        UTF8Tokener x = UTF8Tokener.indexed(
+                "[{\"a\": [1, {\"b\": \"]\"}]}, 2]".getBytes(StandardCharsets.UTF_8));
+        assertEquals('[', x.nextClean());
+        x.skipValue();
+        assertEquals(',', x.nextClean());
+        assertEquals(2, x.nextValue());
+        assertEquals(']', x.nextClean());
+    }
+
+    @Test
+    public void indexedSyntaxErrors() {
+        String[] texts = {"{\"a\": 1,\n\"b\" 2}", "[ab/cd]", "[1,\n\n  2\t3]",
+                "{\"a\": \"b"};
+        for (String text : texts) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            String expected = null;
+            try {
+                new UTF8Tokener(bytes).nextValue();
+                fail();
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            try {
+                UTF8Tokener.indexed(bytes).nextValue();
+                fail();
+            } catch (JSONException e) {
+                assertEquals(expected, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void lazyParsesWhatIsRead() throws IOException {
+        String text = "{\"user\": {\"id\": 7, \"name\": \"caf\u00e9\"},"
+                + " \"items\": [ {\"price\": 1.5} ,  {\"price\": 2} ],"
+                + " \"note\":  \"as  is\" , \"bare\": bare words }";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        JSONObject jo = new JSONObject(UTF8Tokener.lazy(bytes));
+        assertEquals("{\"user\":{\"id\": 7, \"name\": \"caf\u00e9\"},"
+                + "\"items\":[ {\"price\": 1.5} ,  {\"price\": 2} ],"
+                + "\"note\":\"as  is\",\"bare\":\"bare words\"}", jo.toString());
+        assertEquals(7, jo.getJSONObject("user").getInt("id"));
+        assertEquals(2, jo.getJSONArray("items").getJSONObject(1).getInt("price"));
+        assertEquals("{\"user\":{\"id\":7,\"name\":\"caf\u00e9\"},"
+                + "\"items\":[{\"price\": 1.5},{\"price\":2}],"
+                + "\"note\":\"as  is\",\"bare\":\"bare words\"}", jo.toString());
+        assertEquals("bare words", jo.getString("bare"));
+        assertEquals(1.5, jo.getJSONArray("items").getJSONObject(0)
+                .getDouble("price"), 0);
+        assertEquals(new JSONObject(text).toString(), jo.toString());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new UTF8Writer(out).write(new JSONObject(UTF8Tokener.lazy(bytes))).flush();
+        assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8),
+                new JSONObject(UTF8Tokener.lazy(bytes)).toString());
+    }
+
+    @Test
+    public void lazySyntaxErrorsWhenRead() {
+        String text = "{\"a\": 1,\n \"b\": {\"c\" 2}}";
+        String expected = null;
+        try {
+            new JSONObject(new UTF8Tokener(text.getBytes(StandardCharsets.UTF_8)));
+            fail();
+        } catch (JSONException e) {
+            expected = e.getMessage();
+        }
+        JSONObject jo = new JSONObject(UTF8Tokener.lazy(
+                text.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, jo.getInt("a"));
+        try {
+            jo.get("b");
+            fail();
+        } catch (JSONException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+
+    @Test
+    public void lazyCopiesOnlyStrictText() throws IOException {
+        String[] texts = {
+            "{\"a\":[abc, def]}",
+            "{\"a\":[1,,2], \"b\": [1,], \"c\": {\"x\": 1,}}",
+            "{\"a\":{k:v;w:1}}",
+            "{\"a\":[-0, 12345678901234567890, 1e999, TRUE, 01]}",
+            "{\"a\":[\"\\'\", \"tab\there\"]}",
+            "{\"a\":{\"x\": \"ok\"; \"y\": [1,{\"z\":2}]}}",
+            "{\"a\":[1 2], \"b\": [{},[],\"\",0,-1.5,true,null]}"
+        };
+        for (String text : texts) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            String expected = new JSONObject(new UTF8Tokener(bytes)).toString();
+            assertEquals(expected,
+                    new JSONObject(UTF8Tokener.lazy(bytes)).toString());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new UTF8Writer(out).write(new JSONObject(UTF8Tokener.lazy(bytes)))
+                    .flush();
+            assertEquals(expected,
+                    new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+
+        JSONObject jo = new JSONObject(UTF8Tokener.lazy(
+                "{\"b\":{k:v;w:1}}".getBytes(StandardCharsets.UTF_8)));
+        jo.getJSONObject("b");
+        assertEquals("{\"b\":{\"k\":\"v\",\"w\":1}}", jo.toString());
+    }
+
+    @Test
+    public void lazyIndentsLikeEager() throws IOException {
+        String text = "{\"a\": {\"b\" : [1, 2.50, 1e2, \"x\\u0041\"]},"
+                + " \"c\": [ {\"d\": true} ], \"e\": 3.0}";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        String expected = new JSONObject(new UTF8Tokener(bytes)).toString(2);
+        assertEquals(expected,
+                new JSONObject(UTF8Tokener.lazy(bytes)).toString(2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new UTF8Writer(out).write(new JSONObject(UTF8Tokener.lazy(bytes)), 2)
+                .flush();
+        assertEquals(expected,
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void lazyWriteReportsSyntaxErrors() throws IOException {
+        String[] texts = {
+            "{\"a\":{\"x\" 1},\"b\":1}",
+            "{\"a\":{\"x\": 1, \"x\": 2},\"b\":1}",
+            "{\"a\":[\"\\x\"],\"b\":1}",
+            "{\"a\":[1, {\"z\" = 2}],\"b\":1}"
+        };
+        for (String text : texts) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            String expected = null;
+            try {
+                new JSONObject(new UTF8Tokener(bytes));
+                fail();
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            JSONObject jo = new JSONObject(UTF8Tokener.lazy(bytes));
+            try {
+                jo.toString(0);
+                fail();
+            } catch (JSONException e) {
+                assertEquals(expected, e.getMessage());
+            }
+            try {
+                new UTF8Writer(new ByteArrayOutputStream()).write(jo);
+                fail();
+            } catch (JSONException e) {
+                assertEquals(expected, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void lazyLongValueIntoDirectBuffer() throws IOException {
+        StringBuilder sb = new StringBuilder("{\"a\": [");
+        for (int i = 0; i < 2000; i++) {
+            sb.append(i).append(", ");
+        }
+        byte[] bytes = sb.append("-1]}").toString()
+                .getBytes(StandardCharsets.UTF_8);
+        String expected = new JSONObject(UTF8Tokener.lazy(bytes)).toString();
+        ByteBuffer direct = ByteBuffer.allocateDirect(1 << 20);
+        new UTF8Writer(direct).write(new JSONObject(UTF8Tokener.lazy(bytes)))
+                .flush();
+        direct.flip();
+        byte[] written = new byte[direct.remaining()];
+        direct.get(written);
+        assertEquals(expected, new String(written, StandardCharsets.UTF_8));
+
+        direct = ByteBuffer.allocateDirect(10000);
+        try {
+            new UTF8Writer(direct).write(new JSONObject(UTF8Tokener.lazy(bytes)));
+            fail();
+        } catch (JSONException e) {
+            assertEquals("The ByteBuffer is full.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void lazyLinesStayOnOneLine() throws IOException {
+        byte[] bytes = "{\"a\": [1,\n 2], \"b\": [3]}".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JSONLineWriter writer = new JSONLineWriter(out)) {
+            writer.write(new JSONObject(UTF8Tokener.lazy(bytes)));
+        }
+        assertEquals("{\"a\":[1,2],\"b\":[3]}\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static void assertSameAsChars(JSONObject jo) {
+        assertEquals(new JSONObject(SAMPLE).toString(), jo.toString());
+        assertEquals("caf\u00e9 \u4e2d\u6587 \ud83d\ude00", jo.getString("name"));
+        assertEquals("bare words", jo.getJSONArray("list").getString(4));
+    }
+
+    /**
+     * An InputStream that hands out one byte per read.
+     */
+    private static InputStream trickle(byte[] bytes) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+    }
+}
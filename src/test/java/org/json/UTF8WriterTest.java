@@ -0,0 +1,77 @@
+package org.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author kuporific
+ */
+public class UTF8WriterTest {
+
+    private static final JSONObject SAMPLE = new JSONObject(
+            "{\"name\": \"caf\u00e9 \u4e2d\u6587 \ud83d\ude00 \ud800\","
+            + " \"escaped\": \"tab\\there </script> \\\"\\\\ \\u0001\\u0085\\u2028\","
+            + " \"list\": [1, -2.5e3, true, null, -9223372036854775808, 0.1],"
+            + " \"deep\": {\"\u00fcber\": [[], {}, [7]]}, \"big\": 12345678901234}")
+            .put("map", Collections.singletonMap("k", "v"))
+            .put("collection", Arrays.asList(1, "two"))
+            .put("array", new int[]{3, 4})
+            .put("jsonString", (JSONString) () -> "{\"raw\":\"\u00e9\"}");
+
+    @Test
+    public void sameBytesAsToString() throws IOException {
+        for (int indentFactor = 0; indentFactor < 3; indentFactor += 2) {
+            byte[] expected = SAMPLE.toString(indentFactor)
+                    .getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new UTF8Writer(out, 1).write(SAMPLE, indentFactor).flush();
+            assertArrayEquals(expected, out.toByteArray());
+        }
+    }
+
+    @Test
+    public void byteBuffers() {
+        byte[] expected = SAMPLE.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer heap = ByteBuffer.allocate(expected.length + 10);
+        heap.position(10);
+        ByteBuffer slice = heap.slice();
+        new UTF8Writer(slice).write(SAMPLE);
+        assertEquals(expected.length, slice.position());
+        assertArrayEquals(expected,
+                Arrays.copyOfRange(heap.array(), 10, heap.capacity()));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+        new UTF8Writer(direct).write(SAMPLE);
+        assertEquals(expected.length, direct.position());
+        byte[] bytes = new byte[expected.length];
+        direct.flip();
+        direct.get(bytes);
+        assertArrayEquals(expected, bytes);
+
+        try {
+            new UTF8Writer(ByteBuffer.allocate(10)).write(SAMPLE);
+            fail();
+        } catch (JSONException e) {
+            assertEquals("The ByteBuffer is full.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void escapesFillByteBufferExactly() {
+        JSONArray ja = new JSONArray().put("\u00e9</\"").put("\u2028")
+                .put("a\\");
+        byte[] expected = ja.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer exact = ByteBuffer.allocate(expected.length);
+        new UTF8Writer(exact).write(ja);
+        assertArrayEquals(expected, exact.array());
+    }
+}